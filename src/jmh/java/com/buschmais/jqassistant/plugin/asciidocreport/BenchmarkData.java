@@ -0,0 +1,128 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.io.IOException;
+import java.util.*;
+
+import com.buschmais.jqassistant.core.rule.api.model.Concept;
+import com.buschmais.jqassistant.core.rule.api.model.Constraint;
+import com.buschmais.jqassistant.core.rule.api.model.ExecutableRule;
+import com.buschmais.jqassistant.core.rule.api.model.Severity;
+
+import static com.buschmais.jqassistant.core.report.api.model.Result.Status.FAILURE;
+import static com.buschmais.jqassistant.core.report.api.model.Result.Status.SUCCESS;
+import static java.util.Collections.singletonList;
+
+/**
+ * Creates the synthetic results and HTML used by the benchmarks, the rule ids
+ * match the first chapter document created by the
+ * {@link SyntheticRuleSetGenerator}.
+ * <p>
+ * Every even rule block is a concept, every odd one a constraint.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static String getRuleId(int index) {
+        return SyntheticRuleSetGenerator.getRuleId(0, index);
+    }
+
+    static List<String> getColumnNames(int columns) {
+        List<String> columnNames = new ArrayList<>(columns);
+        for (int column = 0; column < columns; column++) {
+            columnNames.add("Column" + column);
+        }
+        return columnNames;
+    }
+
+    /**
+     * Creates the result of a rule block.
+     *
+     * @param index
+     *            The index of the rule block.
+     * @param rows
+     *            The number of rows.
+     * @param columns
+     *            The number of columns.
+     * @param resultRowStore
+     *            The {@link ResultRowStore} holding the rows.
+     * @return The {@link RuleResult}.
+     * @throws IOException
+     *             If the rows cannot be stored.
+     */
+    static RuleResult createResult(int index, int rows, int columns, ResultRowStore resultRowStore) throws IOException {
+        String id = getRuleId(index);
+        ExecutableRule<?> rule = index % 2 == 0 ? Concept.builder().id(id).severity(Severity.MINOR).build()
+                : Constraint.builder().id(id).severity(Severity.MAJOR).build();
+        List<String> columnNames = getColumnNames(columns);
+        ResultRows.Builder rowsBuilder = resultRowStore.builder(columnNames);
+        for (int row = 0; row < rows; row++) {
+            Map<String, List<String>> resultRow = new LinkedHashMap<>();
+            for (String columnName : columnNames) {
+                resultRow.put(columnName, singletonList("com.buschmais.benchmark.Type" + row + "#" + columnName + " <" + index + ">"));
+            }
+            rowsBuilder.row(resultRow);
+        }
+        return RuleResult.builder().rule(rule).effectiveSeverity(rule.getSeverity()).status(index % 2 == 0 ? SUCCESS : FAILURE)
+                .columnNames(columnNames).rows(rowsBuilder.build()).build();
+    }
+
+    /**
+     * Creates the results of all rule blocks.
+     *
+     * @param ruleBlocks
+     *            The number of rule blocks.
+     * @param rows
+     *            The number of rows per result.
+     * @param columns
+     *            The number of columns per result.
+     * @param resultRowStore
+     *            The {@link ResultRowStore} holding the rows.
+     * @param conceptResults
+     *            The {@link Map} receiving the concept results.
+     * @param constraintResults
+     *            The {@link Map} receiving the constraint results.
+     * @throws IOException
+     *             If the rows cannot be stored.
+     */
+    static void createResults(int ruleBlocks, int rows, int columns, ResultRowStore resultRowStore, Map<String, RuleResult> conceptResults,
+            Map<String, RuleResult> constraintResults) throws IOException {
+        for (int index = 0; index < ruleBlocks; index++) {
+            RuleResult result = createResult(index, rows, columns, resultRowStore);
+            (index % 2 == 0 ? conceptResults : constraintResults).put(result.getRule().getId(), result);
+        }
+    }
+
+    /**
+     * Creates HTML as rendered by Asciidoctor for a document declaring the given
+     * number of rule blocks.
+     *
+     * @param ruleBlocks
+     *            The number of rule blocks.
+     * @param rows
+     *            The number of rows of the embedded result tables.
+     * @return The HTML.
+     */
+    static String createHtml(int ruleBlocks, int rows) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("<!DOCTYPE html>\n<html lang=\"en\">\n<head>\n<title>Benchmark</title>\n");
+        builder.append("<style>\nbody { margin: 0 }\n</style>\n</head>\n<body class=\"article\">\n<div id=\"content\">\n");
+        for (int index = 0; index < ruleBlocks; index++) {
+            String id = getRuleId(index);
+            builder.append("<div class=\"sect1\">\n<h2 id=\"_section_").append(index).append("\">Section ").append(index).append("</h2>\n");
+            builder.append("<div class=\"paragraph\"><p>Lorem ipsum dolor sit amet, consectetur adipiscing elit.</p></div>\n");
+            builder.append("<div id=\"").append(id).append("\" class=\"listingblock ").append(index % 2 == 0 ? "concept" : "constraint").append("\">\n");
+            builder.append("<div class=\"title\">Rule block ").append(index).append("</div>\n");
+            builder.append("<div class=\"content\">\n<pre class=\"highlight\"><code class=\"language-cypher\" data-lang=\"cypher\">");
+            builder.append("MATCH\n  (t:Type)\nWHERE\n  t.name = 'Type").append(index).append("'\nRETURN\n  t</code></pre>\n</div>\n</div>\n");
+            builder.append("<div id=\"result(").append(id).append(")\">\n<table>\n<tbody>\n");
+            for (int row = 0; row < rows; row++) {
+                builder.append("<tr>\n<td>\ncom.buschmais.benchmark.Type").append(row).append("\n</td>\n</tr>\n");
+            }
+            builder.append("</tbody>\n</table>\n</div>\n</div>\n");
+        }
+        builder.append("</div>\n</body>\n</html>\n");
+        return builder.toString();
+    }
+}
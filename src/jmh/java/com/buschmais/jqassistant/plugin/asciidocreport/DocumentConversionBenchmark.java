@@ -0,0 +1,90 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.buschmais.jqassistant.core.report.api.ReportContext;
+import com.buschmais.jqassistant.core.report.impl.ReportContextImpl;
+import com.buschmais.jqassistant.core.shared.asciidoc.DocumentParser;
+import com.buschmais.jqassistant.plugin.asciidocreport.include.RuleFilterCache;
+
+import org.apache.commons.io.FileUtils;
+import org.asciidoctor.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmark for the conversion of a full document including all extensions,
+ * i.e. the deferred jQA includes, the embedded results and the
+ * post-processing.
+ * <p>
+ * The {@link Asciidoctor} instance is acquired from the {@link AsciidoctorPool}
+ * during setup, i.e. the startup of JRuby is not measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DocumentConversionBenchmark {
+
+    @Param({ "10", "100" })
+    public int ruleBlocks;
+
+    @Param({ "10", "1000" })
+    public int rows;
+
+    @Param({ "3" })
+    public int columns;
+
+    private final Map<String, RuleResult> conceptResults = new HashMap<>();
+
+    private final Map<String, RuleResult> constraintResults = new HashMap<>();
+
+    private final DocumentParser documentParser = new DocumentParser();
+
+    private final RuleFilterCache ruleFilterCache = new RuleFilterCache();
+
+    private ResultRowStore resultRowStore;
+
+    private File outputDirectory;
+
+    private ReportContext reportContext;
+
+    private Asciidoctor asciidoctor;
+
+    private String document;
+
+    private Options options;
+
+    @Setup
+    public void setUp() throws IOException {
+        resultRowStore = new ResultRowStore(Long.MAX_VALUE);
+        BenchmarkData.createResults(ruleBlocks, rows, columns, resultRowStore, conceptResults, constraintResults);
+        document = SyntheticRuleSetGenerator.builder().rulesPerDocument(ruleBlocks).diagramsPerDocument(0).includeDepth(0).build().createDocument(0);
+        outputDirectory = Files.createTempDirectory("jqassistant-benchmark").toFile();
+        reportContext = new ReportContextImpl(DocumentConversionBenchmark.class.getClassLoader(), null, outputDirectory);
+        options = Options.builder().toFile(false).headerFooter(true).backend("html5").safe(SafeMode.UNSAFE)
+                .attributes(Attributes.builder().experimental(true).sourceHighlighter("coderay").icons("font").build()).build();
+        asciidoctor = AsciidoctorPool.acquire();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        AsciidoctorPool.release(asciidoctor);
+        resultRowStore.close();
+        FileUtils.deleteDirectory(outputDirectory);
+    }
+
+    @Benchmark
+    public String convert() {
+        DocumentContext documentContext = DocumentContext.builder().reportContext(reportContext).conceptResults(conceptResults)
+                .constraintResults(constraintResults).documentParserCache(new DocumentParserCache(documentParser, new AtomicLong()))
+                .relativePath("benchmark.adoc").outputFileDirectory(outputDirectory).maxRows(Integer.MAX_VALUE).ruleFilterCache(ruleFilterCache).build();
+        try (DocumentContext activeDocumentContext = documentContext.activate()) {
+            return asciidoctor.convert(document, options);
+        }
+    }
+}
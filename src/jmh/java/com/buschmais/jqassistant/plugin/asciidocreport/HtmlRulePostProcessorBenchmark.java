@@ -0,0 +1,49 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmark for the post-processing of rendered HTML by the
+ * {@link RulePostProcessor.HtmlRulePostProcessor}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HtmlRulePostProcessorBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int ruleBlocks;
+
+    @Param({ "10", "1000" })
+    public int rows;
+
+    private final Map<String, RuleResult> conceptResults = new HashMap<>();
+
+    private final Map<String, RuleResult> constraintResults = new HashMap<>();
+
+    private ResultRowStore resultRowStore;
+
+    private String html;
+
+    @Setup
+    public void setUp() throws IOException {
+        resultRowStore = new ResultRowStore(Long.MAX_VALUE);
+        BenchmarkData.createResults(ruleBlocks, 1, 1, resultRowStore, conceptResults, constraintResults);
+        html = BenchmarkData.createHtml(ruleBlocks, rows);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        resultRowStore.close();
+    }
+
+    @Benchmark
+    public String process() {
+        return RulePostProcessor.HtmlRulePostProcessor.process(conceptResults, constraintResults, html);
+    }
+}
@@ -0,0 +1,59 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.buschmais.jqassistant.core.rule.api.model.RuleException;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmark for rendering a full report of a rule set created by the
+ * {@link SyntheticRuleSetGenerator}.
+ * <p>
+ * The rendering time is expected to grow roughly linearly with the number of
+ * rules per document, a quadratic behavior becomes visible by comparing the
+ * results of the parameters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReportScalingBenchmark {
+
+    @Param({ "10", "80" })
+    public int rulesPerDocument;
+
+    @Param({ "2" })
+    public int documents;
+
+    @Param({ "50" })
+    public int rows;
+
+    private SyntheticRuleSetGenerator generator;
+
+    private SyntheticRuleSetGenerator.GeneratedRuleSet generatedRuleSet;
+
+    private File outputDirectory;
+
+    @Setup
+    public void setUp() throws IOException, RuleException {
+        generator = SyntheticRuleSetGenerator.builder().documents(documents).rulesPerDocument(rulesPerDocument).diagramsPerDocument(0).rows(rows)
+                .build();
+        outputDirectory = Files.createTempDirectory("jqassistant-benchmark").toFile();
+        generatedRuleSet = generator.generate(new File(outputDirectory, "jqassistant"));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(outputDirectory);
+    }
+
+    @Benchmark
+    public void render() throws RuleException {
+        generator.render(generatedRuleSet, outputDirectory, new HashMap<>());
+    }
+}
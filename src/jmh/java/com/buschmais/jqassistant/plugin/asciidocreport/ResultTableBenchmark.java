@@ -0,0 +1,58 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmark for rendering result tables by the {@link TreePreprocessor}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResultTableBenchmark {
+
+    @Param({ "10", "1000", "100000" })
+    public int rows;
+
+    @Param({ "2", "8" })
+    public int columns;
+
+    /**
+     * The in-memory budget of the {@link ResultRowStore}, rows exceeding it are
+     * read from disk.
+     */
+    @Param({ "1000000" })
+    public long inMemoryRows;
+
+    private ResultRowStore resultRowStore;
+
+    private RuleResult result;
+
+    private File outputDirectory;
+
+    private TreePreprocessor treePreprocessor;
+
+    @Setup
+    public void setUp() throws IOException {
+        resultRowStore = new ResultRowStore(inMemoryRows);
+        result = BenchmarkData.createResult(0, rows, columns, resultRowStore);
+        outputDirectory = Files.createTempDirectory("jqassistant-benchmark").toFile();
+        treePreprocessor = new TreePreprocessor(new IncludeProcessor());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        resultRowStore.close();
+        FileUtils.deleteDirectory(outputDirectory);
+    }
+
+    @Benchmark
+    public String renderResultTable() {
+        return treePreprocessor.renderResultTable(result, Integer.MAX_VALUE, outputDirectory);
+    }
+}
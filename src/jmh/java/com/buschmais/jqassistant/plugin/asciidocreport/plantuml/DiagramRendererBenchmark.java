@@ -0,0 +1,90 @@
+package com.buschmais.jqassistant.plugin.asciidocreport.plantuml;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import com.buschmais.jqassistant.core.report.api.ReportException;
+import com.buschmais.jqassistant.core.report.api.graph.SubGraphFactory;
+import com.buschmais.jqassistant.core.report.api.graph.model.SubGraph;
+import com.buschmais.jqassistant.core.report.api.model.Result;
+import com.buschmais.jqassistant.core.rule.api.model.Concept;
+import com.buschmais.jqassistant.core.rule.api.model.Severity;
+import com.buschmais.jqassistant.plugin.asciidocreport.SyntheticRuleSetGenerator;
+import com.buschmais.jqassistant.plugin.asciidocreport.plantuml.component.ComponentDiagramRenderer;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import static com.buschmais.jqassistant.core.report.api.model.Result.Status.SUCCESS;
+import static java.util.Collections.emptyList;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Benchmark for creating PlantUML component diagrams from a {@link SubGraph}
+ * and for rendering them as images.
+ * <p>
+ * The graph consists of the given number of nodes, each node has the given
+ * number of outgoing relationships to randomly chosen nodes. The default
+ * layout uses Smetana, i.e. no local Graphviz installation is required.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DiagramRendererBenchmark {
+
+    @Param({ "10", "100", "500" })
+    public int nodes;
+
+    @Param({ "1", "3" })
+    public int edgesPerNode;
+
+    @Param({ "SMETANA" })
+    public RenderMode renderMode;
+
+    @Param({ "svg" })
+    public String format;
+
+    private ComponentDiagramRenderer componentDiagramRenderer;
+
+    private ImageRenderer imageRenderer;
+
+    private Concept concept;
+
+    private Result<Concept> result;
+
+    private String plantUML;
+
+    private File outputDirectory;
+
+    @Setup
+    public void setUp() throws IOException, ReportException {
+        SubGraph subGraph = SyntheticRuleSetGenerator.createSubGraph(nodes, edgesPerNode, nodes * 31L + edgesPerNode);
+        SubGraphFactory subGraphFactory = mock(SubGraphFactory.class);
+        concept = Concept.builder().id("benchmark:ComponentDiagram").severity(Severity.INFO).build();
+        result = Result.<Concept> builder().rule(concept).status(SUCCESS).severity(Severity.INFO).columnNames(emptyList()).rows(emptyList()).build();
+        doReturn(subGraph).when(subGraphFactory).createSubGraph(any());
+        componentDiagramRenderer = new ComponentDiagramRenderer(subGraphFactory, renderMode);
+        imageRenderer = new ImageRenderer();
+        plantUML = componentDiagramRenderer.renderDiagram(result);
+        outputDirectory = Files.createTempDirectory("jqassistant-benchmark").toFile();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(outputDirectory);
+    }
+
+    @Benchmark
+    public String renderPlantUML() throws ReportException {
+        return componentDiagramRenderer.renderDiagram(result);
+    }
+
+    @Benchmark
+    public File renderImage() throws ReportException {
+        return imageRenderer.renderDiagram(plantUML, concept, outputDirectory, format);
+    }
+}
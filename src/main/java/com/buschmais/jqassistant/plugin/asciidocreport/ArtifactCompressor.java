@@ -0,0 +1,141 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Writes precompressed variants of report artifacts (e.g. HTML documents or
+ * SVG diagrams) which can be served by static web servers without compressing
+ * them on each request.
+ * <p>
+ * The gzip variant is written next to the artifact using the suffix
+ * {@link #GZIP_SUFFIX}. An existing variant is kept if the checksum and size
+ * recorded in its trailer match the artifact, i.e. only the artifact is read
+ * but not compressed again.
+ */
+public final class ArtifactCompressor {
+
+    public static final String GZIP_SUFFIX = ".gz";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The size of the gzip trailer containing the CRC-32 and the size of the
+     * uncompressed data.
+     */
+    private static final int TRAILER_SIZE = 8;
+
+    private ArtifactCompressor() {
+    }
+
+    /**
+     * Writes the gzip variant of an artifact if it does not exist or if the
+     * artifact has changed.
+     *
+     * @param file
+     *            The artifact.
+     * @return <code>true</code> if the variant has been written,
+     *         <code>false</code> if it is unchanged or the artifact does not
+     *         exist.
+     * @throws IOException
+     *             If the variant cannot be written.
+     */
+    public static boolean compress(File file) throws IOException {
+        if (!file.isFile()) {
+            return false;
+        }
+        Path path = file.toPath();
+        Path gzipPath = getGzipFile(file).toPath();
+        if (Files.isRegularFile(gzipPath) && isUnchanged(path, gzipPath)) {
+            Files.setLastModifiedTime(gzipPath, Files.getLastModifiedTime(path));
+            return false;
+        }
+        Path tempFile = gzipPath.resolveSibling(gzipPath.getFileName() + ".tmp");
+        try {
+            try (InputStream inputStream = Files.newInputStream(path);
+                    OutputStream outputStream = new BestCompressionGZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile), BUFFER_SIZE))) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = inputStream.read(buffer)) >= 0) {
+                    outputStream.write(buffer, 0, read);
+                }
+            }
+            Files.setLastModifiedTime(tempFile, Files.getLastModifiedTime(path));
+            Files.move(tempFile, gzipPath, REPLACE_EXISTING, ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        return true;
+    }
+
+    /**
+     * Return the gzip variant of an artifact.
+     *
+     * @param file
+     *            The artifact.
+     * @return The {@link File} of the variant.
+     */
+    public static File getGzipFile(File file) {
+        return new File(file.getParentFile(), file.getName() + GZIP_SUFFIX);
+    }
+
+    /**
+     * Compares the trailer of a gzip file with the CRC-32 and size of an
+     * artifact.
+     */
+    private static boolean isUnchanged(Path path, Path gzipPath) throws IOException {
+        ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(gzipPath, READ)) {
+            long size = channel.size();
+            if (size < TRAILER_SIZE) {
+                return false;
+            }
+            long position = size - TRAILER_SIZE;
+            while (trailer.hasRemaining()) {
+                int read = channel.read(trailer, position);
+                if (read < 0) {
+                    return false;
+                }
+                position += read;
+            }
+        }
+        trailer.flip();
+        long crc = trailer.getInt() & 0xffffffffL;
+        long size = trailer.getInt() & 0xffffffffL;
+        if (size != (Files.size(path) & 0xffffffffL)) {
+            return false;
+        }
+        CRC32 crc32 = new CRC32();
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = inputStream.read(buffer)) >= 0) {
+                crc32.update(buffer, 0, read);
+            }
+        }
+        return crc32.getValue() == crc;
+    }
+
+    /**
+     * A {@link GZIPOutputStream} using the best compression as the variants are
+     * written once and served many times.
+     */
+    private static final class BestCompressionGZIPOutputStream extends GZIPOutputStream {
+
+        private BestCompressionGZIPOutputStream(OutputStream outputStream) throws IOException {
+            super(outputStream, BUFFER_SIZE);
+            def.setLevel(Deflater.BEST_COMPRESSION);
+        }
+    }
+}
@@ -3,7 +3,11 @@ package com.buschmais.jqassistant.plugin.asciidocreport;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.buschmais.jqassistant.core.report.api.ReportContext;
 import com.buschmais.jqassistant.core.report.api.ReportException;
@@ -13,18 +17,19 @@ import com.buschmais.jqassistant.core.report.api.ReportPlugin.Default;
 import com.buschmais.jqassistant.core.report.api.model.Result;
 import com.buschmais.jqassistant.core.rule.api.model.*;
 import com.buschmais.jqassistant.core.rule.api.source.RuleSource;
-import com.buschmais.jqassistant.core.shared.asciidoc.AsciidoctorFactory;
 import com.buschmais.jqassistant.core.shared.asciidoc.DocumentParser;
+import com.buschmais.jqassistant.plugin.asciidocreport.include.RuleFilterCache;
 
 import org.apache.commons.io.IOUtils;
 import org.asciidoctor.*;
-import org.asciidoctor.ast.Document;
-import org.asciidoctor.extension.JavaExtensionRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static com.buschmais.jqassistant.core.report.api.model.Result.Status.SKIPPED;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.stream.Collectors.toList;
 
 @Default
 public class AsciidocReportPlugin implements ReportPlugin {
@@ -33,29 +38,92 @@ public class AsciidocReportPlugin implements ReportPlugin {
 
     private static final String PROPERTY_DIRECTORY = "asciidoc.report.directory";
     private static final String PROPERTY_RULE_DIRECTORY = "asciidoc.report.rule.directory";
+    private static final String PROPERTY_RULE_DIRECTORY_CACHE = "asciidoc.report.rule.directory.cache";
     private static final String PROPERTY_FILE_INCLUDE = "asciidoc.report.file.include";
     private static final String PROPERTY_FILE_EXCLUDE = "asciidoc.report.file.exclude";
+    private static final String PROPERTY_PARALLELISM = "asciidoc.report.parallelism";
+    private static final String PROPERTY_RESULT_IN_MEMORY_ROWS = "asciidoc.report.result.inMemoryRows";
+    private static final String PROPERTY_RESULT_MAX_ROWS = "asciidoc.report.result.maxRows";
+    private static final String PROPERTY_RESULT_IN_MEMORY_FRAGMENT_CHARS = "asciidoc.report.result.inMemoryFragmentChars";
+    private static final String PROPERTY_RESULT_LAZY = "asciidoc.report.result.lazy";
+    private static final String PROPERTY_INCREMENTAL = "asciidoc.report.incremental";
+    private static final String PROPERTY_SPLIT = "asciidoc.report.split";
+    private static final String PROPERTY_COMPRESS = "asciidoc.report.compress";
+    private static final String PROPERTY_PROFILE = "asciidoc.report.profile";
+    private static final String PROPERTY_INCLUDE_RESOURCE_INDEX = "asciidoc.report.include.resourceIndex";
+
+    private static final String SPLIT_SECTION = "section";
+    private static final long DEFAULT_RESULT_IN_MEMORY_ROWS = 100000;
+    private static final long DEFAULT_RESULT_IN_MEMORY_FRAGMENT_CHARS = 16 * 1024 * 1024;
 
     private static final String DEFAULT_REPORT_DIRECTORY = "asciidoc";
 
+    static final String PROFILE_FILE_NAME = "jqassistant-report-profile.json";
+
+    static final String PLUGIN_PROPERTIES = "plugin.properties";
+
     private static final String BACKEND_HTML5 = "html5";
     private static final String CODERAY = "coderay";
 
     private final DocumentParser documentParser = new DocumentParser();
 
+    private final AtomicLong avoidedDocumentParses = new AtomicLong();
+
     private ReportContext reportContext;
 
     private File reportDirectory;
 
     private RuleSourceMatcher ruleSourceMatcher;
 
+    private int parallelism;
+
+    private long resultInMemoryRows;
+
+    private long resultInMemoryFragmentChars;
+
+    private int resultMaxRows;
+
+    private boolean resultLazy;
+
+    private boolean incremental;
+
+    private boolean profile;
+
+    private boolean compress;
+
+    private String split;
+
+    /**
+     * The splitter of documents into pages, <code>null</code> if documents are
+     * not split.
+     */
+    private DocumentSplitter documentSplitter;
+
+    private boolean includeResourceIndex;
+
+    private ReportProfile reportProfile;
+
+    private ReportManifest reportManifest;
+
+    private DocumentFingerprinter documentFingerprinter;
+
+    private ResultRowStore resultRowStore;
+
+    private ResultFragmentStore resultFragmentStore;
+
+    private RuleFilterCache ruleFilterCache;
+
+    private PluginResourceResolver pluginResourceResolver;
+
+    private Set<String> lazyResultFiles;
+
     private Set<RuleSource> ruleSources;
 
     private Map<String, RuleResult> conceptResults;
     private Map<String, RuleResult> constraintResults;
 
     @Override
-    public void configure(ReportContext reportContext, Map<String, Object> properties) {
+    public void configure(ReportContext reportContext, Map<String, Object> properties) throws ReportException {
         this.reportContext = reportContext;
         File defaultReportDirectory = reportContext.getReportDirectory(DEFAULT_REPORT_DIRECTORY);
         this.reportDirectory = getFile(PROPERTY_DIRECTORY, defaultReportDirectory, properties).getAbsoluteFile();
@@ -65,7 +133,86 @@ public class AsciidocReportPlugin implements ReportPlugin {
         File ruleDirectory = getFile(PROPERTY_RULE_DIRECTORY, null, properties);
         String fileInclude = (String) properties.get(PROPERTY_FILE_INCLUDE);
         String fileExclude = (String) properties.get(PROPERTY_FILE_EXCLUDE);
-        this.ruleSourceMatcher = new RuleSourceMatcher(ruleDirectory, fileInclude, fileExclude);
+        boolean ruleDirectoryCache = Boolean.parseBoolean((String) properties.get(PROPERTY_RULE_DIRECTORY_CACHE));
+        this.ruleSourceMatcher = new RuleSourceMatcher(ruleDirectory, fileInclude, fileExclude, ruleDirectoryCache ? reportDirectory : null);
+        this.parallelism = getParallelism(properties);
+        this.resultInMemoryRows = getNonNegative(PROPERTY_RESULT_IN_MEMORY_ROWS, DEFAULT_RESULT_IN_MEMORY_ROWS, properties);
+        this.resultInMemoryFragmentChars = getNonNegative(PROPERTY_RESULT_IN_MEMORY_FRAGMENT_CHARS, DEFAULT_RESULT_IN_MEMORY_FRAGMENT_CHARS, properties);
+        this.resultMaxRows = getResultMaxRows(properties);
+        this.resultLazy = Boolean.parseBoolean((String) properties.get(PROPERTY_RESULT_LAZY));
+        this.incremental = Boolean.parseBoolean((String) properties.get(PROPERTY_INCREMENTAL));
+        this.profile = Boolean.parseBoolean((String) properties.get(PROPERTY_PROFILE));
+        this.compress = Boolean.parseBoolean((String) properties.get(PROPERTY_COMPRESS));
+        this.split = (String) properties.get(PROPERTY_SPLIT);
+        this.documentSplitter = getDocumentSplitter(split);
+        this.includeResourceIndex = Boolean.parseBoolean((String) properties.get(PROPERTY_INCLUDE_RESOURCE_INDEX));
+    }
+
+    private int getParallelism(Map<String, Object> properties) throws ReportException {
+        String value = (String) properties.get(PROPERTY_PARALLELISM);
+        if (value == null) {
+            return 1;
+        }
+        try {
+            int parallelism = Integer.parseInt(value.trim());
+            if (parallelism > 0) {
+                return parallelism;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new ReportException("Invalid value '" + value + "' for property " + PROPERTY_PARALLELISM + ", a positive number is expected.");
+    }
+
+    private long getNonNegative(String property, long defaultValue, Map<String, Object> properties) throws ReportException {
+        String value = (String) properties.get(property);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            long number = Long.parseLong(value.trim());
+            if (number >= 0) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new ReportException("Invalid value '" + value + "' for property " + property + ", a non-negative number is expected.");
+    }
+
+    private DocumentSplitter getDocumentSplitter(String value) throws ReportException {
+        if (value == null) {
+            return null;
+        }
+        if (SPLIT_SECTION.equalsIgnoreCase(value.trim())) {
+            return new DocumentSplitter(DocumentSplitter.PER_SECTION);
+        }
+        try {
+            long maxPageSize = Long.parseLong(value.trim());
+            if (maxPageSize > 0) {
+                return new DocumentSplitter(maxPageSize);
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new ReportException(
+                "Invalid value '" + value + "' for property " + PROPERTY_SPLIT + ", '" + SPLIT_SECTION + "' or a positive number is expected.");
+    }
+
+    private int getResultMaxRows(Map<String, Object> properties) throws ReportException {
+        String value = (String) properties.get(PROPERTY_RESULT_MAX_ROWS);
+        if (value == null) {
+            return Integer.MAX_VALUE;
+        }
+        try {
+            int maxRows = Integer.parseInt(value.trim());
+            if (maxRows > 0) {
+                return maxRows;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new ReportException("Invalid value '" + value + "' for property " + PROPERTY_RESULT_MAX_ROWS + ", a positive number is expected.");
     }
 
     private File getFile(String property, File defaultValue, Map<String, Object> properties) {
@@ -74,7 +221,16 @@ public class AsciidocReportPlugin implements ReportPlugin {
     }
 
     @Override
-    public void begin() {
+    public void begin() throws ReportException {
+        closeResultRowStore();
+        closeResultFragmentStore();
+        deactivateReportProfile();
+        reportProfile = profile ? new ReportProfile().activate(reportContext) : null;
+        resultRowStore = new ResultRowStore(resultInMemoryRows);
+        resultFragmentStore = new ResultFragmentStore(resultInMemoryFragmentChars);
+        ruleFilterCache = new RuleFilterCache();
+        pluginResourceResolver = new PluginResourceResolver(reportContext.getClassLoader(), includeResourceIndex);
+        lazyResultFiles = resultLazy ? ConcurrentHashMap.newKeySet() : null;
         ruleSources = new HashSet<>();
         conceptResults = new HashMap<>();
         constraintResults = new HashMap<>();
@@ -82,35 +238,434 @@ public class AsciidocReportPlugin implements ReportPlugin {
 
     @Override
     public void end() throws ReportException {
-        List<RuleSource> filteredRuleSources = ruleSourceMatcher.match(ruleSources);
+        if (resultRowStore != null && resultRowStore.getSpilledRows() > 0) {
+            LOGGER.info("Spilled {} of {} result rows ({} bytes) to disk.", resultRowStore.getSpilledRows(), resultRowStore.getStoredRows(),
+                    resultRowStore.getSpilledBytes());
+        }
+        try {
+            if (reportProfile != null && resultRowStore != null) {
+                reportProfile.count("resultRows", resultRowStore.getStoredRows());
+                reportProfile.count("spilledResultRows", resultRowStore.getSpilledRows());
+            }
+            try (ReportProfile.Measurement measurement = measure("render")) {
+                render();
+            }
+            if (reportProfile != null) {
+                reportProfile.count("pluginResourceLookups", pluginResourceResolver.getLookups());
+                reportProfile.count("renderedResultFragments", resultFragmentStore.getRenderedFragments());
+                reportProfile.count("reusedResultFragments", resultFragmentStore.getReusedFragments());
+                reportProfile.count("spilledResultFragmentBytes", resultFragmentStore.getSpilledBytes());
+            }
+        } finally {
+            closeResultRowStore();
+            closeResultFragmentStore();
+            writeReportProfile();
+        }
+    }
+
+    @Override
+    public void destroy() throws ReportException {
+        AsciidoctorPool.shutdown();
+        closeResultRowStore();
+        closeResultFragmentStore();
+        deactivateReportProfile();
+    }
+
+    private ReportProfile.Measurement measure(String stage) {
+        return reportProfile != null ? reportProfile.measure(stage) : ReportProfile.NONE;
+    }
+
+    /**
+     * Writes the {@link ReportProfile} to the report directory if profiling is
+     * enabled.
+     */
+    private void writeReportProfile() {
+        if (reportProfile != null) {
+            reportProfile.deactivate();
+            File profileFile = new File(reportDirectory, PROFILE_FILE_NAME);
+            try {
+                reportProfile.write(profileFile);
+                LOGGER.info("Wrote report profile to '{}'.", profileFile.getPath());
+            } catch (IOException e) {
+                LOGGER.warn("Cannot write report profile to " + profileFile.getPath(), e);
+            }
+            reportProfile = null;
+        }
+    }
+
+    private void deactivateReportProfile() {
+        if (reportProfile != null) {
+            reportProfile.deactivate();
+            reportProfile = null;
+        }
+    }
+
+    private void closeResultRowStore() throws ReportException {
+        if (resultRowStore != null) {
+            try {
+                resultRowStore.close();
+            } catch (IOException e) {
+                throw new ReportException("Cannot close result row store.", e);
+            } finally {
+                resultRowStore = null;
+            }
+        }
+    }
+
+    private void closeResultFragmentStore() throws ReportException {
+        if (resultFragmentStore != null) {
+            try {
+                resultFragmentStore.close();
+            } catch (IOException e) {
+                throw new ReportException("Cannot close result fragment store.", e);
+            } finally {
+                resultFragmentStore = null;
+            }
+        }
+    }
+
+    private void render() throws ReportException {
+        List<RuleSource> matchingRuleSources = ruleSourceMatcher.match(ruleSources);
+        List<RuleSource> filteredRuleSources = matchingRuleSources;
+        avoidedDocumentParses.set(0);
+        if (incremental) {
+            reportManifest = new ReportManifest(reportDirectory);
+            reportManifest.load();
+            int removedEntries = reportManifest.retain(matchingRuleSources.stream().map(RuleSource::getRelativePath).collect(toList()));
+            if (removedEntries > 0) {
+                LOGGER.debug("Removed {} manifest entries of deleted document(s).", removedEntries);
+            }
+            Optional<String> version = getPluginVersion();
+            documentFingerprinter = new DocumentFingerprinter(getConfiguration(version.orElse(null)), conceptResults, constraintResults, reportContext,
+                    pluginResourceResolver);
+            if (version.isPresent()) {
+                try (ReportProfile.Measurement measurement = measure("incremental")) {
+                    filteredRuleSources = getChangedRuleSources(filteredRuleSources);
+                }
+            } else {
+                // changes of the plugin cannot be detected
+                LOGGER.warn("Cannot determine the version of the plugin, rendering all documents.");
+            }
+            try {
+                renderRuleSources(filteredRuleSources);
+            } finally {
+                try {
+                    reportManifest.store();
+                } catch (IOException e) {
+                    LOGGER.warn("Cannot write report manifest.", e);
+                }
+                reportManifest = null;
+                documentFingerprinter = null;
+            }
+        } else {
+            renderRuleSources(filteredRuleSources);
+        }
+        if (compress) {
+            try (ReportProfile.Measurement measurement = measure("compress")) {
+                compress(matchingRuleSources);
+            }
+        }
+    }
+
+    /**
+     * Writes the gzip variants of the documents rendered for the given
+     * {@link RuleSource}s in parallel, unchanged documents (e.g. skipped by the
+     * incremental mode) are not compressed again.
+     *
+     * @param ruleSources
+     *            The {@link RuleSource}s.
+     * @throws ReportException
+     *             If interrupted while compressing.
+     */
+    private void compress(List<RuleSource> ruleSources) throws ReportException {
+        if (ruleSources.isEmpty()) {
+            return;
+        }
+        int threads = Math.min(Runtime.getRuntime().availableProcessors(), ruleSources.size());
+        ExecutorService executorService = Executors.newFixedThreadPool(threads, new WorkerThreadFactory());
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (RuleSource ruleSource : ruleSources) {
+                File outputFile = new File(reportDirectory, getOutputFileName(ruleSource));
+                futures.add(executorService.submit(() -> {
+                    boolean compressed = compress(outputFile);
+                    if (documentSplitter != null) {
+                        for (File pageFile : DocumentSplitter.getPageFiles(outputFile)) {
+                            compress(pageFile);
+                        }
+                    }
+                    return compressed;
+                }));
+            }
+            int compressed = 0;
+            for (int i = 0; i < ruleSources.size(); i++) {
+                try {
+                    if (futures.get(i).get()) {
+                        compressed++;
+                    }
+                } catch (ExecutionException e) {
+                    LOGGER.warn("Cannot compress document of " + ruleSources.get(i), e.getCause());
+                }
+            }
+            LOGGER.info("Compressed {} of {} document(s).", compressed, ruleSources.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ReportException("Interrupted while compressing documents.", e);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private boolean compress(File file) throws IOException {
+        boolean compressed = ArtifactCompressor.compress(file);
+        ReportProfile.count(reportProfile, compressed ? "compressedArtifacts" : "unchangedCompressedArtifacts", 1);
+        return compressed;
+    }
+
+    /**
+     * Determines the {@link RuleSource}s which need to be rendered, i.e. which
+     * have not been rendered before or whose fingerprint has changed.
+     *
+     * @param ruleSources
+     *            The {@link RuleSource}s.
+     * @return The {@link RuleSource}s to render.
+     * @throws ReportException
+     *             If a {@link RuleSource} cannot be read.
+     */
+    private List<RuleSource> getChangedRuleSources(List<RuleSource> ruleSources) throws ReportException {
+        List<RuleSource> changedRuleSources = new ArrayList<>();
+        for (RuleSource ruleSource : ruleSources) {
+            Optional<ReportManifest.Entry> entry = reportManifest.get(ruleSource.getRelativePath());
+            if (entry.isPresent() && new File(reportDirectory, getOutputFileName(ruleSource)).exists()) {
+                ReportManifest.Entry recordedEntry = entry.get();
+                String fingerprint = documentFingerprinter.getFingerprint(ruleSource, readContent(ruleSource), recordedEntry.getRuleIds(),
+                        recordedEntry.isAllResults());
+                if (fingerprint.equals(recordedEntry.getFingerprint())) {
+                    LOGGER.debug("Skipping unchanged {}", ruleSource);
+                    continue;
+                }
+            }
+            changedRuleSources.add(ruleSource);
+        }
+        int unchanged = ruleSources.size() - changedRuleSources.size();
+        if (unchanged > 0) {
+            LOGGER.info("Skipping {} unchanged document(s).", unchanged);
+        }
+        if (reportProfile != null) {
+            reportProfile.count("skippedDocuments", unchanged);
+        }
+        return changedRuleSources;
+    }
+
+    /**
+     * Returns a representation of the configuration affecting the content of
+     * rendered documents for the incremental mode.
+     *
+     * @param version
+     *            The version of the plugin.
+     * @return The configuration.
+     */
+    private String getConfiguration(String version) {
+        return "version=" + version + ",maxRows=" + resultMaxRows + ",lazy=" + resultLazy + ",split=" + split;
+    }
+
+    /**
+     * Determines the version of the plugin from the resource
+     * {@link #PLUGIN_PROPERTIES} which is filtered by the build.
+     *
+     * @return The optional version, empty if it cannot be determined.
+     */
+    static Optional<String> getPluginVersion() {
+        try (InputStream inputStream = AsciidocReportPlugin.class.getResourceAsStream(PLUGIN_PROPERTIES)) {
+            if (inputStream == null) {
+                return Optional.empty();
+            }
+            Properties pluginProperties = new Properties();
+            pluginProperties.load(inputStream);
+            String version = pluginProperties.getProperty("version");
+            // an unfiltered resource contains the placeholder
+            return version == null || version.isEmpty() || version.startsWith("${") ? Optional.empty() : Optional.of(version);
+        } catch (IOException e) {
+            LOGGER.warn("Cannot read plugin version from " + PLUGIN_PROPERTIES, e);
+            return Optional.empty();
+        }
+    }
+
+    private void renderRuleSources(List<RuleSource> filteredRuleSources) throws ReportException {
         if (!filteredRuleSources.isEmpty()) {
             LOGGER.info("Calling for the Asciidoctor...");
-            Asciidoctor asciidoctor = AsciidoctorFactory.getAsciidoctor();
-            LOGGER.info("Writing to report directory " + reportDirectory.getAbsolutePath());
-            for (RuleSource ruleSource : filteredRuleSources) {
-                OptionsBuilder optionsBuilder = Options.builder().mkDirs(true).toDir(reportDirectory).backend(BACKEND_HTML5).safe(SafeMode.UNSAFE)
-                        .attributes(Attributes.builder().experimental(true).sourceHighlighter(CODERAY).icons("font").build());
-                ruleSource.getDirectory().ifPresent(baseDir -> optionsBuilder.baseDir(baseDir));
-                String outputFileName = getOutputFileName(ruleSource);
-                optionsBuilder.toFile(new File(outputFileName));
-                Options options = optionsBuilder.build();
-                LOGGER.info("-> {}", ruleSource);
-                String content = readContent(ruleSource);
-                Document document = asciidoctor.load(content, options);
-                JavaExtensionRegistry extensionRegistry = asciidoctor.javaExtensionRegistry();
-                IncludeProcessor includeProcessor = new IncludeProcessor(documentParser, document, conceptResults, constraintResults);
-                extensionRegistry.includeProcessor(includeProcessor);
-                extensionRegistry.includeProcessor(new PluginIncludeProcessor(reportContext.getClassLoader(), ruleSource.getRelativePath()));
-                extensionRegistry.inlineMacro(new InlineMacroProcessor(documentParser));
-                extensionRegistry.treeprocessor(new TreePreprocessor(documentParser, conceptResults, constraintResults,
-                        new File(reportDirectory, outputFileName).getParentFile(), reportContext));
-                extensionRegistry.postprocessor(new RulePostProcessor(conceptResults, constraintResults));
-                asciidoctor.convert(content, options);
-                asciidoctor.unregisterAllExtensions();
+            if (parallelism > 1 && filteredRuleSources.size() > 1) {
+                LOGGER.info("Writing to report directory " + reportDirectory.getAbsolutePath() + " using " + parallelism + " threads");
+                renderParallel(filteredRuleSources);
+            } else {
+                Asciidoctor asciidoctor = acquireAsciidoctor();
+                try {
+                    LOGGER.info("Writing to report directory " + reportDirectory.getAbsolutePath());
+                    for (RuleSource ruleSource : filteredRuleSources) {
+                        LOGGER.info("-> {}", ruleSource);
+                        render(asciidoctor, ruleSource);
+                    }
+                } finally {
+                    AsciidoctorPool.release(asciidoctor);
+                }
             }
+            LOGGER.debug("Avoided {} document parses by caching.", avoidedDocumentParses.get());
             LOGGER.info("The Asciidoctor finished his work successfully.");
         }
+    }
 
+    /**
+     * Acquires an {@link Asciidoctor} instance from the {@link AsciidoctorPool},
+     * the time for creating and preparing a new instance is part of the profile.
+     *
+     * @return The {@link Asciidoctor} instance.
+     */
+    private Asciidoctor acquireAsciidoctor() {
+        try (ReportProfile.Measurement measurement = measure("acquire")) {
+            return AsciidoctorPool.acquire();
+        }
+    }
+
+    /**
+     * Renders the given {@link RuleSource}s using a bounded pool of worker
+     * threads.
+     * <p>
+     * Each document is rendered using an {@link Asciidoctor} instance acquired
+     * from the {@link AsciidoctorPool}, i.e. the pool grows up to the number of
+     * workers. A failing document does not affect the rendering of the others,
+     * all failures are reported after all documents have been processed. Log
+     * messages are written in the order of the given {@link RuleSource}s.
+     *
+     * @param ruleSources
+     *            The {@link RuleSource}s.
+     * @throws ReportException
+     *             If at least one {@link RuleSource} could not be rendered.
+     */
+    private void renderParallel(List<RuleSource> ruleSources) throws ReportException {
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(parallelism, ruleSources.size()), new WorkerThreadFactory());
+        List<RuleSource> failedRuleSources = new ArrayList<>();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (RuleSource ruleSource : ruleSources) {
+                futures.add(executorService.submit(() -> {
+                    Asciidoctor asciidoctor = acquireAsciidoctor();
+                    try {
+                        render(asciidoctor, ruleSource);
+                    } finally {
+                        AsciidoctorPool.release(asciidoctor);
+                    }
+                    return null;
+                }));
+            }
+            for (int i = 0; i < ruleSources.size(); i++) {
+                RuleSource ruleSource = ruleSources.get(i);
+                LOGGER.info("-> {}", ruleSource);
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException e) {
+                    LOGGER.error("Cannot render " + ruleSource, e.getCause());
+                    failedRuleSources.add(ruleSource);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ReportException("Interrupted while rendering rule sources.", e);
+        } finally {
+            executorService.shutdownNow();
+        }
+        if (!failedRuleSources.isEmpty()) {
+            throw new ReportException("Cannot render " + failedRuleSources.size() + " rule source(s): " + failedRuleSources);
+        }
+    }
+
+    /**
+     * Renders a {@link RuleSource} using the given {@link Asciidoctor} instance.
+     * <p>
+     * The extensions registered by the {@link AsciidoctorPool} take the results
+     * and all document specific settings from a {@link DocumentContext} which is
+     * active while the document is converted. The document is parsed only once,
+     * jQA includes are resolved by the {@link TreePreprocessor}.
+     *
+     * @param asciidoctor
+     *            The {@link Asciidoctor} instance.
+     * @param ruleSource
+     *            The {@link RuleSource}.
+     * @throws ReportException
+     *             If the {@link RuleSource} cannot be read.
+     */
+    private void render(Asciidoctor asciidoctor, RuleSource ruleSource) throws ReportException {
+        OptionsBuilder optionsBuilder = Options.builder().mkDirs(true).toDir(reportDirectory).backend(BACKEND_HTML5).safe(SafeMode.UNSAFE)
+                .attributes(Attributes.builder().experimental(true).sourceHighlighter(CODERAY).icons("font").build());
+        ruleSource.getDirectory().ifPresent(baseDir -> optionsBuilder.baseDir(baseDir));
+        String outputFileName = getOutputFileName(ruleSource);
+        optionsBuilder.toFile(new File(outputFileName));
+        Options options = optionsBuilder.build();
+        File outputFile = new File(reportDirectory, outputFileName);
+        ReportProfile.DocumentProfile documentProfile = reportProfile != null ? reportProfile.document(ruleSource.getRelativePath()) : null;
+        DocumentContext documentContext = DocumentContext.builder().reportContext(reportContext).conceptResults(conceptResults)
+                .constraintResults(constraintResults).documentParserCache(new DocumentParserCache(documentParser, avoidedDocumentParses))
+                .relativePath(ruleSource.getRelativePath()).outputFileDirectory(outputFile.getParentFile())
+                .outputFile(outputFile).maxRows(resultMaxRows).profile(documentProfile).ruleFilterCache(ruleFilterCache)
+                .pluginResourceResolver(pluginResourceResolver).resultFragmentStore(resultFragmentStore).lazyResultFiles(lazyResultFiles).build();
+        String content;
+        try (ReportProfile.Measurement measurement = documentContext.measure("read")) {
+            content = readContent(ruleSource);
+        }
+        if (reportManifest != null) {
+            // the entry is recorded again after successful conversion
+            reportManifest.remove(ruleSource.getRelativePath());
+        }
+        try (DocumentContext activeDocumentContext = documentContext.activate();
+                ReportProfile.Measurement measurement = documentContext.measure("convert")) {
+            asciidoctor.convert(content, options);
+            moveStreamedOutputFile(documentContext, outputFile);
+        } finally {
+            deleteStreamedOutputFile(documentContext);
+        }
+        if (documentSplitter != null) {
+            try (ReportProfile.Measurement measurement = documentContext.measure("split")) {
+                documentContext.count("pages", documentSplitter.split(outputFile).size());
+            } catch (IOException e) {
+                throw new ReportException("Cannot split " + outputFile + " into pages", e);
+            }
+        }
+        if (reportManifest != null) {
+            try (ReportProfile.Measurement measurement = documentContext.measure("fingerprint")) {
+                Set<String> ruleIds = documentContext.getEmbeddedRuleIds();
+                boolean allResults = documentContext.hasIncludes();
+                String fingerprint = documentFingerprinter.getFingerprint(ruleSource, content, ruleIds, allResults);
+                reportManifest.put(ruleSource.getRelativePath(), new ReportManifest.Entry(fingerprint, ruleIds, allResults));
+            }
+        }
+    }
+
+    /**
+     * Replaces the (empty) file written by the converter with the HTML output
+     * streamed by the {@link RulePostProcessor}.
+     *
+     * @param documentContext
+     *            The {@link DocumentContext}.
+     * @param outputFile
+     *            The output file.
+     * @throws ReportException
+     *             If the file cannot be moved.
+     */
+    private void moveStreamedOutputFile(DocumentContext documentContext, File outputFile) throws ReportException {
+        File streamedOutputFile = documentContext.getStreamedOutputFile();
+        if (streamedOutputFile != null) {
+            try {
+                Files.move(streamedOutputFile.toPath(), outputFile.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new ReportException("Cannot write HTML output to " + outputFile, e);
+            }
+        }
+    }
+
+    private void deleteStreamedOutputFile(DocumentContext documentContext) {
+        File streamedOutputFile = documentContext.getStreamedOutputFile();
+        if (streamedOutputFile != null && streamedOutputFile.exists() && !streamedOutputFile.delete()) {
+            LOGGER.warn("Cannot delete temporary file '{}'.", streamedOutputFile.getPath());
+        }
     }
 
     private String readContent(RuleSource ruleSource) throws ReportException {
@@ -156,7 +711,7 @@ public class AsciidocReportPlugin implements ReportPlugin {
     }
 
     @Override
-    public void setResult(Result<? extends ExecutableRule> result) {
+    public void setResult(Result<? extends ExecutableRule> result) throws ReportException {
         // Collect the results for executed concepts and constraints
         ExecutableRule rule = result.getRule();
         if (rule instanceof Concept) {
@@ -166,32 +721,54 @@ public class AsciidocReportPlugin implements ReportPlugin {
         }
     }
 
-    private RuleResult getRuleResult(Result<? extends ExecutableRule> result) {
+    private RuleResult getRuleResult(Result<? extends ExecutableRule> result) throws ReportException {
         RuleResult.RuleResultBuilder ruleResultBuilder = RuleResult.builder();
         List<String> columnNames = result.getColumnNames();
         ruleResultBuilder.rule(result.getRule()).effectiveSeverity(result.getSeverity()).status(result.getStatus()).columnNames(columnNames);
         if (!SKIPPED.equals(result.getStatus())) {
-            addResultRows(result, ruleResultBuilder);
+            try {
+                ruleResultBuilder.rows(getResultRows(result));
+            } catch (IOException e) {
+                throw new ReportException("Cannot store rows of result for " + result.getRule(), e);
+            }
         }
         return ruleResultBuilder.build();
     }
 
-    private void addResultRows(Result<? extends ExecutableRule> result, RuleResult.RuleResultBuilder ruleResultBuilder) {
+    private ResultRows getResultRows(Result<? extends ExecutableRule> result) throws IOException {
+        ResultRows.Builder rowsBuilder = resultRowStore.builder(result.getColumnNames());
         for (Map<String, Object> row : result.getRows()) {
             Map<String, List<String>> resultRow = new LinkedHashMap<>();
             for (Map.Entry<String, Object> rowEntry : row.entrySet()) {
                 Object value = rowEntry.getValue();
-                List<String> values = new ArrayList<>();
+                List<String> values;
                 if (value instanceof Iterable<?>) {
+                    values = new ArrayList<>();
                     for (Object o : ((Iterable) value)) {
                         values.add(ReportHelper.getLabel(o));
                     }
                 } else {
-                    values.add(ReportHelper.getLabel(value));
+                    values = Collections.singletonList(ReportHelper.getLabel(value));
                 }
                 resultRow.put(rowEntry.getKey(), values);
             }
-            ruleResultBuilder.row(resultRow);
+            rowsBuilder.row(resultRow);
+        }
+        return rowsBuilder.build();
+    }
+
+    /**
+     * {@link ThreadFactory} for the rendering workers.
+     */
+    private static class WorkerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "asciidoc-report-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
         }
     }
 }
@@ -0,0 +1,126 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+import com.buschmais.jqassistant.core.shared.asciidoc.AsciidoctorFactory;
+
+import org.asciidoctor.Asciidoctor;
+import org.asciidoctor.Options;
+import org.asciidoctor.SafeMode;
+import org.asciidoctor.extension.JavaExtensionRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * JVM wide pool of {@link Asciidoctor} instances used for rendering reports.
+ * <p>
+ * Creating an instance (i.e. starting JRuby) is expensive, therefore the first
+ * instance is the already warm shared instance provided by the
+ * {@link AsciidoctorFactory}. The extensions of the report are registered once
+ * per instance, the state of a document is provided by the
+ * {@link DocumentContext}. Without an active context the extensions leave
+ * documents unchanged, i.e. other users of the shared instance are not
+ * affected.
+ * <p>
+ * Further dedicated instances are only created if documents are rendered in
+ * parallel (see <code>asciidoc.report.parallelism</code>), each one converts a
+ * small document before it is used for the first time. They are reused within
+ * a report run and shut down by {@link #shutdown()} at its end.
+ */
+final class AsciidoctorPool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsciidoctorPool.class);
+
+    private static final String ASCIIDOCTOR_DIAGRAM = "asciidoctor-diagram";
+
+    private static final String WARM_UP_DOCUMENT = "= Warm-up\n\n[source,cypher]\n----\nMATCH (n) RETURN n\n----\n";
+
+    private static final Deque<Asciidoctor> IDLE_INSTANCES = new ArrayDeque<>();
+
+    private static Asciidoctor sharedInstance = null;
+
+    private static boolean sharedInstanceAcquired = false;
+
+    private static int instances = 0;
+
+    private AsciidoctorPool() {
+    }
+
+    /**
+     * Acquires an {@link Asciidoctor} instance, it must be released after use.
+     * <p>
+     * The shared instance is used if it is not acquired by another thread,
+     * otherwise an idle dedicated instance is reused or a new one is created
+     * and prepared by the calling thread.
+     *
+     * @return The {@link Asciidoctor} instance.
+     */
+    static Asciidoctor acquire() {
+        synchronized (AsciidoctorPool.class) {
+            if (!sharedInstanceAcquired) {
+                sharedInstanceAcquired = true;
+                if (sharedInstance == null) {
+                    Asciidoctor asciidoctor = AsciidoctorFactory.getAsciidoctor();
+                    registerExtensions(asciidoctor);
+                    sharedInstance = asciidoctor;
+                }
+                return sharedInstance;
+            }
+            Asciidoctor idleInstance = IDLE_INSTANCES.poll();
+            if (idleInstance != null) {
+                LOGGER.debug("Reusing pooled Asciidoctor instance.");
+                return idleInstance;
+            }
+        }
+        long start = System.nanoTime();
+        Asciidoctor asciidoctor = Asciidoctor.Factory.create(AsciidoctorPool.class.getClassLoader());
+        asciidoctor.requireLibrary(ASCIIDOCTOR_DIAGRAM);
+        registerExtensions(asciidoctor);
+        asciidoctor.convert(WARM_UP_DOCUMENT, Options.builder().safe(SafeMode.UNSAFE).backend("html5").build());
+        int count;
+        synchronized (AsciidoctorPool.class) {
+            count = ++instances;
+        }
+        LOGGER.info("Prepared Asciidoctor instance in {} ms ({} dedicated instance(s)).", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                count);
+        return asciidoctor;
+    }
+
+    /**
+     * Returns an {@link Asciidoctor} instance to the pool.
+     *
+     * @param asciidoctor
+     *            The {@link Asciidoctor} instance.
+     */
+    static synchronized void release(Asciidoctor asciidoctor) {
+        if (asciidoctor == sharedInstance) {
+            sharedInstanceAcquired = false;
+        } else {
+            IDLE_INSTANCES.push(asciidoctor);
+        }
+    }
+
+    /**
+     * Shuts down the idle dedicated {@link Asciidoctor} instances, the shared
+     * instance is kept.
+     */
+    static synchronized void shutdown() {
+        Asciidoctor asciidoctor;
+        while ((asciidoctor = IDLE_INSTANCES.poll()) != null) {
+            asciidoctor.shutdown();
+            instances--;
+        }
+    }
+
+    private static void registerExtensions(Asciidoctor asciidoctor) {
+        JavaExtensionRegistry extensionRegistry = asciidoctor.javaExtensionRegistry();
+        IncludeProcessor includeProcessor = new IncludeProcessor();
+        extensionRegistry.includeProcessor(includeProcessor);
+        extensionRegistry.includeProcessor(new PluginIncludeProcessor());
+        extensionRegistry.inlineMacro(new InlineMacroProcessor());
+        extensionRegistry.treeprocessor(new TreePreprocessor(includeProcessor));
+        extensionRegistry.postprocessor(new RulePostProcessor());
+    }
+}
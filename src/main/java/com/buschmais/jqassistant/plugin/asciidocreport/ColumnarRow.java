@@ -0,0 +1,135 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.util.*;
+import java.util.function.UnaryOperator;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * Compact, read-only representation of a result row.
+ * <p>
+ * The column names are shared with all rows of a result, the values are held
+ * in a single array indexed by column. A cell is <code>null</code> if the row
+ * does not contain the column, a {@link String} for a single value (the most
+ * common case) or a {@link String} array for multiple values.
+ */
+final class ColumnarRow extends AbstractMap<String, List<String>> {
+
+    private static final String[] NO_VALUES = new String[0];
+
+    private final List<String> columnNames;
+
+    private final Object[] cells;
+
+    private ColumnarRow(List<String> columnNames, Object[] cells) {
+        this.columnNames = columnNames;
+        this.cells = cells;
+    }
+
+    /**
+     * Converts a row into its compact representation.
+     *
+     * @param columnNames
+     *            The column names of the result.
+     * @param row
+     *            The row.
+     * @param interner
+     *            The {@link UnaryOperator} used for interning values.
+     * @return The {@link ColumnarRow} or the given row if it contains columns
+     *         which are not declared by the result.
+     */
+    static Map<String, List<String>> of(List<String> columnNames, Map<String, List<String>> row, UnaryOperator<String> interner) {
+        Object[] cells = new Object[columnNames.size()];
+        for (Map.Entry<String, List<String>> entry : row.entrySet()) {
+            int index = columnNames.indexOf(entry.getKey());
+            if (index < 0) {
+                return row;
+            }
+            List<String> values = entry.getValue();
+            if (values.size() == 1 && values.get(0) != null) {
+                cells[index] = interner.apply(values.get(0));
+            } else if (values.isEmpty()) {
+                cells[index] = NO_VALUES;
+            } else {
+                String[] internedValues = new String[values.size()];
+                for (int i = 0; i < internedValues.length; i++) {
+                    String value = values.get(i);
+                    internedValues[i] = value != null ? interner.apply(value) : null;
+                }
+                cells[index] = internedValues;
+            }
+        }
+        return new ColumnarRow(columnNames, cells);
+    }
+
+    @Override
+    public List<String> get(Object key) {
+        int index = columnNames.indexOf(key);
+        return index >= 0 ? getValues(cells[index]) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int index = columnNames.indexOf(key);
+        return index >= 0 && cells[index] != null;
+    }
+
+    @Override
+    public Set<Entry<String, List<String>>> entrySet() {
+        return new AbstractSet<Entry<String, List<String>>>() {
+            @Override
+            public Iterator<Entry<String, List<String>>> iterator() {
+                return new Iterator<Entry<String, List<String>>>() {
+
+                    private int index = next(0);
+
+                    private int next(int start) {
+                        int i = start;
+                        while (i < cells.length && cells[i] == null) {
+                            i++;
+                        }
+                        return i;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < cells.length;
+                    }
+
+                    @Override
+                    public Entry<String, List<String>> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<String, List<String>> entry = new SimpleImmutableEntry<>(columnNames.get(index), getValues(cells[index]));
+                        index = next(index + 1);
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                int size = 0;
+                for (Object cell : cells) {
+                    if (cell != null) {
+                        size++;
+                    }
+                }
+                return size;
+            }
+        };
+    }
+
+    private static List<String> getValues(Object cell) {
+        if (cell == null) {
+            return null;
+        } else if (cell instanceof String) {
+            return singletonList((String) cell);
+        }
+        String[] values = (String[]) cell;
+        return values.length == 0 ? emptyList() : unmodifiableList(Arrays.asList(values));
+    }
+}
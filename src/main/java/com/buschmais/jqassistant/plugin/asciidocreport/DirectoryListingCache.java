@@ -0,0 +1,168 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.io.*;
+import java.util.*;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+
+/**
+ * Cache of the listings of the directories scanned by the
+ * {@link RuleDirectoryScanner}.
+ * <p>
+ * A listing is reused as long as the modification time of its directory is
+ * unchanged, i.e. no entry has been created, deleted or renamed. Listings of
+ * directories which have been modified shortly before the scan are not
+ * cached as the resolution of the modification time might hide a subsequent
+ * change. Only the listings of the directories visited by the last scan are
+ * stored, the cache is stored as properties file in the report directory.
+ */
+class DirectoryListingCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DirectoryListingCache.class);
+
+    static final String FILE_NAME = ".jqassistant-rule-directory-cache";
+
+    private static final String ROOT = "/";
+    private static final String RULE_DIRECTORY = "ruleDirectory";
+    private static final String MODIFIED = ".modified";
+    private static final String FILES = ".files";
+    private static final String DIRECTORIES = ".directories";
+
+    /**
+     * The minimum age of a modification in milliseconds to cache a listing.
+     */
+    private static final long MIN_AGE = 2000;
+
+    private final File file;
+
+    private final String ruleDirectory;
+
+    /**
+     * The listings loaded from the file.
+     */
+    private final Properties cached = new Properties();
+
+    /**
+     * The listings of the current scan.
+     */
+    private final Properties scanned = new Properties();
+
+    private long scanStart;
+
+    /**
+     * Constructor.
+     *
+     * @param reportDirectory
+     *            The report directory containing the cache.
+     * @param ruleDirectory
+     *            The scanned rule directory.
+     */
+    DirectoryListingCache(File reportDirectory, File ruleDirectory) {
+        this.file = new File(reportDirectory, FILE_NAME);
+        this.ruleDirectory = ruleDirectory.getAbsolutePath();
+    }
+
+    /**
+     * Loads the cache, a missing or unreadable cache or a cache of another rule
+     * directory is treated as empty.
+     */
+    synchronized void load() {
+        cached.clear();
+        scanned.clear();
+        scanStart = System.currentTimeMillis();
+        if (file.exists()) {
+            try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+                cached.load(inputStream);
+            } catch (IOException e) {
+                LOGGER.warn("Cannot read directory listing cache " + file.getAbsolutePath() + ", the rule directory will be scanned completely.", e);
+                cached.clear();
+            }
+            if (!ruleDirectory.equals(cached.getProperty(RULE_DIRECTORY))) {
+                cached.clear();
+            }
+        }
+        scanned.setProperty(RULE_DIRECTORY, ruleDirectory);
+    }
+
+    /**
+     * Stores the cache.
+     *
+     * @throws IOException
+     *             If the cache cannot be written.
+     */
+    synchronized void store() throws IOException {
+        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file))) {
+            scanned.store(outputStream, "jQAssistant AsciiDoc report rule directory cache");
+        }
+    }
+
+    /**
+     * Return the cached {@link Listing} of a directory.
+     *
+     * @param directory
+     *            The relative path of the directory.
+     * @param lastModified
+     *            The current modification time of the directory.
+     * @return The {@link Listing} if the directory is unchanged.
+     */
+    synchronized Optional<Listing> get(String directory, long lastModified) {
+        String key = getKey(directory);
+        String modified = Long.toString(lastModified);
+        if (!modified.equals(cached.getProperty(key + MODIFIED))) {
+            return Optional.empty();
+        }
+        String files = cached.getProperty(key + FILES, "");
+        String directories = cached.getProperty(key + DIRECTORIES, "");
+        scanned.setProperty(key + MODIFIED, modified);
+        scanned.setProperty(key + FILES, files);
+        scanned.setProperty(key + DIRECTORIES, directories);
+        return Optional.of(new Listing(split(files), split(directories)));
+    }
+
+    /**
+     * Records the {@link Listing} of a directory.
+     *
+     * @param directory
+     *            The relative path of the directory.
+     * @param lastModified
+     *            The modification time of the directory.
+     * @param listing
+     *            The {@link Listing}.
+     */
+    synchronized void put(String directory, long lastModified, Listing listing) {
+        String key = getKey(directory);
+        if (scanStart - lastModified >= MIN_AGE) {
+            scanned.setProperty(key + MODIFIED, Long.toString(lastModified));
+            // file names cannot contain "/"
+            scanned.setProperty(key + FILES, String.join("/", listing.getFiles()));
+            scanned.setProperty(key + DIRECTORIES, String.join("/", listing.getDirectories()));
+        }
+    }
+
+    private static String getKey(String directory) {
+        return directory.isEmpty() ? ROOT : directory;
+    }
+
+    private static List<String> split(String names) {
+        return names.isEmpty() ? emptyList() : asList(names.split("/"));
+    }
+
+    /**
+     * The entries of a directory.
+     */
+    @Getter
+    @AllArgsConstructor
+    static class Listing {
+
+        private final List<String> files;
+
+        private final List<String> directories;
+
+    }
+}
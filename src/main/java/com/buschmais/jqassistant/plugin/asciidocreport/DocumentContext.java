@@ -0,0 +1,218 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.io.File;
+import java.util.*;
+
+import com.buschmais.jqassistant.core.report.api.ReportContext;
+import com.buschmais.jqassistant.plugin.asciidocreport.include.IncludeStrategy;
+import com.buschmais.jqassistant.plugin.asciidocreport.include.RuleFilterCache;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * The state of the document which is converted by the current thread.
+ * <p>
+ * The extensions are registered only once per Asciidoctor instance (see
+ * {@link AsciidoctorPool}) and take everything specific to a document from the
+ * active context. Extensions which are invoked without an active context (e.g.
+ * while rules are read using the shared instance) leave the document
+ * unchanged.
+ */
+@Getter
+public final class DocumentContext implements AutoCloseable {
+
+    private static final ThreadLocal<DocumentContext> CURRENT = new ThreadLocal<>();
+
+    private final ReportContext reportContext;
+
+    private final Map<String, RuleResult> conceptResults;
+
+    private final Map<String, RuleResult> constraintResults;
+
+    private final DocumentParserCache documentParserCache;
+
+    /**
+     * The relative path of the converted rule source.
+     */
+    private final String relativePath;
+
+    /**
+     * The directory of the output file.
+     */
+    private final File outputFileDirectory;
+
+    /**
+     * The output file, the {@link RulePostProcessor} streams the HTML output to a
+     * temporary file next to it. If <code>null</code> the output is returned to
+     * the converter.
+     */
+    private final File outputFile;
+
+    /**
+     * The maximum number of rows of result tables.
+     */
+    private final int maxRows;
+
+    /**
+     * The profile of the document, <code>null</code> if profiling is disabled.
+     */
+    private final ReportProfile.DocumentProfile profile;
+
+    /**
+     * The rule filters compiled during the report run, <code>null</code> if
+     * filters are compiled per document.
+     */
+    private final RuleFilterCache ruleFilterCache;
+
+    /**
+     * The resolver for resources included from plugins, created for the
+     * document using the class loader of the report context if not provided.
+     */
+    private PluginResourceResolver pluginResourceResolver;
+
+    /**
+     * The result tables rendered during the report run, <code>null</code> if
+     * tables are rendered per document.
+     */
+    private final ResultFragmentStore resultFragmentStore;
+
+    /**
+     * The sidecar files of lazy result tables written during the report run,
+     * <code>null</code> if result tables are embedded into the document.
+     */
+    private final Set<String> lazyResultFiles;
+
+    /**
+     * The jQA includes deferred by the {@link IncludeProcessor}.
+     */
+    private final List<IncludeProcessor.DeferredInclude> deferredIncludes = new ArrayList<>();
+
+    /**
+     * The ids of the rules whose results have been embedded.
+     */
+    private final Set<String> embeddedRuleIds = new TreeSet<>();
+
+    private Map<String, IncludeStrategy> includeStrategies;
+
+    /**
+     * The temporary file containing the streamed HTML output, <code>null</code>
+     * if the output has not been streamed.
+     */
+    private File streamedOutputFile;
+
+    /**
+     * Indicates that the document contains lazy result tables, i.e. the loader
+     * must be embedded into the head of the HTML output.
+     */
+    private boolean lazyResultLoaderRequired;
+
+    @Builder
+    private DocumentContext(ReportContext reportContext, Map<String, RuleResult> conceptResults, Map<String, RuleResult> constraintResults,
+            DocumentParserCache documentParserCache, String relativePath, File outputFileDirectory, File outputFile, int maxRows,
+            ReportProfile.DocumentProfile profile, RuleFilterCache ruleFilterCache, PluginResourceResolver pluginResourceResolver,
+            ResultFragmentStore resultFragmentStore, Set<String> lazyResultFiles) {
+        this.reportContext = reportContext;
+        this.conceptResults = conceptResults;
+        this.constraintResults = constraintResults;
+        this.documentParserCache = documentParserCache;
+        this.relativePath = relativePath;
+        this.outputFileDirectory = outputFileDirectory;
+        this.outputFile = outputFile;
+        this.maxRows = maxRows;
+        this.profile = profile;
+        this.ruleFilterCache = ruleFilterCache;
+        this.pluginResourceResolver = pluginResourceResolver;
+        this.resultFragmentStore = resultFragmentStore;
+        this.lazyResultFiles = lazyResultFiles;
+    }
+
+    /**
+     * Return the context of the document which is converted by the current
+     * thread.
+     *
+     * @return The optional {@link DocumentContext}.
+     */
+    public static Optional<DocumentContext> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    /**
+     * Activates the context for the current thread, it must be closed after the
+     * document has been converted.
+     *
+     * @return The {@link DocumentContext}.
+     */
+    public DocumentContext activate() {
+        if (CURRENT.get() != null) {
+            throw new IllegalStateException("Another document is already converted by the current thread.");
+        }
+        CURRENT.set(this);
+        return this;
+    }
+
+    /**
+     * Determines if the document contains jQA includes, i.e. depends on the
+     * results of all rules.
+     *
+     * @return <code>true</code> if jQA includes have been processed.
+     */
+    public boolean hasIncludes() {
+        return !deferredIncludes.isEmpty();
+    }
+
+    /**
+     * Starts a stage of the document if profiling is enabled.
+     *
+     * @param stage
+     *            The name of the stage.
+     * @return The {@link ReportProfile.Measurement} which must be closed at the
+     *         end of the stage.
+     */
+    public ReportProfile.Measurement measure(String stage) {
+        return profile != null ? profile.measure(stage) : ReportProfile.NONE;
+    }
+
+    /**
+     * Return the resolver for resources included from plugins.
+     *
+     * @return The {@link PluginResourceResolver}.
+     */
+    public PluginResourceResolver getPluginResourceResolver() {
+        if (pluginResourceResolver == null) {
+            pluginResourceResolver = new PluginResourceResolver(reportContext.getClassLoader(), false);
+        }
+        return pluginResourceResolver;
+    }
+
+    /**
+     * Increments a counter of the document if profiling is enabled.
+     *
+     * @param counter
+     *            The name of the counter.
+     * @param delta
+     *            The value to add.
+     */
+    public void count(String counter, long delta) {
+        if (profile != null) {
+            profile.count(counter, delta);
+        }
+    }
+
+    void setIncludeStrategies(Map<String, IncludeStrategy> includeStrategies) {
+        this.includeStrategies = includeStrategies;
+    }
+
+    void setStreamedOutputFile(File streamedOutputFile) {
+        this.streamedOutputFile = streamedOutputFile;
+    }
+
+    void setLazyResultLoaderRequired(boolean lazyResultLoaderRequired) {
+        this.lazyResultLoaderRequired = lazyResultLoaderRequired;
+    }
+
+    @Override
+    public void close() {
+        CURRENT.remove();
+    }
+}
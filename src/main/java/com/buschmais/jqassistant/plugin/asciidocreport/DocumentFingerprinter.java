@@ -0,0 +1,252 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.buschmais.jqassistant.core.report.api.ReportContext;
+import com.buschmais.jqassistant.core.rule.api.model.ExecutableRule;
+import com.buschmais.jqassistant.core.rule.api.source.RuleSource;
+
+import org.apache.commons.io.IOUtils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Computes the fingerprints of documents for the incremental mode.
+ * <p>
+ * The fingerprint of a document covers the configuration of the report, the
+ * content of the document and of the files or plugin resources it includes, and
+ * the results of the rules it embeds. Fingerprints of results are computed only once per run.
+ */
+public class DocumentFingerprinter {
+
+    private static final Pattern INCLUDE_PATTERN = Pattern.compile("^\\s*include::([^\\[]+)\\[.*$", Pattern.MULTILINE);
+
+    private static final int MAX_INCLUDE_DEPTH = 16;
+
+    private final String configuration;
+    private final Map<String, RuleResult> conceptResults;
+    private final Map<String, RuleResult> constraintResults;
+    private final ReportContext reportContext;
+    private final PluginResourceResolver pluginResourceResolver;
+
+    private final Map<String, String> resultFingerprints = new ConcurrentHashMap<>();
+
+    private String allResultsFingerprint;
+
+    /**
+     * Constructor.
+     *
+     * @param configuration
+     *            A representation of the configuration affecting the rendered
+     *            documents.
+     * @param conceptResults
+     *            The concept results.
+     * @param constraintResults
+     *            The constraint results.
+     * @param reportContext
+     *            The {@link ReportContext} providing reports of rules (e.g.
+     *            diagrams).
+     * @param pluginResourceResolver
+     *            The {@link PluginResourceResolver} resolving includes of
+     *            plugin resources, may be <code>null</code>.
+     */
+    public DocumentFingerprinter(String configuration, Map<String, RuleResult> conceptResults, Map<String, RuleResult> constraintResults,
+            ReportContext reportContext, PluginResourceResolver pluginResourceResolver) {
+        this.configuration = configuration;
+        this.conceptResults = conceptResults;
+        this.constraintResults = constraintResults;
+        this.reportContext = reportContext;
+        this.pluginResourceResolver = pluginResourceResolver;
+    }
+
+    /**
+     * Computes the fingerprint of a document.
+     *
+     * @param ruleSource
+     *            The {@link RuleSource} of the document.
+     * @param content
+     *            The content of the document.
+     * @param ruleIds
+     *            The ids of the rules whose results are embedded.
+     * @param allResults
+     *            <code>true</code> if the document depends on all results.
+     * @return The fingerprint.
+     */
+    public String getFingerprint(RuleSource ruleSource, String content, Set<String> ruleIds, boolean allResults) {
+        MessageDigest digest = createDigest();
+        update(digest, configuration);
+        update(digest, content);
+        updateIncludes(digest, ruleSource.getRelativePath(), ruleSource.getDirectory().orElse(null), content, new HashSet<>(), 0);
+        for (String ruleId : new TreeSet<>(ruleIds)) {
+            update(digest, ruleId);
+            update(digest, getResultFingerprint(ruleId));
+        }
+        if (allResults) {
+            update(digest, getAllResultsFingerprint());
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Adds the content of included files and plugin resources, the includes are
+     * resolved recursively. As for the {@link PluginIncludeProcessor} plugin
+     * resources take precedence over files and are resolved relative to the
+     * including document.
+     */
+    private void updateIncludes(MessageDigest digest, String relativePath, File directory, String content, Set<String> visited, int depth) {
+        Matcher matcher = INCLUDE_PATTERN.matcher(content);
+        while (matcher.find()) {
+            String target = matcher.group(1).trim();
+            update(digest, target);
+            if (target.startsWith(IncludeProcessor.PREFIX) || target.contains("{")) {
+                // jQA includes are covered by the results, attributes cannot be resolved
+                continue;
+            }
+            Optional<URL> resource = pluginResourceResolver != null
+                    ? pluginResourceResolver.resolve(PluginIncludeProcessor.getResourceName(relativePath, target))
+                    : Optional.empty();
+            if (resource.isPresent()) {
+                URL url = resource.get();
+                if (visited.add(url.toExternalForm())) {
+                    try {
+                        updateInclude(digest, relativePath, null, IOUtils.toString(url, UTF_8), visited, depth);
+                    } catch (IOException e) {
+                        // the document will be rendered, reading the include will fail again
+                        update(digest, UUID.randomUUID().toString());
+                    }
+                }
+            } else if (directory != null) {
+                File file = new File(target);
+                if (!file.isAbsolute()) {
+                    file = new File(directory, target);
+                }
+                file = file.getAbsoluteFile();
+                if (!file.isFile()) {
+                    update(digest, "missing");
+                } else if (visited.add(file.getPath())) {
+                    try {
+                        updateInclude(digest, relativePath, file.getParentFile(), new String(Files.readAllBytes(file.toPath()), UTF_8), visited, depth);
+                    } catch (IOException e) {
+                        // the document will be rendered, reading the include will fail again
+                        update(digest, UUID.randomUUID().toString());
+                    }
+                }
+            } else {
+                update(digest, "missing");
+            }
+        }
+    }
+
+    private void updateInclude(MessageDigest digest, String relativePath, File directory, String includedContent, Set<String> visited, int depth) {
+        update(digest, includedContent);
+        if (depth < MAX_INCLUDE_DEPTH) {
+            updateIncludes(digest, relativePath, directory, includedContent, visited, depth + 1);
+        }
+    }
+
+    private String getResultFingerprint(String ruleId) {
+        return resultFingerprints.computeIfAbsent(ruleId, id -> {
+            MessageDigest digest = createDigest();
+            update(digest, conceptResults.get(id));
+            update(digest, constraintResults.get(id));
+            return toHex(digest.digest());
+        });
+    }
+
+    private synchronized String getAllResultsFingerprint() {
+        if (allResultsFingerprint == null) {
+            MessageDigest digest = createDigest();
+            for (String ruleId : new TreeSet<>(conceptResults.keySet())) {
+                update(digest, "concept");
+                update(digest, ruleId);
+                update(digest, getResultFingerprint(ruleId));
+            }
+            for (String ruleId : new TreeSet<>(constraintResults.keySet())) {
+                update(digest, "constraint");
+                update(digest, ruleId);
+                update(digest, getResultFingerprint(ruleId));
+            }
+            allResultsFingerprint = toHex(digest.digest());
+        }
+        return allResultsFingerprint;
+    }
+
+    private void update(MessageDigest digest, RuleResult result) {
+        if (result == null) {
+            update(digest, "-");
+            return;
+        }
+        ExecutableRule<?> rule = result.getRule();
+        update(digest, rule.getId());
+        update(digest, rule.getDescription());
+        update(digest, String.valueOf(result.getStatus()));
+        update(digest, String.valueOf(result.getEffectiveSeverity()));
+        List<String> columnNames = result.getColumnNames();
+        if (columnNames != null) {
+            for (String columnName : columnNames) {
+                update(digest, columnName);
+            }
+        }
+        List<ReportContext.Report<?>> reports = reportContext.getReports(rule);
+        if (reports.isEmpty()) {
+            try (ResultRows.RowIterator iterator = ResultRows.iterate(result.getRows())) {
+                while (iterator.hasNext()) {
+                    update(digest, "row");
+                    for (Map.Entry<String, List<String>> column : iterator.next().entrySet()) {
+                        update(digest, column.getKey());
+                        for (String value : column.getValue()) {
+                            update(digest, value);
+                        }
+                    }
+                }
+            }
+        } else {
+            // the rows are not rendered if reports (e.g. diagrams) are embedded instead
+            for (ReportContext.Report<?> report : reports) {
+                update(digest, String.valueOf(report.getReportType()));
+                update(digest, report.getLabel());
+                update(digest, String.valueOf(report.getUrl()));
+            }
+        }
+    }
+
+    /**
+     * Adds a value including its length, i.e. the boundaries of consecutive
+     * values are part of the fingerprint.
+     */
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            digest.update(ByteBuffer.allocate(4).putInt(-1).array());
+        } else {
+            byte[] bytes = value.getBytes(UTF_8);
+            digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+            digest.update(bytes);
+        }
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported.", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+}
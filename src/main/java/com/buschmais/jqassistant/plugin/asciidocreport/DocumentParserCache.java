@@ -0,0 +1,71 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.buschmais.jqassistant.core.shared.asciidoc.DocumentParser;
+
+import org.asciidoctor.ast.Document;
+
+/**
+ * Caches the {@link DocumentParser.Result}s of {@link Document}s, avoiding
+ * repeated walks of the block tree by the extensions (e.g. for every
+ * "jQA:conceptRef[]" macro).
+ * <p>
+ * An instance is shared by all extensions taking part in the conversion of a
+ * document and is discarded afterwards. The {@link Document}s are identified by
+ * identity.
+ */
+public class DocumentParserCache {
+
+    private final DocumentParser documentParser;
+
+    private final AtomicLong avoidedParses;
+
+    private final Map<Document, DocumentParser.Result> results = new IdentityHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param documentParser
+     *            The {@link DocumentParser}.
+     * @param avoidedParses
+     *            The counter to increment for each parse that is served from the
+     *            cache.
+     */
+    public DocumentParserCache(DocumentParser documentParser, AtomicLong avoidedParses) {
+        this.documentParser = documentParser;
+        this.avoidedParses = avoidedParses;
+    }
+
+    /**
+     * Return the {@link DocumentParser.Result} for the given {@link Document},
+     * parsing it only if it has not been cached before.
+     *
+     * @param document
+     *            The {@link Document}.
+     * @return The {@link DocumentParser.Result}.
+     */
+    public DocumentParser.Result parse(Document document) {
+        DocumentParser.Result result = results.get(document);
+        if (result != null) {
+            avoidedParses.incrementAndGet();
+            return result;
+        }
+        result = documentParser.parse(document);
+        results.put(document, result);
+        return result;
+    }
+
+    /**
+     * Releases the cached {@link DocumentParser.Result} of a {@link Document},
+     * e.g. after blocks have been added to it.
+     *
+     * @param document
+     *            The {@link Document}.
+     */
+    public void release(Document document) {
+        results.remove(document);
+    }
+}
@@ -0,0 +1,468 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Splits a converted HTML document into pages containing its top-level
+ * sections.
+ * <p>
+ * The document is processed in two streaming passes: the first one determines
+ * the top-level sections (i.e. the blocks "sect1" of the content) and the ids
+ * declared by them, the second one writes the pages. Each page repeats the
+ * header (including the table of contents) and the footer of the document.
+ * The original file becomes the index page containing the preamble and a
+ * navigation index, the pages are written next to it as
+ * <code>&lt;name&gt;.&lt;n&gt;.html</code>. Links to ids declared on other
+ * pages are rewritten, links from other documents to the index page are
+ * redirected by a script.
+ * <p>
+ * Sections are either written to pages of their own or grouped until a page
+ * reaches the configured size. Documents which do not have the structure
+ * created by the HTML5 converter or which would result in a single page are
+ * left unchanged.
+ */
+final class DocumentSplitter {
+
+    /**
+     * The value of the maximum page size for writing each top-level section to
+     * a page of its own.
+     */
+    static final long PER_SECTION = 0;
+
+    private static final String CONTENT_START = "<div id=\"content\">";
+
+    private static final String SECTION_START = "<div class=\"sect1";
+
+    private static final String FOOTER_START = "<div id=\"footer\"";
+
+    private static final String HTML_SUFFIX = ".html";
+
+    private static final Pattern ID = Pattern.compile("\\sid=\"([^\"]+)\"");
+
+    private static final Pattern LOCAL_HREF = Pattern.compile("href=\"#([^\"]+)\"");
+
+    private static final Pattern TAG = Pattern.compile("<[^>]*>");
+
+    private final long maxPageSize;
+
+    /**
+     * Constructor.
+     *
+     * @param maxPageSize
+     *            The maximum size of a page in characters or
+     *            {@link #PER_SECTION}, a section exceeding the size is written
+     *            to a page of its own.
+     */
+    DocumentSplitter(long maxPageSize) {
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * Splits a document into pages.
+     *
+     * @param file
+     *            The HTML document.
+     * @return The written pages, empty if the document has not been split.
+     * @throws IOException
+     *             If the document cannot be read or a page cannot be written.
+     */
+    List<File> split(File file) throws IOException {
+        Structure structure = analyze(file);
+        List<File> pages = new ArrayList<>();
+        if (structure != null) {
+            int[] sectionPages = getSectionPages(structure.sections);
+            int pageCount = sectionPages[sectionPages.length - 1];
+            if (pageCount > 1) {
+                for (int page = 1; page <= pageCount; page++) {
+                    pages.add(getPageFile(file, page));
+                }
+                write(file, structure, sectionPages, pages);
+            }
+        }
+        deleteStalePages(file, pages.size());
+        return pages;
+    }
+
+    /**
+     * Return the existing pages of a document.
+     *
+     * @param file
+     *            The HTML document.
+     * @return The pages ordered by their number.
+     */
+    static List<File> getPageFiles(File file) {
+        return new ArrayList<>(getPages(file).values());
+    }
+
+    private static SortedMap<Integer, File> getPages(File file) {
+        SortedMap<Integer, File> pages = new TreeMap<>();
+        String name = file.getName();
+        if (name.endsWith(HTML_SUFFIX)) {
+            Pattern pagePattern = Pattern.compile(Pattern.quote(name.substring(0, name.length() - HTML_SUFFIX.length())) + "\\.(\\d{1,9})\\.html");
+            File[] files = file.getAbsoluteFile().getParentFile().listFiles();
+            if (files != null) {
+                for (File pageFile : files) {
+                    Matcher matcher = pagePattern.matcher(pageFile.getName());
+                    if (matcher.matches()) {
+                        pages.put(Integer.valueOf(matcher.group(1)), pageFile);
+                    }
+                }
+            }
+        }
+        return pages;
+    }
+
+    static File getPageFile(File file, int page) {
+        String name = file.getName();
+        String baseName = name.endsWith(HTML_SUFFIX) ? name.substring(0, name.length() - HTML_SUFFIX.length()) : name;
+        return new File(file.getAbsoluteFile().getParentFile(), baseName + "." + page + HTML_SUFFIX);
+    }
+
+    /**
+     * First pass: determines the start of the content, the top-level sections,
+     * the ids declared by them and the footer.
+     *
+     * @return The {@link Structure} or <code>null</code> if the document cannot
+     *         be split.
+     */
+    private Structure analyze(File file) throws IOException {
+        Structure structure = new Structure();
+        Section section = null;
+        int contentEnd = -1;
+        int lineNumber = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (structure.contentStart < 0) {
+                    if (line.equals(CONTENT_START)) {
+                        structure.contentStart = lineNumber;
+                    }
+                } else if (structure.footerStart >= 0 || line.startsWith(FOOTER_START)) {
+                    if (structure.footerStart < 0) {
+                        structure.footerStart = lineNumber;
+                    }
+                    structure.footer.add(line);
+                } else {
+                    if (isSectionStart(line)) {
+                        section = new Section(lineNumber);
+                        structure.sections.add(section);
+                    }
+                    if (section != null) {
+                        section.size += line.length() + 1;
+                        if (section.title == null && line.startsWith("<h2")) {
+                            section.title = TAG.matcher(line).replaceAll("").trim();
+                            Matcher matcher = ID.matcher(line);
+                            section.id = matcher.find() ? matcher.group(1) : null;
+                        }
+                        Matcher matcher = ID.matcher(line);
+                        while (matcher.find()) {
+                            structure.ids.putIfAbsent(matcher.group(1), structure.sections.size() - 1);
+                        }
+                    }
+                    if (line.equals("</div>")) {
+                        contentEnd = lineNumber;
+                    }
+                }
+                lineNumber++;
+            }
+        }
+        // the content must be closed by the line preceding the footer
+        if (structure.sections.size() < 2 || structure.footerStart < 0 || contentEnd != structure.footerStart - 1) {
+            return null;
+        }
+        structure.contentEnd = contentEnd;
+        return structure;
+    }
+
+    private static boolean isSectionStart(String line) {
+        return line.startsWith(SECTION_START) && line.length() > SECTION_START.length()
+                && (line.charAt(SECTION_START.length()) == '"' || line.charAt(SECTION_START.length()) == ' ');
+    }
+
+    /**
+     * Assigns the sections to pages.
+     *
+     * @return The number of the page (starting at 1) for each section.
+     */
+    private int[] getSectionPages(List<Section> sections) {
+        int[] sectionPages = new int[sections.size()];
+        int page = 0;
+        long pageSize = 0;
+        for (int i = 0; i < sections.size(); i++) {
+            long size = sections.get(i).size;
+            if (page == 0 || maxPageSize == PER_SECTION || pageSize + size > maxPageSize) {
+                page++;
+                pageSize = 0;
+            }
+            pageSize += size;
+            sectionPages[i] = page;
+        }
+        return sectionPages;
+    }
+
+    /**
+     * Second pass: writes the index page and the pages.
+     */
+    private void write(File file, Structure structure, int[] sectionPages, List<File> pages) throws IOException {
+        File indexFile = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".split.tmp");
+        Map<String, Integer> idPages = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : structure.ids.entrySet()) {
+            idPages.put(entry.getKey(), sectionPages[entry.getValue()]);
+        }
+        Page current = new Page(file, pages, idPages, structure.footer);
+        boolean written = false;
+        try {
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(), UTF_8)) {
+                List<String> header = new ArrayList<>();
+                int section = 0;
+                current.open(indexFile, 0);
+                String line;
+                for (int lineNumber = 0; lineNumber < structure.contentEnd && (line = reader.readLine()) != null; lineNumber++) {
+                    if (lineNumber <= structure.contentStart) {
+                        header.add(line);
+                    } else if (section < structure.sections.size() && structure.sections.get(section).start == lineNumber) {
+                        int page = sectionPages[section];
+                        if (page != current.number) {
+                            if (current.number == 0) {
+                                writeIndex(current.writer, structure, sectionPages, pages);
+                            }
+                            current.close();
+                            current.open(pages.get(page - 1), page);
+                            for (String headerLine : header) {
+                                current.writeLine(headerLine);
+                            }
+                            current.writeNavigation();
+                        }
+                        section++;
+                    }
+                    current.writeLine(line);
+                }
+                current.close();
+            }
+            Files.move(indexFile.toPath(), file.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+            written = true;
+        } finally {
+            if (!written) {
+                // the document is left unchanged, remove the partially written index and pages
+                current.abort();
+                Files.deleteIfExists(indexFile.toPath());
+                for (File page : pages) {
+                    Files.deleteIfExists(page.toPath());
+                }
+            }
+        }
+    }
+
+    private void writeIndex(Writer writer, Structure structure, int[] sectionPages, List<File> pages) throws IOException {
+        writer.write("<div class=\"jqassistant-page-index\">\n");
+        writer.write("<ul>\n");
+        for (int i = 0; i < structure.sections.size(); i++) {
+            Section section = structure.sections.get(i);
+            String href = pages.get(sectionPages[i] - 1).getName() + (section.id != null ? "#" + section.id : "");
+            writer.write("<li><a href=\"" + href + "\">" + (section.title != null ? section.title : href) + "</a></li>\n");
+        }
+        writer.write("</ul>\n");
+        writer.write("</div>\n");
+        writeRedirect(writer, structure, sectionPages, pages);
+    }
+
+    /**
+     * Writes a script redirecting links to ids of the original document to the
+     * page declaring the id.
+     */
+    private void writeRedirect(Writer writer, Structure structure, int[] sectionPages, List<File> pages) throws IOException {
+        writer.write("<script>\n(function () {\n  var pages = [");
+        for (int i = 0; i < pages.size(); i++) {
+            writer.write(i > 0 ? "," : "");
+            writeString(writer, pages.get(i).getName());
+        }
+        writer.write("], ids = {");
+        boolean first = true;
+        for (Map.Entry<String, Integer> entry : structure.ids.entrySet()) {
+            writer.write(first ? "" : ",");
+            first = false;
+            writeString(writer, entry.getKey());
+            writer.write(":" + (sectionPages[entry.getValue()] - 1));
+        }
+        writer.write("};\n");
+        writer.write("  function redirect() {\n" //
+                + "    var id = decodeURIComponent(window.location.hash.substring(1));\n" //
+                + "    if (ids.hasOwnProperty(id)) { window.location.replace(pages[ids[id]] + window.location.hash); }\n" //
+                + "  }\n" //
+                + "  window.addEventListener('hashchange', redirect);\n" //
+                + "  redirect();\n" //
+                + "})();\n</script>\n");
+    }
+
+    private static void writeString(Writer writer, String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\' || c == '<' || c == '>' || c == '&' || c < 0x20 || c == '\u2028' || c == '\u2029') {
+                writer.write(String.format("\\u%04x", (int) c));
+            } else {
+                writer.write(c);
+            }
+        }
+        writer.write('"');
+    }
+
+    private static void deleteStalePages(File file, int pageCount) throws IOException {
+        for (File pageFile : getPages(file).tailMap(pageCount + 1).values()) {
+            Files.deleteIfExists(pageFile.toPath());
+            Files.deleteIfExists(ArtifactCompressor.getGzipFile(pageFile).toPath());
+        }
+    }
+
+    /**
+     * The page which is currently written.
+     */
+    private static final class Page {
+
+        private final File file;
+
+        private final List<File> pages;
+
+        private final Map<String, Integer> idPages;
+
+        private final List<String> footer;
+
+        private int number;
+
+        private Writer writer;
+
+        private Page(File file, List<File> pages, Map<String, Integer> idPages, List<String> footer) {
+            this.file = file;
+            this.pages = pages;
+            this.idPages = idPages;
+            this.footer = footer;
+        }
+
+        private void open(File pageFile, int number) throws IOException {
+            this.writer = Files.newBufferedWriter(pageFile.toPath(), UTF_8);
+            this.number = number;
+        }
+
+        /**
+         * Completes the page by the navigation, the end of the content and the
+         * footer.
+         */
+        private void close() throws IOException {
+            if (writer != null) {
+                try {
+                    writeNavigation();
+                    writer.write("</div>\n");
+                    for (String footerLine : footer) {
+                        writeLine(footerLine);
+                    }
+                } finally {
+                    writer.close();
+                    writer = null;
+                }
+            }
+        }
+
+        /**
+         * Closes the current file without completing it.
+         */
+        private void abort() throws IOException {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } finally {
+                    writer = null;
+                }
+            }
+        }
+
+        private void writeNavigation() throws IOException {
+            if (number == 0) {
+                return;
+            }
+            writer.write("<div class=\"jqassistant-page-navigation\">\n");
+            if (number > 1) {
+                writer.write("<a href=\"" + pages.get(number - 2).getName() + "\">Previous</a> |\n");
+            }
+            writer.write("<a href=\"" + file.getName() + "\">Index</a> |\n");
+            writer.write("Page " + number + " of " + pages.size() + "\n");
+            if (number < pages.size()) {
+                writer.write("| <a href=\"" + pages.get(number).getName() + "\">Next</a>\n");
+            }
+            writer.write("</div>\n");
+        }
+
+        /**
+         * Writes a line, local links to ids declared on other pages are
+         * rewritten.
+         */
+        private void writeLine(String line) throws IOException {
+            if (line.contains("href=\"#")) {
+                Matcher matcher = LOCAL_HREF.matcher(line);
+                StringBuffer buffer = new StringBuffer();
+                while (matcher.find()) {
+                    // ids which are not declared by a section belong to the index page
+                    int idPage = idPages.getOrDefault(matcher.group(1), 0);
+                    String replacement = matcher.group();
+                    if (idPage != number) {
+                        String pageName = idPage == 0 ? file.getName() : pages.get(idPage - 1).getName();
+                        replacement = "href=\"" + pageName + "#" + matcher.group(1) + "\"";
+                    }
+                    matcher.appendReplacement(buffer, Matcher.quoteReplacement(replacement));
+                }
+                matcher.appendTail(buffer);
+                writer.write(buffer.toString());
+            } else {
+                writer.write(line);
+            }
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * The structure of a document determined by the first pass.
+     */
+    private static final class Structure {
+
+        private int contentStart = -1;
+
+        private int contentEnd = -1;
+
+        private int footerStart = -1;
+
+        private final List<Section> sections = new ArrayList<>();
+
+        /**
+         * The ids declared by the sections and the index of their section.
+         */
+        private final Map<String, Integer> ids = new LinkedHashMap<>();
+
+        private final List<String> footer = new ArrayList<>();
+
+    }
+
+    /**
+     * A top-level section.
+     */
+    private static final class Section {
+
+        private final int start;
+
+        private long size;
+
+        private String title;
+
+        private String id;
+
+        private Section(int start) {
+            this.start = start;
+        }
+    }
+}
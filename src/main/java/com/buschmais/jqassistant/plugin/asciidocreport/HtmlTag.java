@@ -0,0 +1,174 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A start or end tag of an HTML element as it is read by the
+ * {@link RulePostProcessor.HtmlRulePostProcessor}.
+ * <p>
+ * Attribute values are kept in their escaped form, i.e. a tag which is not
+ * modified is serialized as it was read.
+ */
+final class HtmlTag {
+
+    private final String name;
+
+    private final boolean endTag;
+
+    private final boolean selfClosing;
+
+    private final Map<String, String> attributes;
+
+    private HtmlTag(String name, boolean endTag, boolean selfClosing, Map<String, String> attributes) {
+        this.name = name;
+        this.endTag = endTag;
+        this.selfClosing = selfClosing;
+        this.attributes = attributes;
+    }
+
+    /**
+     * Parses a tag.
+     *
+     * @param markup
+     *            The markup of the tag, starting with '&lt;' and ending with
+     *            '&gt;'.
+     * @return The {@link HtmlTag}.
+     */
+    static HtmlTag parse(CharSequence markup) {
+        int length = markup.length() - 1; // without trailing '>'
+        int pos = 1;
+        boolean endTag = false;
+        if (pos < length && markup.charAt(pos) == '/') {
+            endTag = true;
+            pos++;
+        }
+        int nameStart = pos;
+        while (pos < length && !isNameDelimiter(markup.charAt(pos))) {
+            pos++;
+        }
+        String name = markup.subSequence(nameStart, pos).toString().toLowerCase();
+        Map<String, String> attributes = new LinkedHashMap<>();
+        boolean selfClosing = false;
+        while (pos < length) {
+            char c = markup.charAt(pos);
+            if (Character.isWhitespace(c)) {
+                pos++;
+            } else if (c == '/') {
+                selfClosing = pos == length - 1;
+                pos++;
+            } else {
+                int attributeStart = pos;
+                while (pos < length && !isNameDelimiter(markup.charAt(pos)) && markup.charAt(pos) != '=') {
+                    pos++;
+                }
+                String attributeName = markup.subSequence(attributeStart, pos).toString().toLowerCase();
+                while (pos < length && Character.isWhitespace(markup.charAt(pos))) {
+                    pos++;
+                }
+                String value = null;
+                if (pos < length && markup.charAt(pos) == '=') {
+                    pos++;
+                    while (pos < length && Character.isWhitespace(markup.charAt(pos))) {
+                        pos++;
+                    }
+                    if (pos < length && (markup.charAt(pos) == '"' || markup.charAt(pos) == '\'')) {
+                        char quote = markup.charAt(pos++);
+                        int valueStart = pos;
+                        while (pos < length && markup.charAt(pos) != quote) {
+                            pos++;
+                        }
+                        value = markup.subSequence(valueStart, pos).toString();
+                        pos++;
+                    } else {
+                        int valueStart = pos;
+                        while (pos < length && !Character.isWhitespace(markup.charAt(pos))) {
+                            pos++;
+                        }
+                        value = markup.subSequence(valueStart, pos).toString();
+                    }
+                }
+                if (!attributeName.isEmpty()) {
+                    attributes.putIfAbsent(attributeName, value);
+                }
+            }
+        }
+        return new HtmlTag(name, endTag, selfClosing, attributes);
+    }
+
+    private static boolean isNameDelimiter(char c) {
+        return Character.isWhitespace(c) || c == '/' || c == '>';
+    }
+
+    String getName() {
+        return name;
+    }
+
+    boolean isEndTag() {
+        return endTag;
+    }
+
+    boolean isSelfClosing() {
+        return selfClosing;
+    }
+
+    String getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    void setAttribute(String name, String value) {
+        attributes.put(name, value);
+    }
+
+    /**
+     * Adds a CSS class if it is not yet declared.
+     *
+     * @param cssClass
+     *            The CSS class.
+     */
+    void addClass(String cssClass) {
+        if (!hasClass(cssClass)) {
+            String classes = attributes.get("class");
+            attributes.put("class", classes == null || classes.trim().isEmpty() ? cssClass : classes + " " + cssClass);
+        }
+    }
+
+    /**
+     * Determines if the tag declares the given CSS class.
+     *
+     * @param cssClass
+     *            The CSS class.
+     * @return <code>true</code> if the class is declared.
+     */
+    boolean hasClass(String cssClass) {
+        String classes = attributes.get("class");
+        if (classes != null) {
+            for (String declaredClass : classes.trim().split("\\s+")) {
+                if (declaredClass.equals(cssClass)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("<");
+        if (endTag) {
+            builder.append('/');
+        }
+        builder.append(name);
+        for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+            builder.append(' ').append(attribute.getKey());
+            String value = attribute.getValue();
+            if (value != null) {
+                builder.append("=\"").append(value.replace("\"", "&quot;")).append('"');
+            }
+        }
+        if (selfClosing) {
+            builder.append('/');
+        }
+        return builder.append('>').toString();
+    }
+}
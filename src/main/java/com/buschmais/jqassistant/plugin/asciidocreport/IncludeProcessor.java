@@ -3,51 +3,110 @@ package com.buschmais.jqassistant.plugin.asciidocreport;
 import java.util.*;
 
 import com.buschmais.jqassistant.core.rule.api.model.ExecutableRule;
-import com.buschmais.jqassistant.core.shared.asciidoc.DocumentParser;
 import com.buschmais.jqassistant.plugin.asciidocreport.include.*;
 
+import lombok.AllArgsConstructor;
 import org.asciidoctor.ast.Document;
 import org.asciidoctor.ast.StructuralNode;
 import org.asciidoctor.extension.PreprocessorReader;
 
 import static java.util.stream.Collectors.toMap;
 
+/**
+ * Include processor for jQA include directives (e.g. "jQA:Summary[]").
+ * <p>
+ * The content of an include depends on the rule blocks which are declared in
+ * the document. As these are not known while the document is parsed an include
+ * is deferred, i.e. replaced by a placeholder block which is resolved by the
+ * {@link TreePreprocessor} using {@link #getContent(int, Map)}. The deferred
+ * includes are held by the active {@link DocumentContext}.
+ * <p>
+ * The placeholder is a single line block (a thematic break), i.e. unlike a
+ * delimited block it cannot close an enclosing block (e.g. an open block of a
+ * list continuation) and does not consume the lines following the include.
+ */
 public class IncludeProcessor extends org.asciidoctor.extension.IncludeProcessor {
 
     public static final String PREFIX = "jQA:";
 
-    private Map<String, IncludeStrategy> strategies;
+    static final String PLACEHOLDER_ROLE = "jqassistant-include";
 
-    public IncludeProcessor(DocumentParser documentParser, Document document, Map<String, RuleResult> conceptResults,
-            Map<String, RuleResult> constraintResults) {
-        DocumentParser.Result result = documentParser.parse(document);
-        Map<String, StructuralNode> ruleBlocks = new HashMap<>();
-        ruleBlocks.putAll(result.getConcepts());
-        ruleBlocks.putAll(result.getConstraints());
-        Set<ExecutableRule<?>> includedRules = new HashSet<>();
-        SummaryFilter summaryFilter = new SummaryFilter(conceptResults, constraintResults, ruleBlocks);
-        strategies = Arrays
-                .<IncludeStrategy> asList(new SummaryIncludeStrategy(conceptResults, constraintResults, summaryFilter),
-                        new RulesIncludeStrategy(conceptResults, constraintResults, ruleBlocks, includedRules),
-                        new ImportedRulesIncludeStrategy(conceptResults, constraintResults, ruleBlocks, includedRules))
-                .stream().collect(toMap(strategy -> strategy.getName(), strategy -> strategy));
-    }
+    static final String PLACEHOLDER_INDEX = "jqassistant-include-index";
 
     @Override
     public boolean handles(String target) {
-        return target.startsWith(PREFIX);
+        return target.startsWith(PREFIX) && DocumentContext.current().isPresent();
     }
 
     @Override
     public void process(Document document, PreprocessorReader reader, String target, Map<String, Object> attributes) {
+        DocumentContext documentContext = getDocumentContext();
+        documentContext.count("includes", 1);
+        List<DeferredInclude> includes = documentContext.getDeferredIncludes();
         String include = target.substring(PREFIX.length());
-        IncludeStrategy strategy = strategies.get(include);
+        int index = includes.size();
+        includes.add(new DeferredInclude(include, new HashMap<>(attributes)));
         StringBuilder builder = new StringBuilder();
-        if (strategy != null) {
-            strategy.process(attributes, builder);
-        } else {
-            throw new IllegalArgumentException("jQA include not supported: " + target);
-        }
+        builder.append("[role=").append(PLACEHOLDER_ROLE).append(',').append(PLACEHOLDER_INDEX).append('=').append(index).append(']').append('\n');
+        builder.append("'''").append('\n');
         reader.push_include(builder.toString(), target, include, 1, attributes);
     }
+
+    /**
+     * Creates the Asciidoc markup for a deferred include.
+     *
+     * @param index
+     *            The index of the include as provided by the placeholder block.
+     * @param ruleBlocks
+     *            The rule blocks declared in the document.
+     * @return The Asciidoc markup.
+     */
+    String getContent(int index, Map<String, StructuralNode> ruleBlocks) {
+        DocumentContext documentContext = getDocumentContext();
+        try (ReportProfile.Measurement measurement = documentContext.measure("include")) {
+            Map<String, IncludeStrategy> strategies = documentContext.getIncludeStrategies();
+            if (strategies == null) {
+                strategies = createStrategies(documentContext.getConceptResults(), documentContext.getConstraintResults(), ruleBlocks,
+                        documentContext.getRuleFilterCache());
+                documentContext.setIncludeStrategies(strategies);
+            }
+            DeferredInclude include = documentContext.getDeferredIncludes().get(index);
+            IncludeStrategy strategy = strategies.get(include.name);
+            if (strategy == null) {
+                throw new IllegalArgumentException("jQA include not supported: " + PREFIX + include.name);
+            }
+            StringBuilder builder = new StringBuilder();
+            strategy.process(include.attributes, builder);
+            return builder.toString();
+        }
+    }
+
+    private DocumentContext getDocumentContext() {
+        return DocumentContext.current().orElseThrow(() -> new IllegalStateException("No document context available for jQA include."));
+    }
+
+    private Map<String, IncludeStrategy> createStrategies(Map<String, RuleResult> conceptResults, Map<String, RuleResult> constraintResults,
+            Map<String, StructuralNode> ruleBlocks, RuleFilterCache ruleFilterCache) {
+        Set<ExecutableRule<?>> includedRules = new HashSet<>();
+        RuleIndex ruleIndex = ruleFilterCache != null ? new RuleIndex(conceptResults, constraintResults, ruleBlocks, ruleFilterCache)
+                : new RuleIndex(conceptResults, constraintResults, ruleBlocks);
+        SummaryFilter summaryFilter = new SummaryFilter(ruleIndex);
+        return Arrays
+                .<IncludeStrategy> asList(new SummaryIncludeStrategy(conceptResults, constraintResults, summaryFilter),
+                        new RulesIncludeStrategy(conceptResults, constraintResults, ruleBlocks, includedRules, ruleIndex),
+                        new ImportedRulesIncludeStrategy(conceptResults, constraintResults, ruleBlocks, includedRules, ruleIndex))
+                .stream().collect(toMap(strategy -> strategy.getName(), strategy -> strategy));
+    }
+
+    /**
+     * A jQA include which has been replaced by a placeholder block.
+     */
+    @AllArgsConstructor
+    static class DeferredInclude {
+
+        private final String name;
+
+        private final Map<String, Object> attributes;
+
+    }
 }
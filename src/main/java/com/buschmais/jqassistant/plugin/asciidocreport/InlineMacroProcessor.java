@@ -2,6 +2,7 @@ package com.buschmais.jqassistant.plugin.asciidocreport;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 import com.buschmais.jqassistant.core.shared.asciidoc.DocumentParser;
 
@@ -13,20 +14,22 @@ public class InlineMacroProcessor extends org.asciidoctor.extension.InlineMacroP
     public static final String CONCEPT_REF = "conceptRef";
     public static final String CONSTRAINT_REF = "constraintRef";
 
-    private final DocumentParser documentParser;
-
-    public InlineMacroProcessor(DocumentParser documentParser) {
+    public InlineMacroProcessor() {
         super("jQA");
-        this.documentParser = documentParser;
     }
 
     @Override
     public Object process(ContentNode parent, String target, Map<String, Object> attributes) {
+        Optional<DocumentContext> documentContext = DocumentContext.current();
+        if (!documentContext.isPresent()) {
+            return attributes.get("1");
+        }
+        DocumentParserCache documentParserCache = documentContext.get().getDocumentParserCache();
         if (CONCEPT_REF.equals(target)) {
-            DocumentParser.Result result = documentParser.parse(parent.getDocument());
+            DocumentParser.Result result = documentParserCache.parse(parent.getDocument());
             return processRef(parent, attributes, result.getConcepts());
         } else if (CONSTRAINT_REF.equals(target)) {
-            DocumentParser.Result result = documentParser.parse(parent.getDocument());
+            DocumentParser.Result result = documentParserCache.parse(parent.getDocument());
             return processRef(parent, attributes, result.getConstraints());
         }
         throw new IllegalArgumentException("Unknown jQAssistant macro '" + target + "'");
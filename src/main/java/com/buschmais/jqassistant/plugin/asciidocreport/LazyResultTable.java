@@ -0,0 +1,255 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringEscapeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Renders a result table which is loaded by the browser on demand.
+ * <p>
+ * The rows of a result are written once to a sidecar script in the directory
+ * "results" next to the document, the document only contains a collapsed
+ * placeholder. Expanding the placeholder loads the script which registers the
+ * result as JSON, the rows are paginated and filtered client-side. A script is
+ * used instead of a plain JSON file as browsers do not allow fetching files if
+ * a report is opened from the file system.
+ */
+final class LazyResultTable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LazyResultTable.class);
+
+    static final String PLACEHOLDER_CLASS = "jqassistant-lazy-result";
+
+    /**
+     * The loader of the sidecar scripts, it is embedded into the head of a
+     * document and therefore also of each page if the document is split.
+     */
+    static final String LOADER = "<style>\n" //
+            + ".jqassistant-lazy-result summary { cursor: pointer; }\n" //
+            + ".jqassistant-lazy-result-pager button { margin: 0 0.25em; }\n" //
+            + "</style>\n" //
+            + "<script>\n" //
+            + "(function () {\n" //
+            + "  if (window.jqassistantResults) { return; }\n" //
+            + "  var pageSize = 100, callbacks = {};\n" //
+            + "  window.jqassistantResults = {\n" //
+            + "    register: function (id, result) {\n" //
+            + "      var pending = callbacks[id] || [];\n" //
+            + "      delete callbacks[id];\n" //
+            + "      pending.forEach(function (callback) { callback(result); });\n" //
+            + "    }\n" //
+            + "  };\n" //
+            + "  function element(name, text) {\n" //
+            + "    var e = document.createElement(name);\n" //
+            + "    if (text) { e.textContent = text; }\n" //
+            + "    return e;\n" //
+            + "  }\n" //
+            + "  function render(container, result) {\n" //
+            + "    var target = container.querySelector('.jqassistant-lazy-result-content');\n" //
+            + "    var rows = result.rows, page = 0;\n" //
+            + "    var filter = element('input'), table = element('table'), pager = element('div');\n" //
+            + "    var previous = element('button', '\\u2039'), next = element('button', '\\u203a'), info = element('span');\n" //
+            + "    filter.type = 'search';\n" //
+            + "    filter.placeholder = 'Filter rows';\n" //
+            + "    pager.className = 'jqassistant-lazy-result-pager';\n" //
+            + "    var header = table.createTHead().insertRow(), body = table.createTBody();\n" //
+            + "    result.columns.forEach(function (column) { header.appendChild(element('th', column)); });\n" //
+            + "    function show() {\n" //
+            + "      var pages = Math.max(1, Math.ceil(rows.length / pageSize));\n" //
+            + "      page = Math.max(0, Math.min(page, pages - 1));\n" //
+            + "      var first = page * pageSize, last = Math.min(rows.length, first + pageSize);\n" //
+            + "      body.textContent = '';\n" //
+            + "      rows.slice(first, last).forEach(function (row) {\n" //
+            + "        var tr = body.insertRow();\n" //
+            + "        row.forEach(function (values) { tr.insertCell().textContent = values.join('\\n'); });\n" //
+            + "      });\n" //
+            + "      info.textContent = 'Rows ' + (last > first ? first + 1 : 0) + '-' + last + ' of ' + rows.length;\n" //
+            + "      previous.disabled = page === 0;\n" //
+            + "      next.disabled = page >= pages - 1;\n" //
+            + "    }\n" //
+            + "    filter.oninput = function () {\n" //
+            + "      var term = filter.value.toLowerCase();\n" //
+            + "      rows = !term ? result.rows : result.rows.filter(function (row) {\n" //
+            + "        return row.some(function (values) { return values.join('\\n').toLowerCase().indexOf(term) >= 0; });\n" //
+            + "      });\n" //
+            + "      page = 0;\n" //
+            + "      show();\n" //
+            + "    };\n" //
+            + "    previous.onclick = function () { page--; show(); };\n" //
+            + "    next.onclick = function () { page++; show(); };\n" //
+            + "    pager.appendChild(previous);\n" //
+            + "    pager.appendChild(info);\n" //
+            + "    pager.appendChild(next);\n" //
+            + "    target.textContent = '';\n" //
+            + "    target.appendChild(filter);\n" //
+            + "    target.appendChild(table);\n" //
+            + "    target.appendChild(pager);\n" //
+            + "    show();\n" //
+            + "  }\n" //
+            + "  function load(container) {\n" //
+            + "    if (container.getAttribute('data-loaded')) { return; }\n" //
+            + "    container.setAttribute('data-loaded', 'true');\n" //
+            + "    var id = container.getAttribute('data-rule');\n" //
+            + "    (callbacks[id] = callbacks[id] || []).push(function (result) { render(container, result); });\n" //
+            + "    var script = element('script');\n" //
+            + "    script.src = container.getAttribute('data-src');\n" //
+            + "    script.onerror = function () {\n" //
+            + "      container.querySelector('.jqassistant-lazy-result-content').textContent = 'Cannot load ' + script.src;\n" //
+            + "    };\n" //
+            + "    document.head.appendChild(script);\n" //
+            + "  }\n" //
+            + "  document.addEventListener('toggle', function (event) {\n" //
+            + "    var details = event.target;\n" //
+            + "    if (details.open && details.parentNode.classList.contains('" + PLACEHOLDER_CLASS + "')) { load(details.parentNode); }\n" //
+            + "  }, true);\n" //
+            + "})();\n" //
+            + "</script>";
+
+    private LazyResultTable() {
+    }
+
+    /**
+     * Renders the placeholder of a result and writes its sidecar script.
+     *
+     * @param result
+     *            The {@link RuleResult}.
+     * @param outputFileDirectory
+     *            The directory of the output file.
+     * @param writtenFiles
+     *            The absolute paths of the sidecar scripts already written during
+     *            the report run, may be <code>null</code>.
+     * @return The placeholder or <code>null</code> if the sidecar script could not
+     *         be written.
+     */
+    static String render(RuleResult result, File outputFileDirectory, Set<String> writtenFiles) {
+        String id = result.getRule().getId();
+        String fileName = TreePreprocessor.getResultFileName(id, ".js");
+        Path resultsDirectory = new File(outputFileDirectory, TreePreprocessor.RESULTS_DIRECTORY).toPath();
+        Path file = resultsDirectory.resolve(fileName).toAbsolutePath();
+        if (writtenFiles == null || writtenFiles.add(file.toString())) {
+            try {
+                write(result, resultsDirectory, file);
+            } catch (IOException e) {
+                LOGGER.warn("Cannot write result of rule '" + id + "' to " + resultsDirectory, e);
+                if (writtenFiles != null) {
+                    writtenFiles.remove(file.toString());
+                }
+                return null;
+            }
+        }
+        int rows = result.getRows().size();
+        StringBuilder builder = new StringBuilder();
+        builder.append("<div class=\"").append(PLACEHOLDER_CLASS).append("\" data-rule=\"").append(StringEscapeUtils.escapeHtml4(id))
+                .append("\" data-src=\"").append(TreePreprocessor.RESULTS_DIRECTORY).append('/').append(StringEscapeUtils.escapeHtml4(fileName)).append("\">")
+                .append('\n');
+        builder.append("<details>").append('\n');
+        builder.append("<summary>").append(rows).append(rows == 1 ? " row" : " rows").append("</summary>").append('\n');
+        builder.append("<div class=\"jqassistant-lazy-result-content\">Loading...</div>").append('\n');
+        builder.append("</details>").append('\n');
+        builder.append("</div>").append('\n');
+        return builder.toString();
+    }
+
+    /**
+     * Writes the sidecar script of a result, the file is written to a temporary
+     * file first and moved afterwards as documents rendered in parallel may
+     * embed the same result.
+     */
+    private static void write(RuleResult result, Path resultsDirectory, Path file) throws IOException {
+        Files.createDirectories(resultsDirectory);
+        Path tempFile = resultsDirectory.resolve(file.getFileName() + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(tempFile, UTF_8)) {
+                writeScript(result, writer);
+            }
+            Files.move(tempFile, file, REPLACE_EXISTING, ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    static void writeScript(RuleResult result, Writer writer) throws IOException {
+        List<String> columnNames = result.getColumnNames();
+        writer.write("jqassistantResults.register(");
+        writeString(result.getRule().getId(), writer);
+        writer.write(", {\"columns\":");
+        writeStrings(columnNames, writer);
+        writer.write(",\"rows\":[");
+        boolean firstRow = true;
+        try (ResultRows.RowIterator iterator = ResultRows.iterate(result.getRows())) {
+            while (iterator.hasNext()) {
+                Map<String, List<String>> row = iterator.next();
+                writer.write(firstRow ? "\n[" : ",\n[");
+                firstRow = false;
+                for (int i = 0; i < columnNames.size(); i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writeStrings(row.get(columnNames.get(i)), writer);
+                }
+                writer.write(']');
+            }
+        }
+        writer.write("]});\n");
+    }
+
+    private static void writeStrings(List<String> values, Writer writer) throws IOException {
+        writer.write('[');
+        if (values == null) {
+            // absent column
+            writer.write(']');
+            return;
+        }
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeString(values.get(i), writer);
+        }
+        writer.write(']');
+    }
+
+    private static void writeString(String value, Writer writer) throws IOException {
+        if (value == null) {
+            // rendered as empty value by the loader
+            writer.write("null");
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '"':
+                writer.write("\\\"");
+                break;
+            case '\\':
+                writer.write("\\\\");
+                break;
+            case '\n':
+                writer.write("\\n");
+                break;
+            default:
+                // control characters and line separators are not allowed in script strings
+                if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                    writer.write(String.format("\\u%04x", (int) c));
+                } else {
+                    writer.write(c);
+                }
+            }
+        }
+        writer.write('"');
+    }
+}
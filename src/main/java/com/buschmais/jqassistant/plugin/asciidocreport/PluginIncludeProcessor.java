@@ -15,30 +15,18 @@ import org.asciidoctor.extension.IncludeProcessor;
 import org.asciidoctor.extension.PreprocessorReader;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
-import static java.util.Optional.ofNullable;
 
 /**
  * {@link IncludeProcessor} translating include targets to classpath resources
  * relative to {@link ClasspathRuleSource#RULE_RESOURCE_PATH}.
+ * <p>
+ * The path of the including document and the {@link PluginResourceResolver}
+ * are taken from the active {@link DocumentContext}, i.e. each include target
+ * is looked up only once per report run.
  */
 @Slf4j
 public class PluginIncludeProcessor extends IncludeProcessor {
 
-    private final ClassLoader classLoader;
-
-    private final String rootPath;
-
-    public PluginIncludeProcessor(ClassLoader classLoader, String path) {
-        this.classLoader = classLoader;
-        StringBuilder builder = new StringBuilder("/");
-        int lastFileSeparatorIndex = path.lastIndexOf('/');
-        if (lastFileSeparatorIndex >= 0) {
-            builder.append(path, 0, lastFileSeparatorIndex);
-        }
-        builder.append('/');
-        this.rootPath = builder.toString();
-    }
-
     @Override
     public boolean handles(String target) {
         return getClasspathResource(target).isPresent();
@@ -64,13 +52,42 @@ public class PluginIncludeProcessor extends IncludeProcessor {
      * @return The optional {@link URL}.
      */
     private Optional<URL> getClasspathResource(String target) {
+        Optional<DocumentContext> documentContext = DocumentContext.current();
+        if (!documentContext.isPresent()) {
+            return Optional.empty();
+        }
+        String resource = getResourceName(documentContext.get().getRelativePath(), target);
+        log.debug("Mapped include target '{}' to class path resource '{}'.", target, resource);
+        return documentContext.get().getPluginResourceResolver().resolve(resource);
+    }
+
+    /**
+     * Determines the name of the classpath resource for an include target of a
+     * document.
+     *
+     * @param relativePath
+     *            The relative path of the including document.
+     * @param target
+     *            The include target.
+     * @return The name of the classpath resource.
+     */
+    static String getResourceName(String relativePath, String target) {
         StringBuilder resource = new StringBuilder(ClasspathRuleSource.RULE_RESOURCE_PATH);
         if (!target.startsWith("/")) {
-            resource.append(rootPath);
+            resource.append(getRootPath(relativePath));
         }
         resource.append(target);
-        log.debug("Mapped include target '{}' to class path resource '{}'.", target, resource);
-        return ofNullable(classLoader.getResource(resource.toString()));
+        return resource.toString();
+    }
+
+    private static String getRootPath(String path) {
+        StringBuilder builder = new StringBuilder("/");
+        int lastFileSeparatorIndex = path.lastIndexOf('/');
+        if (lastFileSeparatorIndex >= 0) {
+            builder.append(path, 0, lastFileSeparatorIndex);
+        }
+        builder.append('/');
+        return builder.toString();
     }
 
 }
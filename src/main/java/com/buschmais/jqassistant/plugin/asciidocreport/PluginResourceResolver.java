@@ -0,0 +1,188 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.io.IOException;
+import java.net.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+import com.buschmais.jqassistant.core.rule.api.source.ClasspathRuleSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.util.Optional.ofNullable;
+
+/**
+ * Resolves the classpath resources included by rule documents provided by
+ * plugins (see {@link PluginIncludeProcessor}).
+ * <p>
+ * Each resource is looked up only once per report run, including resources
+ * which do not exist. Otherwise every lookup scans all plugin JARs of the class
+ * loader, and {@link PluginIncludeProcessor#handles(String)} and
+ * {@link PluginIncludeProcessor#process} resolve the same target.
+ * <p>
+ * Optionally an index of all resources located in
+ * {@link ClasspathRuleSource#RULE_RESOURCE_PATH} is created on first use by
+ * listing the plugin JARs and directories once. Lookups are then answered from
+ * the index, the class loader is only used for resources which cannot be listed
+ * (e.g. from unsupported URL protocols) or paths which are not normalized.
+ */
+final class PluginResourceResolver {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PluginResourceResolver.class);
+
+    private final ClassLoader classLoader;
+
+    private final boolean indexed;
+
+    private final Map<String, Optional<URL>> resources = new ConcurrentHashMap<>();
+
+    private final AtomicLong lookups = new AtomicLong();
+
+    private volatile Index index;
+
+    /**
+     * Constructor.
+     *
+     * @param classLoader
+     *            The {@link ClassLoader} providing the plugin resources.
+     * @param indexed
+     *            If <code>true</code> the resources are looked up using an index
+     *            of {@link ClasspathRuleSource#RULE_RESOURCE_PATH}.
+     */
+    PluginResourceResolver(ClassLoader classLoader, boolean indexed) {
+        this.classLoader = classLoader;
+        this.indexed = indexed;
+    }
+
+    /**
+     * Resolves a classpath resource.
+     *
+     * @param resource
+     *            The name of the resource.
+     * @return The optional {@link URL} of the resource.
+     */
+    Optional<URL> resolve(String resource) {
+        return resources.computeIfAbsent(resource, this::lookup);
+    }
+
+    /**
+     * Return the number of lookups which have been delegated to the class
+     * loader.
+     *
+     * @return The number of lookups.
+     */
+    long getLookups() {
+        return lookups.get();
+    }
+
+    private Optional<URL> lookup(String resource) {
+        if (indexed) {
+            Index resourceIndex = getIndex();
+            URL url = resourceIndex.urls.get(resource);
+            if (url != null || (resourceIndex.complete && isNormalized(resource))) {
+                return ofNullable(url);
+            }
+        }
+        lookups.incrementAndGet();
+        return ofNullable(classLoader.getResource(resource));
+    }
+
+    private Index getIndex() {
+        Index resourceIndex = index;
+        if (resourceIndex == null) {
+            synchronized (this) {
+                resourceIndex = index;
+                if (resourceIndex == null) {
+                    resourceIndex = createIndex();
+                    index = resourceIndex;
+                }
+            }
+        }
+        return resourceIndex;
+    }
+
+    private Index createIndex() {
+        Index resourceIndex = new Index();
+        try {
+            Enumeration<URL> roots = classLoader.getResources(ClasspathRuleSource.RULE_RESOURCE_PATH);
+            while (roots.hasMoreElements()) {
+                URL root = roots.nextElement();
+                if (!addResources(root, resourceIndex.urls)) {
+                    LOGGER.debug("Cannot list plugin resources of '{}', falling back to class loader lookups.", root);
+                    resourceIndex.complete = false;
+                }
+            }
+        } catch (IOException | URISyntaxException e) {
+            LOGGER.warn("Cannot create index of plugin resources, falling back to class loader lookups.", e);
+            resourceIndex.complete = false;
+        }
+        LOGGER.debug("Indexed {} plugin resources.", resourceIndex.urls.size());
+        return resourceIndex;
+    }
+
+    /**
+     * Adds the resources located below a root {@link URL} to the index, the
+     * first resource with a given name takes precedence (as for
+     * {@link ClassLoader#getResource(String)}).
+     *
+     * @return <code>false</code> if the resources cannot be listed.
+     */
+    private static boolean addResources(URL root, Map<String, URL> urls) throws IOException, URISyntaxException {
+        URL base = root.toExternalForm().endsWith("/") ? root : new URL(root.toExternalForm() + "/");
+        URLConnection connection = root.openConnection();
+        if (connection instanceof JarURLConnection) {
+            JarURLConnection jarURLConnection = (JarURLConnection) connection;
+            jarURLConnection.setUseCaches(false);
+            String entryName = jarURLConnection.getEntryName();
+            String entryPrefix = entryName.endsWith("/") ? entryName : entryName + "/";
+            try (JarFile jarFile = jarURLConnection.getJarFile()) {
+                Enumeration<JarEntry> entries = jarFile.entries();
+                while (entries.hasMoreElements()) {
+                    JarEntry entry = entries.nextElement();
+                    if (!entry.isDirectory() && entry.getName().startsWith(entryPrefix)) {
+                        add(base, entry.getName().substring(entryPrefix.length()), urls);
+                    }
+                }
+            }
+            return true;
+        } else if ("file".equals(root.getProtocol())) {
+            Path directory = Paths.get(root.toURI());
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                    urls.putIfAbsent(getResourceName(directory.relativize(file).toString().replace('\\', '/')), file.toUri().toURL());
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static void add(URL base, String relativePath, Map<String, URL> urls) throws URISyntaxException, MalformedURLException {
+        String encodedPath = new URI(null, null, relativePath, null).getRawPath();
+        urls.putIfAbsent(getResourceName(relativePath), new URL(base, "./" + encodedPath));
+    }
+
+    private static String getResourceName(String relativePath) {
+        return ClasspathRuleSource.RULE_RESOURCE_PATH + "/" + relativePath;
+    }
+
+    private static boolean isNormalized(String resource) {
+        return !resource.contains("//") && !resource.contains("/./") && !resource.contains("/../");
+    }
+
+    private static final class Index {
+
+        private final Map<String, URL> urls = new HashMap<>();
+
+        private boolean complete = true;
+
+    }
+}
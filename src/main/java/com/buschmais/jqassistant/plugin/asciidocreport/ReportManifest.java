@@ -0,0 +1,161 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.io.*;
+import java.util.*;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptySet;
+
+/**
+ * The manifest of the incremental mode.
+ * <p>
+ * For each rendered document the manifest records its fingerprint and the
+ * results it depends on, i.e. the ids of the embedded rules and whether it
+ * contains jQA includes which depend on all results. The manifest is stored
+ * as properties file in the report directory.
+ */
+public class ReportManifest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReportManifest.class);
+
+    static final String FILE_NAME = ".jqassistant-report-manifest";
+
+    private static final String FINGERPRINT = ".fingerprint";
+    private static final String RULES = ".rules";
+    private static final String ALL_RESULTS = ".allResults";
+
+    private final File file;
+
+    private final Properties properties = new Properties();
+
+    /**
+     * Constructor.
+     *
+     * @param reportDirectory
+     *            The report directory containing the manifest.
+     */
+    public ReportManifest(File reportDirectory) {
+        this.file = new File(reportDirectory, FILE_NAME);
+    }
+
+    /**
+     * Loads the manifest, a missing or unreadable manifest is treated as empty.
+     */
+    public synchronized void load() {
+        properties.clear();
+        if (file.exists()) {
+            try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
+                properties.load(inputStream);
+            } catch (IOException e) {
+                LOGGER.warn("Cannot read report manifest " + file.getAbsolutePath() + ", all documents will be rendered.", e);
+                properties.clear();
+            }
+        }
+    }
+
+    /**
+     * Stores the manifest.
+     *
+     * @throws IOException
+     *             If the manifest cannot be written.
+     */
+    public synchronized void store() throws IOException {
+        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file))) {
+            properties.store(outputStream, "jQAssistant AsciiDoc report manifest");
+        }
+    }
+
+    /**
+     * Return the recorded {@link Entry} for a document.
+     *
+     * @param document
+     *            The relative path of the document.
+     * @return The {@link Entry}.
+     */
+    public synchronized Optional<Entry> get(String document) {
+        String fingerprint = properties.getProperty(document + FINGERPRINT);
+        if (fingerprint == null) {
+            return Optional.empty();
+        }
+        String rules = properties.getProperty(document + RULES, "");
+        Set<String> ruleIds = rules.isEmpty() ? emptySet() : new TreeSet<>(asList(rules.split(",")));
+        boolean allResults = Boolean.parseBoolean(properties.getProperty(document + ALL_RESULTS));
+        return Optional.of(new Entry(fingerprint, ruleIds, allResults));
+    }
+
+    /**
+     * Records the {@link Entry} for a document.
+     *
+     * @param document
+     *            The relative path of the document.
+     * @param entry
+     *            The {@link Entry}.
+     */
+    public synchronized void put(String document, Entry entry) {
+        properties.setProperty(document + FINGERPRINT, entry.getFingerprint());
+        properties.setProperty(document + RULES, String.join(",", entry.getRuleIds()));
+        properties.setProperty(document + ALL_RESULTS, Boolean.toString(entry.isAllResults()));
+    }
+
+    /**
+     * Removes the {@link Entry} of a document, e.g. if it could not be rendered.
+     *
+     * @param document
+     *            The relative path of the document.
+     */
+    public synchronized void remove(String document) {
+        properties.remove(document + FINGERPRINT);
+        properties.remove(document + RULES);
+        properties.remove(document + ALL_RESULTS);
+    }
+
+    /**
+     * Removes the {@link Entry}s of all documents which are not contained in the
+     * given documents, e.g. as they have been deleted or renamed.
+     *
+     * @param documents
+     *            The relative paths of the existing documents.
+     * @return The number of removed {@link Entry}s.
+     */
+    public synchronized int retain(Collection<String> documents) {
+        Set<String> existingDocuments = new HashSet<>(documents);
+        int removed = 0;
+        for (String key : properties.stringPropertyNames()) {
+            if (key.endsWith(FINGERPRINT)) {
+                String document = key.substring(0, key.length() - FINGERPRINT.length());
+                if (!existingDocuments.contains(document)) {
+                    remove(document);
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * The recorded state of a rendered document.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Entry {
+
+        private final String fingerprint;
+
+        /**
+         * The ids of the rules whose results are embedded.
+         */
+        private final Set<String> ruleIds;
+
+        /**
+         * <code>true</code> if the document depends on all results (e.g. by a
+         * summary).
+         */
+        private final boolean allResults;
+
+    }
+}
@@ -0,0 +1,384 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.*;
+
+import com.buschmais.jqassistant.core.report.api.ReportContext;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Records the durations of the stages of the report phase, e.g. reading and
+ * converting documents, resolving includes or rendering diagrams.
+ * <p>
+ * For each stage the number of invocations, the elapsed time and an estimate of
+ * the bytes allocated by the executing thread are recorded, stages are measured
+ * inclusive of nested stages. Stages and counters are recorded per document
+ * (see {@link DocumentProfile}) or for the whole run (e.g. diagrams rendered by
+ * the PlantUML report plugins). The profile is written as JSON file.
+ * <p>
+ * The profile is active for the {@link ReportContext} of a report run between
+ * {@link #activate(ReportContext)} and {@link #deactivate()}. Report plugins
+ * which do not create the profile (e.g. the PlantUML report plugins) look it
+ * up using {@link #active(ReportContext)}, concurrent runs within the same JVM
+ * are therefore recorded separately.
+ */
+public final class ReportProfile {
+
+    /**
+     * A {@link Measurement} which does not record anything.
+     */
+    public static final Measurement NONE = () -> {
+    };
+
+    private static final Map<ReportContext, ReportProfile> ACTIVE = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final Instant start = Instant.now();
+
+    private final long startNanos = System.nanoTime();
+
+    private final Map<String, Statistics> stages = new TreeMap<>();
+
+    private final Map<String, Long> counters = new TreeMap<>();
+
+    private final List<DocumentProfile> documents = new ArrayList<>();
+
+    private long durationNanos = -1;
+
+    private ReportContext reportContext;
+
+    /**
+     * Return the profile which is active for a report run.
+     *
+     * @param reportContext
+     *            The {@link ReportContext} of the report run.
+     * @return The optional {@link ReportProfile}.
+     */
+    public static Optional<ReportProfile> active(ReportContext reportContext) {
+        return Optional.ofNullable(ACTIVE.get(reportContext));
+    }
+
+    /**
+     * Starts a run wide stage of an optional profile.
+     *
+     * @param profile
+     *            The {@link ReportProfile}, may be <code>null</code>.
+     * @param stage
+     *            The name of the stage.
+     * @return The {@link Measurement} which must be closed at the end of the
+     *         stage.
+     */
+    public static Measurement measure(ReportProfile profile, String stage) {
+        return profile != null ? profile.measure(stage) : NONE;
+    }
+
+    /**
+     * Increments a run wide counter of an optional profile.
+     *
+     * @param profile
+     *            The {@link ReportProfile}, may be <code>null</code>.
+     * @param counter
+     *            The name of the counter.
+     * @param delta
+     *            The value to add.
+     */
+    public static void count(ReportProfile profile, String counter, long delta) {
+        if (profile != null) {
+            profile.count(counter, delta);
+        }
+    }
+
+    /**
+     * Activates this profile for a report run.
+     *
+     * @param reportContext
+     *            The {@link ReportContext} of the report run.
+     * @return The {@link ReportProfile}.
+     */
+    public synchronized ReportProfile activate(ReportContext reportContext) {
+        this.reportContext = reportContext;
+        ACTIVE.put(reportContext, this);
+        return this;
+    }
+
+    /**
+     * Deactivates this profile, the total duration of the run is recorded.
+     */
+    public synchronized void deactivate() {
+        if (reportContext != null) {
+            ACTIVE.remove(reportContext, this);
+            reportContext = null;
+        }
+        if (durationNanos < 0) {
+            durationNanos = System.nanoTime() - startNanos;
+        }
+    }
+
+    /**
+     * Starts a run wide stage.
+     *
+     * @param stage
+     *            The name of the stage.
+     * @return The {@link Measurement} which must be closed at the end of the
+     *         stage.
+     */
+    public Measurement measure(String stage) {
+        return new StageMeasurement(this::record, stage);
+    }
+
+    /**
+     * Increments a run wide counter.
+     *
+     * @param counter
+     *            The name of the counter.
+     * @param delta
+     *            The value to add.
+     */
+    public synchronized void count(String counter, long delta) {
+        counters.merge(counter, delta, Long::sum);
+    }
+
+    /**
+     * Creates the profile of a document.
+     *
+     * @param path
+     *            The relative path of the document.
+     * @return The {@link DocumentProfile}.
+     */
+    public synchronized DocumentProfile document(String path) {
+        DocumentProfile documentProfile = new DocumentProfile(path);
+        documents.add(documentProfile);
+        return documentProfile;
+    }
+
+    private synchronized void record(String stage, long nanos, long allocatedBytes) {
+        stages.computeIfAbsent(stage, key -> new Statistics()).add(nanos, allocatedBytes);
+    }
+
+    /**
+     * Writes the profile as JSON file.
+     *
+     * @param file
+     *            The {@link File}.
+     * @throws IOException
+     *             If the file cannot be written.
+     */
+    public void write(File file) throws IOException {
+        File tempFile = File.createTempFile("profile", ".json", file.getAbsoluteFile().getParentFile());
+        try {
+            try (Writer writer = Files.newBufferedWriter(tempFile.toPath(), UTF_8)) {
+                writeJson(writer);
+            }
+            Files.move(tempFile.toPath(), file.toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    synchronized void writeJson(Writer writer) throws IOException {
+        long duration = durationNanos >= 0 ? durationNanos : System.nanoTime() - startNanos;
+        writer.write("{\n");
+        writer.write("  \"start\" : " + quote(start.toString()) + ",\n");
+        writer.write("  \"durationNanos\" : " + duration + ",\n");
+        writer.write("  \"allocationSupported\" : " + Allocation.isSupported() + ",\n");
+        writer.write("  \"stages\" : ");
+        writeStages(stages, writer, "  ");
+        writer.write(",\n  \"counters\" : ");
+        writeCounters(counters, writer);
+        writer.write(",\n  \"documents\" : [");
+        for (int i = 0; i < documents.size(); i++) {
+            DocumentProfile document = documents.get(i);
+            writer.write(i > 0 ? ",\n" : "\n");
+            synchronized (document) {
+                writer.write("    {\n");
+                writer.write("      \"path\" : " + quote(document.path) + ",\n");
+                writer.write("      \"stages\" : ");
+                writeStages(document.stages, writer, "      ");
+                writer.write(",\n      \"counters\" : ");
+                writeCounters(document.counters, writer);
+                writer.write("\n    }");
+            }
+        }
+        writer.write(documents.isEmpty() ? "]\n" : "\n  ]\n");
+        writer.write("}\n");
+    }
+
+    private static void writeStages(Map<String, Statistics> stages, Writer writer, String indent) throws IOException {
+        writer.write("{");
+        String separator = "\n";
+        for (Map.Entry<String, Statistics> entry : stages.entrySet()) {
+            Statistics statistics = entry.getValue();
+            writer.write(separator + indent + "  " + quote(entry.getKey()) + " : { \"count\" : " + statistics.count + ", \"nanos\" : " + statistics.nanos);
+            if (Allocation.isSupported()) {
+                writer.write(", \"allocatedBytes\" : " + statistics.allocatedBytes);
+            }
+            writer.write(" }");
+            separator = ",\n";
+        }
+        writer.write(stages.isEmpty() ? "}" : "\n" + indent + "}");
+    }
+
+    private static void writeCounters(Map<String, Long> counters, Writer writer) throws IOException {
+        writer.write("{");
+        String separator = " ";
+        for (Map.Entry<String, Long> entry : counters.entrySet()) {
+            writer.write(separator + quote(entry.getKey()) + " : " + entry.getValue());
+            separator = ", ";
+        }
+        writer.write(counters.isEmpty() ? "}" : " }");
+    }
+
+    private static String quote(String value) {
+        StringBuilder builder = new StringBuilder(value.length() + 2).append('"');
+        for (char c : value.toCharArray()) {
+            switch (c) {
+            case '"':
+                builder.append("\\\"");
+                break;
+            case '\\':
+                builder.append("\\\\");
+                break;
+            default:
+                if (c < 0x20) {
+                    builder.append(String.format("\\u%04x", (int) c));
+                } else {
+                    builder.append(c);
+                }
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    /**
+     * The measurement of a stage, closing it records the stage.
+     */
+    @FunctionalInterface
+    public interface Measurement extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+    /**
+     * The stages and counters recorded for a document.
+     */
+    public static final class DocumentProfile {
+
+        private final String path;
+
+        private final Map<String, Statistics> stages = new LinkedHashMap<>();
+
+        private final Map<String, Long> counters = new TreeMap<>();
+
+        private DocumentProfile(String path) {
+            this.path = path;
+        }
+
+        /**
+         * Starts a stage of the document.
+         *
+         * @param stage
+         *            The name of the stage.
+         * @return The {@link Measurement} which must be closed at the end of the
+         *         stage.
+         */
+        public Measurement measure(String stage) {
+            return new StageMeasurement(this::record, stage);
+        }
+
+        /**
+         * Increments a counter of the document.
+         *
+         * @param counter
+         *            The name of the counter.
+         * @param delta
+         *            The value to add.
+         */
+        public synchronized void count(String counter, long delta) {
+            counters.merge(counter, delta, Long::sum);
+        }
+
+        private synchronized void record(String stage, long nanos, long allocatedBytes) {
+            stages.computeIfAbsent(stage, key -> new Statistics()).add(nanos, allocatedBytes);
+        }
+    }
+
+    private interface Recorder {
+
+        void record(String stage, long nanos, long allocatedBytes);
+    }
+
+    private static final class StageMeasurement implements Measurement {
+
+        private final Recorder recorder;
+        private final String stage;
+        private final long startNanos;
+        private final long startAllocatedBytes;
+
+        private StageMeasurement(Recorder recorder, String stage) {
+            this.recorder = recorder;
+            this.stage = stage;
+            this.startAllocatedBytes = Allocation.getAllocatedBytes();
+            this.startNanos = System.nanoTime();
+        }
+
+        @Override
+        public void close() {
+            long nanos = System.nanoTime() - startNanos;
+            recorder.record(stage, nanos, Allocation.getAllocatedBytes() - startAllocatedBytes);
+        }
+    }
+
+    private static final class Statistics {
+
+        private long count;
+        private long nanos;
+        private long allocatedBytes;
+
+        private void add(long nanos, long allocatedBytes) {
+            this.count++;
+            this.nanos += nanos;
+            this.allocatedBytes += allocatedBytes;
+        }
+    }
+
+    /**
+     * Provides the bytes allocated by the current thread if supported by the
+     * JVM.
+     */
+    private static final class Allocation {
+
+        private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = getThreadMXBean();
+
+        private static com.sun.management.ThreadMXBean getThreadMXBean() {
+            try {
+                ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+                if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+                    com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+                    if (sunThreadMXBean.isThreadAllocatedMemorySupported() && sunThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+                        return sunThreadMXBean;
+                    }
+                }
+            } catch (LinkageError | UnsupportedOperationException e) {
+                // not supported by the JVM
+            }
+            return null;
+        }
+
+        private static boolean isSupported() {
+            return THREAD_MX_BEAN != null;
+        }
+
+        private static long getAllocatedBytes() {
+            return THREAD_MX_BEAN != null ? THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+        }
+    }
+}
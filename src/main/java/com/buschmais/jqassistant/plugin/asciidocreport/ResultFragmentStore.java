@@ -0,0 +1,244 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Stores the rendered result tables of a report run, i.e. the table of a rule
+ * is rendered only once and copied into all documents embedding it.
+ * <p>
+ * Fragments are kept in memory in least-recently-used order until the
+ * configured budget of characters is exhausted, the least recently used
+ * fragments are spilled to a temporary file and read back on demand. Fragments
+ * larger than the budget are spilled immediately.
+ * <p>
+ * The temporary file is deleted if the store is closed.
+ */
+final class ResultFragmentStore implements Closeable {
+
+    private final long inMemoryChars;
+
+    /**
+     * The fragments kept in memory in access order.
+     */
+    private final LinkedHashMap<String, String> fragments = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * The offsets and lengths of the spilled fragments.
+     */
+    private final Map<String, long[]> spilledFragments = new HashMap<>();
+
+    /**
+     * The locks per key ensuring that a fragment is rendered only once.
+     */
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    /**
+     * The outcomes of the files written once per report run (e.g. CSV files of
+     * truncated tables).
+     */
+    private final ConcurrentMap<Path, CompletableFuture<Boolean>> writtenFiles = new ConcurrentHashMap<>();
+
+    private long charsInMemory = 0;
+
+    private long spilledBytes = 0;
+
+    private long renderedFragments = 0;
+
+    private long reusedFragments = 0;
+
+    private Path file;
+
+    private FileChannel channel;
+
+    /**
+     * Constructor.
+     *
+     * @param inMemoryChars
+     *            The maximum number of characters to keep in memory.
+     */
+    ResultFragmentStore(long inMemoryChars) {
+        this.inMemoryChars = inMemoryChars;
+    }
+
+    /**
+     * Return a fragment, it is rendered if it has not been stored before.
+     *
+     * @param key
+     *            The key of the fragment.
+     * @param renderer
+     *            The renderer of the fragment.
+     * @return The fragment.
+     * @throws UncheckedIOException
+     *             If a spilled fragment cannot be read or written.
+     */
+    String get(String key, Supplier<String> renderer) {
+        synchronized (locks.computeIfAbsent(key, k -> new Object())) {
+            String fragment = lookup(key);
+            if (fragment != null) {
+                return fragment;
+            }
+            fragment = renderer.get();
+            put(key, fragment);
+            return fragment;
+        }
+    }
+
+    /**
+     * Writes a file once during the report run.
+     * <p>
+     * The first caller for a file executes the writer, concurrent and subsequent
+     * callers wait for and return its outcome, i.e. a file is only linked if it
+     * has been written successfully.
+     *
+     * @param path
+     *            The {@link Path} of the file.
+     * @param writer
+     *            The writer of the file returning <code>true</code> if the file
+     *            has been written.
+     * @return <code>true</code> if the file has been written.
+     */
+    boolean write(Path path, BooleanSupplier writer) {
+        CompletableFuture<Boolean> outcome = new CompletableFuture<>();
+        CompletableFuture<Boolean> existingOutcome = writtenFiles.putIfAbsent(path.toAbsolutePath(), outcome);
+        if (existingOutcome != null) {
+            return existingOutcome.join();
+        }
+        boolean written = false;
+        try {
+            written = writer.getAsBoolean();
+        } finally {
+            outcome.complete(written);
+        }
+        return written;
+    }
+
+    /**
+     * Return the number of rendered fragments.
+     *
+     * @return The number of fragments.
+     */
+    synchronized long getRenderedFragments() {
+        return renderedFragments;
+    }
+
+    /**
+     * Return the number of fragments which have been reused.
+     *
+     * @return The number of fragments.
+     */
+    synchronized long getReusedFragments() {
+        return reusedFragments;
+    }
+
+    /**
+     * Return the number of bytes which have been spilled to disk.
+     *
+     * @return The number of bytes.
+     */
+    synchronized long getSpilledBytes() {
+        return spilledBytes;
+    }
+
+    private synchronized String lookup(String key) {
+        String fragment = fragments.get(key);
+        if (fragment == null) {
+            long[] spilledFragment = spilledFragments.get(key);
+            if (spilledFragment == null) {
+                return null;
+            }
+            fragment = read(spilledFragment[0], (int) spilledFragment[1]);
+        }
+        reusedFragments++;
+        return fragment;
+    }
+
+    private synchronized void put(String key, String fragment) {
+        renderedFragments++;
+        if (fragment.length() > inMemoryChars) {
+            spill(key, fragment);
+            return;
+        }
+        fragments.put(key, fragment);
+        charsInMemory += fragment.length();
+        Iterator<Map.Entry<String, String>> iterator = fragments.entrySet().iterator();
+        while (charsInMemory > inMemoryChars && iterator.hasNext()) {
+            Map.Entry<String, String> eldest = iterator.next();
+            iterator.remove();
+            charsInMemory -= eldest.getValue().length();
+            if (!spilledFragments.containsKey(eldest.getKey())) {
+                spill(eldest.getKey(), eldest.getValue());
+            }
+        }
+    }
+
+    private void spill(String key, String fragment) {
+        byte[] bytes = fragment.getBytes(UTF_8);
+        try {
+            if (channel == null) {
+                file = Files.createTempFile("jqassistant-asciidoc-report-", ".fragments");
+                file.toFile().deleteOnExit();
+                channel = FileChannel.open(file, READ, WRITE);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            long position = spilledBytes;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot spill result fragment to " + file, e);
+        }
+        spilledFragments.put(key, new long[] { spilledBytes, bytes.length });
+        spilledBytes += bytes.length;
+    }
+
+    private String read(long offset, int length) {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        try {
+            long position = offset;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new IOException("Unexpected end of file at offset " + position);
+                }
+                position += read;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read result fragment from " + file, e);
+        }
+        return new String(buffer.array(), UTF_8);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        fragments.clear();
+        spilledFragments.clear();
+        charsInMemory = 0;
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } finally {
+            channel = null;
+            if (file != null) {
+                Files.deleteIfExists(file);
+                file = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.output.CountingOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Stores the rows of {@link RuleResult}s.
+ * <p>
+ * Rows are kept in memory until the configured budget is exhausted, all
+ * further rows are spilled to a temporary file and read back sequentially by
+ * the {@link ResultRows} they belong to. The rows of a result are appended
+ * using a {@link ResultRows.Builder}, only one builder may be active at a time
+ * as the spilled rows of a result are stored as contiguous segment.
+ * <p>
+ * The temporary file is deleted if the store is closed.
+ */
+public class ResultRowStore implements Closeable {
+
+    /**
+     * The maximum number of distinct values to intern, values beyond that limit
+     * are used as they are.
+     */
+    private static final int MAX_INTERNED_VALUES = 65536;
+
+    private final long inMemoryRows;
+
+    private final Map<String, String> internedValues = new HashMap<>();
+
+    private long rowsInMemory = 0;
+
+    private long spilledRows = 0;
+
+    private long spilledBytes = 0;
+
+    private Path file;
+
+    private CountingOutputStream countingOutput;
+
+    private DataOutputStream output;
+
+    /**
+     * Constructor.
+     *
+     * @param inMemoryRows
+     *            The maximum number of rows to keep in memory.
+     */
+    public ResultRowStore(long inMemoryRows) {
+        this.inMemoryRows = inMemoryRows;
+    }
+
+    /**
+     * Create a {@link ResultRows.Builder} for the rows of a result.
+     *
+     * @param columnNames
+     *            The column names of the result.
+     * @return The {@link ResultRows.Builder}.
+     */
+    public ResultRows.Builder builder(List<String> columnNames) {
+        return new ResultRows.Builder(this, columnNames);
+    }
+
+    /**
+     * Return the total number of stored rows.
+     *
+     * @return The number of rows.
+     */
+    public synchronized long getStoredRows() {
+        return rowsInMemory + spilledRows;
+    }
+
+    /**
+     * Return the number of rows which have been spilled to disk.
+     *
+     * @return The number of rows.
+     */
+    public synchronized long getSpilledRows() {
+        return spilledRows;
+    }
+
+    /**
+     * Return the number of bytes which have been spilled to disk.
+     *
+     * @return The number of bytes.
+     */
+    public synchronized long getSpilledBytes() {
+        return spilledBytes;
+    }
+
+    /**
+     * Determines if a row may be kept in memory and reserves it from the budget.
+     *
+     * @return <code>true</code> if the row may be kept in memory.
+     */
+    synchronized boolean reserveInMemory() {
+        if (rowsInMemory < inMemoryRows) {
+            rowsInMemory++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Interns a value of an in-memory row, i.e. equal labels (e.g. type or
+     * package names) returned by several rows or results share one instance.
+     *
+     * @param value
+     *            The value.
+     * @return The interned value.
+     */
+    synchronized String intern(String value) {
+        String internedValue = internedValues.get(value);
+        if (internedValue != null) {
+            return internedValue;
+        }
+        if (internedValues.size() < MAX_INTERNED_VALUES) {
+            internedValues.put(value, value);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the current offset of the spill file, i.e. the start of the next
+     * spilled row.
+     *
+     * @return The offset.
+     */
+    synchronized long getOffset() {
+        return spilledBytes;
+    }
+
+    /**
+     * Spills a row.
+     *
+     * @param columnNames
+     *            The column names of the result.
+     * @param row
+     *            The row.
+     * @throws IOException
+     *             If the row cannot be written.
+     */
+    synchronized void spill(List<String> columnNames, Map<String, List<String>> row) throws IOException {
+        if (output == null) {
+            file = Files.createTempFile("jqassistant-asciidoc-report-", ".rows");
+            file.toFile().deleteOnExit();
+            countingOutput = new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+            output = new DataOutputStream(countingOutput);
+        }
+        output.writeInt(row.size());
+        for (Map.Entry<String, List<String>> entry : row.entrySet()) {
+            int columnIndex = columnNames.indexOf(entry.getKey());
+            output.writeInt(columnIndex);
+            if (columnIndex < 0) {
+                writeString(entry.getKey());
+            }
+            List<String> values = entry.getValue();
+            output.writeInt(values.size());
+            for (String value : values) {
+                writeString(value);
+            }
+        }
+        spilledRows++;
+        spilledBytes = countingOutput.getByteCount();
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(UTF_8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+    }
+
+    /**
+     * Flushes all spilled rows, making them available for reading.
+     *
+     * @throws IOException
+     *             If the rows cannot be flushed.
+     */
+    synchronized void flush() throws IOException {
+        if (output != null) {
+            output.flush();
+        }
+    }
+
+    /**
+     * Opens a stream for reading spilled rows starting at the given offset.
+     *
+     * @param offset
+     *            The offset.
+     * @return The {@link DataInputStream}.
+     * @throws IOException
+     *             If the file cannot be opened.
+     */
+    synchronized DataInputStream open(long offset) throws IOException {
+        FileChannel channel = FileChannel.open(file, READ);
+        channel.position(offset);
+        return new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+    }
+
+    /**
+     * Reads a spilled row.
+     *
+     * @param input
+     *            The {@link DataInputStream}.
+     * @param columnNames
+     *            The column names of the result.
+     * @param row
+     *            The {@link Map} to add the columns to.
+     * @throws IOException
+     *             If the row cannot be read.
+     */
+    static void read(DataInputStream input, List<String> columnNames, Map<String, List<String>> row) throws IOException {
+        int columns = input.readInt();
+        for (int i = 0; i < columns; i++) {
+            int columnIndex = input.readInt();
+            String columnName = columnIndex >= 0 ? columnNames.get(columnIndex) : readString(input);
+            int valueCount = input.readInt();
+            List<String> values = new ArrayList<>(valueCount);
+            for (int j = 0; j < valueCount; j++) {
+                values.add(readString(input));
+            }
+            row.put(columnName, values);
+        }
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        internedValues.clear();
+        if (output != null) {
+            output.close();
+            output = null;
+            countingOutput = null;
+        }
+        if (file != null) {
+            Files.deleteIfExists(file);
+            file = null;
+        }
+    }
+}
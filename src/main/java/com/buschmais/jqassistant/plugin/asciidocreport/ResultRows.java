@@ -0,0 +1,243 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+/**
+ * The rows of a {@link RuleResult} which are managed by a
+ * {@link ResultRowStore}.
+ * <p>
+ * The first rows are held in memory as {@link ColumnarRow}s, the remaining rows (if any) have been
+ * spilled as contiguous segment to the file of the {@link ResultRowStore}.
+ * Spilled rows are read sequentially, therefore iterating is the preferred way
+ * of accessing the rows. Each {@link RowIterator} uses its own stream which is
+ * closed after the last row has been read, an iterator which is not exhausted
+ * must be closed explicitly (see {@link #iterate(List)}).
+ */
+public class ResultRows extends AbstractList<Map<String, List<String>>> {
+
+    private final ResultRowStore store;
+
+    private final List<String> columnNames;
+
+    private final List<Map<String, List<String>>> inMemoryRows;
+
+    private final long offset;
+
+    private final int spilledRows;
+
+    private ResultRows(ResultRowStore store, List<String> columnNames, List<Map<String, List<String>>> inMemoryRows, long offset, int spilledRows) {
+        this.store = store;
+        this.columnNames = columnNames;
+        this.inMemoryRows = inMemoryRows;
+        this.offset = offset;
+        this.spilledRows = spilledRows;
+    }
+
+    @Override
+    public int size() {
+        return inMemoryRows.size() + spilledRows;
+    }
+
+    /**
+     * Return the row at the given index.
+     * <p>
+     * Spilled rows do not provide an index of their positions within the file,
+     * therefore the segment is read from its start, i.e. random access to all
+     * spilled rows is quadratic. Use {@link #iterate(List)} for reading the
+     * rows sequentially.
+     */
+    @Override
+    public Map<String, List<String>> get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        if (index < inMemoryRows.size()) {
+            return inMemoryRows.get(index);
+        }
+        try (RowIterator iterator = iterator()) {
+            for (int i = 0; i < index; i++) {
+                iterator.next();
+            }
+            return iterator.next();
+        }
+    }
+
+    @Override
+    public RowIterator iterator() {
+        if (spilledRows == 0) {
+            return iterate(Collections.unmodifiableList(inMemoryRows).iterator());
+        }
+        return new SpilledRowIterator();
+    }
+
+    /**
+     * Return a {@link RowIterator} for the rows of a {@link RuleResult}, which
+     * may be {@link ResultRows} or any other {@link List}.
+     * <p>
+     * The iterator must be closed if it is not exhausted, e.g. if only the
+     * first rows are read:
+     *
+     * <pre>
+     * try (RowIterator iterator = ResultRows.iterate(result.getRows())) {
+     *     ...
+     * }
+     * </pre>
+     *
+     * @param rows
+     *            The rows.
+     * @return The {@link RowIterator}.
+     */
+    public static RowIterator iterate(List<Map<String, List<String>>> rows) {
+        if (rows instanceof ResultRows) {
+            return ((ResultRows) rows).iterator();
+        }
+        return iterate(rows.iterator());
+    }
+
+    private static RowIterator iterate(Iterator<Map<String, List<String>>> iterator) {
+        return new RowIterator() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Map<String, List<String>> next() {
+                return iterator.next();
+            }
+
+            @Override
+            public void close() {
+                // nothing to release
+            }
+        };
+    }
+
+    /**
+     * An {@link Iterator} over rows which holds resources until all rows have
+     * been read or it is closed.
+     */
+    public interface RowIterator extends Iterator<Map<String, List<String>>>, Closeable {
+
+        @Override
+        void close();
+    }
+
+    /**
+     * Iterates over the in-memory rows followed by the spilled rows.
+     */
+    private class SpilledRowIterator implements RowIterator {
+
+        private final Iterator<Map<String, List<String>>> inMemoryIterator = inMemoryRows.iterator();
+
+        private DataInputStream input;
+
+        private int readRows = 0;
+
+        @Override
+        public boolean hasNext() {
+            return inMemoryIterator.hasNext() || readRows < spilledRows;
+        }
+
+        @Override
+        public Map<String, List<String>> next() {
+            if (inMemoryIterator.hasNext()) {
+                return inMemoryIterator.next();
+            }
+            if (readRows >= spilledRows) {
+                throw new NoSuchElementException();
+            }
+            try {
+                if (input == null) {
+                    input = store.open(offset);
+                }
+                Map<String, List<String>> row = new LinkedHashMap<>();
+                ResultRowStore.read(input, columnNames, row);
+                readRows++;
+                if (readRows == spilledRows) {
+                    close();
+                }
+                return row;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read spilled result rows.", e);
+            }
+        }
+
+        @Override
+        public void close() {
+            // no further spilled rows are read after closing
+            readRows = spilledRows;
+            if (input != null) {
+                try {
+                    input.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot close spilled result rows.", e);
+                }
+                input = null;
+            }
+        }
+    }
+
+    /**
+     * Builder for {@link ResultRows}, rows are kept in memory as long as the
+     * budget of the {@link ResultRowStore} allows it.
+     */
+    public static class Builder {
+
+        private final ResultRowStore store;
+
+        private final List<String> columnNames;
+
+        private final List<Map<String, List<String>>> inMemoryRows = new ArrayList<>();
+
+        private long offset = -1;
+
+        private int spilledRows = 0;
+
+        Builder(ResultRowStore store, List<String> columnNames) {
+            this.store = store;
+            this.columnNames = columnNames;
+        }
+
+        /**
+         * Add a row.
+         *
+         * @param row
+         *            The row.
+         * @return The {@link Builder}.
+         * @throws IOException
+         *             If the row cannot be spilled.
+         */
+        public Builder row(Map<String, List<String>> row) throws IOException {
+            // once spilling started all further rows must be spilled to keep the segment contiguous
+            if (spilledRows == 0 && store.reserveInMemory()) {
+                inMemoryRows.add(ColumnarRow.of(columnNames, row, store::intern));
+            } else {
+                if (spilledRows == 0) {
+                    offset = store.getOffset();
+                }
+                store.spill(columnNames, row);
+                spilledRows++;
+            }
+            return this;
+        }
+
+        /**
+         * Build the {@link ResultRows}.
+         *
+         * @return The {@link ResultRows}.
+         * @throws IOException
+         *             If the spilled rows cannot be flushed.
+         */
+        public ResultRows build() throws IOException {
+            if (spilledRows > 0) {
+                store.flush();
+            }
+            return new ResultRows(store, columnNames, inMemoryRows, offset, spilledRows);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Predicate;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * Scans a rule directory for files accepted by a filter.
+ * <p>
+ * The directory tree is walked in parallel. Sub-directories are skipped if they
+ * cannot contain a file matching the include patterns (e.g. "reports/*.adoc"
+ * only requires the directory "reports") or if they are excluded completely
+ * (e.g. "archive/**"). The patterns are only used for pruning, each file is
+ * still verified by the filter.
+ * <p>
+ * Optionally the listings of the directories are taken from a
+ * {@link DirectoryListingCache}, i.e. only directories whose modification time
+ * has changed are listed again.
+ */
+final class RuleDirectoryScanner {
+
+    private static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    private final Path ruleDirectory;
+
+    /**
+     * The include patterns, <code>null</code> if any directory may contain
+     * included files.
+     */
+    private final List<String> includes;
+
+    /**
+     * The directories excluded completely.
+     */
+    private final List<String> excludedDirectories;
+
+    private final Predicate<String> filter;
+
+    private final DirectoryListingCache directoryListingCache;
+
+    /**
+     * Constructor.
+     *
+     * @param ruleDirectory
+     *            The rule directory.
+     * @param fileInclude
+     *            The comma separated include patterns, may be <code>null</code>.
+     * @param fileExclude
+     *            The comma separated exclude patterns, may be <code>null</code>.
+     * @param filter
+     *            The filter for the relative paths of files.
+     * @param directoryListingCache
+     *            The optional {@link DirectoryListingCache}, may be
+     *            <code>null</code>.
+     */
+    RuleDirectoryScanner(Path ruleDirectory, String fileInclude, String fileExclude, Predicate<String> filter,
+            DirectoryListingCache directoryListingCache) {
+        this.ruleDirectory = ruleDirectory;
+        this.includes = getIncludes(fileInclude);
+        this.excludedDirectories = getExcludedDirectories(fileExclude);
+        this.filter = filter;
+        this.directoryListingCache = directoryListingCache;
+    }
+
+    /**
+     * Scans the rule directory.
+     *
+     * @return The relative paths of the accepted files in natural order.
+     * @throws IOException
+     *             If a directory cannot be read.
+     */
+    List<String> scan() throws IOException {
+        if (!Files.isDirectory(ruleDirectory)) {
+            return emptyList();
+        }
+        Queue<String> files = new ConcurrentLinkedQueue<>();
+        ForkJoinPool pool = new ForkJoinPool(THREADS);
+        try {
+            pool.invoke(new DirectoryScan("", files));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+        List<String> result = new ArrayList<>(files);
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * Determines if a directory may contain files which are accepted.
+     *
+     * @param directory
+     *            The relative path of the directory.
+     * @return <code>false</code> if the directory can be skipped.
+     */
+    boolean isCandidate(String directory) {
+        String directoryPrefix = directory + "/";
+        for (String excludedDirectory : excludedDirectories) {
+            if (startsWithIgnoreCase(directoryPrefix, excludedDirectory + "/")) {
+                return false;
+            }
+        }
+        if (includes == null) {
+            return true;
+        }
+        for (String include : includes) {
+            int wildcard = indexOfWildcard(include);
+            String literal = wildcard < 0 ? include : include.substring(0, wildcard);
+            // the directory is an ancestor of the literal part or within a directory matched by wildcards
+            if (startsWithIgnoreCase(literal, directoryPrefix) || (wildcard >= 0 && startsWithIgnoreCase(directoryPrefix, literal))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<String> getIncludes(String fileInclude) {
+        List<String> includes = split(fileInclude);
+        if (includes.isEmpty()) {
+            return null;
+        }
+        for (String include : includes) {
+            if (!isPlainPattern(include)) {
+                // unknown syntax, no pruning
+                return null;
+            }
+        }
+        return includes;
+    }
+
+    private static List<String> getExcludedDirectories(String fileExclude) {
+        List<String> excludedDirectories = new ArrayList<>();
+        for (String exclude : split(fileExclude)) {
+            if (exclude.endsWith("/**")) {
+                String directory = exclude.substring(0, exclude.length() - 3);
+                if (!directory.isEmpty() && isPlainPattern(directory) && indexOfWildcard(directory) < 0) {
+                    excludedDirectories.add(directory);
+                }
+            }
+        }
+        return excludedDirectories;
+    }
+
+    private static List<String> split(String patterns) {
+        List<String> result = new ArrayList<>();
+        if (patterns != null) {
+            for (String pattern : patterns.split(",")) {
+                String trimmedPattern = pattern.trim();
+                if (!trimmedPattern.isEmpty()) {
+                    result.add(trimmedPattern);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Determines if a pattern is a relative path which may only contain the
+     * wildcards "*" and "?".
+     */
+    private static boolean isPlainPattern(String pattern) {
+        if (pattern.startsWith("/") || pattern.contains("./")) {
+            return false;
+        }
+        for (char c : pattern.toCharArray()) {
+            if (c == '\\' || c == '[' || c == ']' || c == '{' || c == '}' || c == ':') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOfWildcard(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*' || c == '?') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean startsWithIgnoreCase(String value, String prefix) {
+        return value.regionMatches(true, 0, prefix, 0, prefix.length());
+    }
+
+    private DirectoryListingCache.Listing list(String directory) throws IOException {
+        Path path = directory.isEmpty() ? ruleDirectory : ruleDirectory.resolve(directory);
+        long lastModified = 0;
+        if (directoryListingCache != null) {
+            lastModified = Files.getLastModifiedTime(path).toMillis();
+            Optional<DirectoryListingCache.Listing> listing = directoryListingCache.get(directory, lastModified);
+            if (listing.isPresent()) {
+                return listing.get();
+            }
+        }
+        List<String> files = new ArrayList<>();
+        List<String> directories = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(path)) {
+            for (Path entry : entries) {
+                BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                String name = entry.getFileName().toString();
+                if (attributes.isDirectory()) {
+                    directories.add(name);
+                } else if (attributes.isRegularFile() || (attributes.isSymbolicLink() && Files.isRegularFile(entry))) {
+                    files.add(name);
+                }
+            }
+        }
+        DirectoryListingCache.Listing listing = new DirectoryListingCache.Listing(files, directories);
+        if (directoryListingCache != null) {
+            directoryListingCache.put(directory, lastModified, listing);
+        }
+        return listing;
+    }
+
+    /**
+     * Scans a directory and forks the scans of its candidate sub-directories.
+     */
+    private final class DirectoryScan extends RecursiveAction {
+
+        private final String directory;
+
+        private final Queue<String> result;
+
+        private DirectoryScan(String directory, Queue<String> result) {
+            this.directory = directory;
+            this.result = result;
+        }
+
+        @Override
+        protected void compute() {
+            DirectoryListingCache.Listing listing;
+            try {
+                listing = list(directory);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            String prefix = directory.isEmpty() ? "" : directory + "/";
+            for (String file : listing.getFiles()) {
+                String relativePath = prefix + file;
+                if (filter.test(relativePath)) {
+                    result.add(relativePath);
+                }
+            }
+            List<DirectoryScan> scans = new ArrayList<>();
+            for (String subDirectory : listing.getDirectories()) {
+                String relativePath = prefix + subDirectory;
+                if (isCandidate(relativePath)) {
+                    scans.add(new DirectoryScan(relativePath, result));
+                }
+            }
+            invokeAll(scans);
+        }
+    }
+}
@@ -1,127 +1,537 @@
 package com.buschmais.jqassistant.plugin.asciidocreport;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Map;
+import java.util.Optional;
 
 import com.buschmais.jqassistant.core.rule.api.model.ExecutableRule;
 
+import org.apache.commons.lang3.StringEscapeUtils;
 import org.asciidoctor.ast.Document;
 import org.asciidoctor.extension.Postprocessor;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
 
 import static com.buschmais.jqassistant.core.report.api.model.Result.Status.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
 
 /**
  * {@link Postprocessor} that hides listing blocks of concepts and constraints
  * by default and adds a toggle to show them.
+ * <p>
+ * If the {@link DocumentContext} provides an output file the processed HTML is
+ * streamed to a temporary file next to it and an empty document is returned to
+ * the converter, i.e. no second copy of the whole output is created. The
+ * temporary file is moved to the output file after the conversion.
  */
 public class RulePostProcessor extends Postprocessor {
 
-    private final Map<String, RuleResult> conceptResults;
-    private final Map<String, RuleResult> constraintResults;
-
-    public RulePostProcessor(Map<String, RuleResult> conceptResults, Map<String, RuleResult> constraintResults) {
-        this.conceptResults = conceptResults;
-        this.constraintResults = constraintResults;
-    }
+    private static final int BUFFER_SIZE = 64 * 1024;
 
     @Override
     public String process(Document document, String output) {
-        if (document.basebackend("html")) {
-            return HtmlRulePostProcessor.process(conceptResults, constraintResults, output);
+        Optional<DocumentContext> documentContext = DocumentContext.current();
+        if (documentContext.isPresent() && document.basebackend("html")) {
+            try (ReportProfile.Measurement measurement = documentContext.get().measure("postprocess")) {
+                documentContext.get().count("outputChars", output.length());
+                File outputFile = documentContext.get().getOutputFile();
+                if (outputFile != null) {
+                    stream(documentContext.get(), outputFile, output);
+                    return "";
+                }
+                StringWriter writer = new StringWriter(output.length());
+                try {
+                    process(documentContext.get(), new StringReader(output), writer);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Cannot process HTML output", e);
+                }
+                return writer.toString();
+            }
         }
         return output;
     }
 
+    private void stream(DocumentContext documentContext, File outputFile, String output) {
+        try {
+            Path directory = outputFile.getAbsoluteFile().getParentFile().toPath();
+            Files.createDirectories(directory);
+            Path streamedOutputFile = directory.resolve(outputFile.getName() + ".tmp");
+            documentContext.setStreamedOutputFile(streamedOutputFile.toFile());
+            try (Writer writer = new BufferedWriter(
+                    Channels.newWriter(FileChannel.open(streamedOutputFile, CREATE, WRITE, TRUNCATE_EXISTING), UTF_8.newEncoder(), BUFFER_SIZE),
+                    BUFFER_SIZE)) {
+                process(documentContext, new StringReader(output), writer);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot write HTML output to " + outputFile, e);
+        }
+    }
+
+    /**
+     * Processes the HTML output, the loader of lazy result tables is added to
+     * the head if the document contains such tables.
+     */
+    private void process(DocumentContext documentContext, Reader reader, Writer writer) throws IOException {
+        String head = documentContext.isLazyResultLoaderRequired() ? LazyResultTable.LOADER : "";
+        HtmlRulePostProcessor.process(documentContext.getConceptResults(), documentContext.getConstraintResults(), head, reader, writer);
+    }
+
+    /**
+     * Rewrites the HTML output in a single forward pass.
+     * <p>
+     * Markup outside of concept and constraint blocks is copied unchanged, only
+     * a rule block is buffered until its end tag has been read. Therefore the
+     * required memory is bounded by the size of the largest rule block.
+     * <p>
+     * Rule blocks nested into other rule blocks are rewritten as soon as their
+     * end tag has been read, the result is added to the buffer of the enclosing
+     * rule block. The title and listing of the enclosing rule block are only
+     * searched before its first nested rule block.
+     */
     public static class HtmlRulePostProcessor {
 
+        private static final String TOGGLE = "<input type=\"checkbox\" class=\"jqassistant-rule-toggle\" title=\"Rule details\">";
+
+        private static final String LISTING_CLASS = "jqassistant-rule-listing";
+
+        /**
+         * The styles of a document, their size does not depend on the number of
+         * rules.
+         */
+        private static final String STYLES = getStyles();
+
+        private final Map<String, RuleResult> conceptResults;
+        private final Map<String, RuleResult> constraintResults;
+
+        /**
+         * The markup to add to the head, i.e. the styles and optional scripts.
+         */
+        private final String head;
+
+        private final Reader reader;
+        private final Writer writer;
+
+        private final char[] buffer = new char[8192];
+        private int position = 0;
+        private int limit = 0;
+
+        /**
+         * The currently open rule blocks, the innermost one is on top.
+         */
+        private final Deque<RuleBlock> ruleBlocks = new ArrayDeque<>();
+
+        private boolean stylesWritten = false;
+
+        private HtmlRulePostProcessor(Map<String, RuleResult> conceptResults, Map<String, RuleResult> constraintResults, String head,
+                Reader reader, Writer writer) {
+            this.conceptResults = conceptResults;
+            this.constraintResults = constraintResults;
+            this.head = head;
+            this.reader = reader;
+            this.writer = writer;
+        }
+
         static String process(Map<String, RuleResult> conceptResults, Map<String, RuleResult> constraintResults, String output) {
-            org.jsoup.nodes.Document doc = Jsoup.parse(output, "UTF-8");
-            List<String> contentIds = new ArrayList<>();
-            processRuleBlocks(doc, "concept", conceptResults, contentIds);
-            processRuleBlocks(doc, "constraint", constraintResults, contentIds);
-            addStyles(doc, contentIds);
-            return doc.html();
-        }
-
-        private static void processRuleBlocks(org.jsoup.nodes.Document doc, String ruleClass, Map<String, RuleResult> ruleResults, List<String> contentIds) {
-            Elements ruleBlocks = doc.getElementsByClass(ruleClass);
-            for (Element ruleBlock : ruleBlocks) {
-                addStatus(ruleBlock, ruleResults);
-                if (ruleBlock.hasClass("listingblock")) {
-                    hideListing(ruleBlock, contentIds);
+            StringWriter writer = new StringWriter(output.length());
+            try {
+                process(conceptResults, constraintResults, new StringReader(output), writer);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot process HTML output", e);
+            }
+            return writer.toString();
+        }
+
+        /**
+         * Processes the HTML provided by a {@link Reader} and writes the result to a
+         * {@link Writer}.
+         *
+         * @param conceptResults
+         *            The concept results.
+         * @param constraintResults
+         *            The constraint results.
+         * @param reader
+         *            The {@link Reader}.
+         * @param writer
+         *            The {@link Writer}.
+         * @throws IOException
+         *             If reading or writing fails.
+         */
+        static void process(Map<String, RuleResult> conceptResults, Map<String, RuleResult> constraintResults, Reader reader, Writer writer)
+                throws IOException {
+            process(conceptResults, constraintResults, "", reader, writer);
+        }
+
+        /**
+         * Processes the HTML provided by a {@link Reader} and writes the result to a
+         * {@link Writer}.
+         *
+         * @param conceptResults
+         *            The concept results.
+         * @param constraintResults
+         *            The constraint results.
+         * @param head
+         *            Additional markup to add to the head after the styles.
+         * @param reader
+         *            The {@link Reader}.
+         * @param writer
+         *            The {@link Writer}.
+         * @throws IOException
+         *             If reading or writing fails.
+         */
+        static void process(Map<String, RuleResult> conceptResults, Map<String, RuleResult> constraintResults, String head, Reader reader,
+                Writer writer) throws IOException {
+            new HtmlRulePostProcessor(conceptResults, constraintResults, head, reader, writer).process();
+        }
+
+        private void process() throws IOException {
+            int c;
+            while ((c = read()) != -1) {
+                if (c == '<' && isMarkupStart(peek())) {
+                    processMarkup(readMarkup());
+                } else {
+                    append((char) c);
+                }
+            }
+            while (!ruleBlocks.isEmpty()) {
+                // unbalanced rule block
+                complete(ruleBlocks.pop());
+            }
+            if (!stylesWritten) {
+                writer.write(STYLES);
+                writer.write(head);
+            }
+            writer.flush();
+        }
+
+        private void processMarkup(String markup) throws IOException {
+            if (markup.startsWith("<!")) {
+                // comment or doctype
+                append(markup);
+                return;
+            }
+            HtmlTag tag = HtmlTag.parse(markup);
+            RuleBlock ruleBlock = ruleBlocks.peek();
+            if (!tag.isEndTag() && (tag.hasClass("concept") || tag.hasClass("constraint"))) {
+                RuleBlock nestedRuleBlock = new RuleBlock(markup, tag.getName(), tag.hasClass("concept") ? conceptResults : constraintResults);
+                if (tag.isSelfClosing()) {
+                    complete(nestedRuleBlock);
+                } else {
+                    ruleBlocks.push(nestedRuleBlock);
+                }
+            } else if (ruleBlock != null) {
+                ruleBlock.markup.append(markup);
+                if (tag.getName().equals(ruleBlock.tag) && !tag.isSelfClosing()) {
+                    ruleBlock.depth += tag.isEndTag() ? -1 : 1;
+                    if (ruleBlock.depth == 0) {
+                        complete(ruleBlocks.pop());
+                    }
                 }
+            } else {
+                if (tag.isEndTag() && ("head".equals(tag.getName()) || "body".equals(tag.getName())) && !stylesWritten) {
+                    writer.write(STYLES);
+                    writer.write(head);
+                    stylesWritten = true;
+                }
+                writer.write(markup);
+            }
+            if (!tag.isEndTag() && ("script".equals(tag.getName()) || "style".equals(tag.getName()))) {
+                copyRawText(tag.getName());
+            }
+        }
+
+        /**
+         * Rewrites a completed rule block and appends the result to the enclosing
+         * rule block or writes it to the output.
+         *
+         * @param ruleBlock
+         *            The {@link RuleBlock}.
+         * @throws IOException
+         *             If writing fails.
+         */
+        private void complete(RuleBlock ruleBlock) throws IOException {
+            RuleBlock enclosingRuleBlock = ruleBlocks.peek();
+            if (enclosingRuleBlock != null && enclosingRuleBlock.nestedRuleBlockStart < 0) {
+                enclosingRuleBlock.nestedRuleBlockStart = enclosingRuleBlock.markup.length();
             }
+            int end = ruleBlock.nestedRuleBlockStart < 0 ? ruleBlock.markup.length() : ruleBlock.nestedRuleBlockStart;
+            append(rewriteRuleBlock(ruleBlock.markup, end, ruleBlock.results));
         }
 
-        private static void addStatus(Element ruleBlock, Map<String, RuleResult> ruleResults) {
-            Elements title = ruleBlock.getElementsByClass("title");
-            Element titleElement = title.first();
-            Element status;
-            if (titleElement != null) {
+        /**
+         * Rewrites a concept or constraint block: adds the status, and for listings a
+         * toggle for showing the content.
+         *
+         * @param ruleBlock
+         *            The markup of the rule block.
+         * @param end
+         *            The end index of the markup to search for the title and the
+         *            listing content.
+         * @param ruleResults
+         *            The {@link RuleResult}s.
+         * @return The rewritten markup.
+         */
+        private String rewriteRuleBlock(StringBuilder ruleBlock, int end, Map<String, RuleResult> ruleResults) {
+            int startTagEnd = getTagEnd(ruleBlock, 0);
+            HtmlTag startTag = HtmlTag.parse(ruleBlock.subSequence(0, startTagEnd));
+            int[] title = findStartTag(ruleBlock, startTagEnd, end, "title");
+            int[] content = startTag.hasClass("listingblock") ? findStartTag(ruleBlock, startTagEnd, end, "content") : null;
+            StringBuilder result = new StringBuilder(ruleBlock.length() + 512);
+            int index = 0;
+            String id = startTag.getAttribute("id");
+            String status = renderStatus(id != null ? ruleResults.get(id) : null);
+            if (title != null) {
                 // insert status before title
-                status = new Element("div");
-                titleElement.before(status);
-                titleElement.attr("style", "display:inline;");
+                result.append(ruleBlock, index, title[0]).append(status);
+                HtmlTag titleTag = HtmlTag.parse(ruleBlock.subSequence(title[0], title[1]));
+                titleTag.setAttribute("style", "display:inline;");
+                result.append(titleTag);
             } else {
-                //
-                status = ruleBlock.prependElement("div");
+                result.append(ruleBlock, index, startTagEnd).append(status);
+                title = new int[] { startTagEnd, startTagEnd };
+            }
+            index = title[1];
+            if (content != null && content[0] >= index) {
+                result.append(ruleBlock, index, content[0]).append(TOGGLE);
+                HtmlTag contentTag = HtmlTag.parse(ruleBlock.subSequence(content[0], content[1]));
+                contentTag.addClass(LISTING_CLASS);
+                result.append(contentTag);
+                index = content[1];
+            }
+            result.append(ruleBlock, index, ruleBlock.length());
+            return result.toString();
+        }
+
+        /**
+         * Find the first start tag declaring the given CSS class.
+         *
+         * @param markup
+         *            The markup.
+         * @param from
+         *            The index to start from.
+         * @param to
+         *            The index the tag must end before.
+         * @param cssClass
+         *            The CSS class.
+         * @return The start and end index of the tag or <code>null</code>.
+         */
+        private static int[] findStartTag(StringBuilder markup, int from, int to, String cssClass) {
+            int start = markup.indexOf("<", from);
+            while (start >= 0) {
+                int end = getTagEnd(markup, start);
+                if (end < 0 || end > to) {
+                    return null;
+                }
+                if (markup.charAt(start + 1) != '/' && markup.charAt(start + 1) != '!'
+                        && HtmlTag.parse(markup.subSequence(start, end)).hasClass(cssClass)) {
+                    return new int[] { start, end };
+                }
+                start = markup.indexOf("<", end);
             }
-            status.addClass("jqassistant-rule-status");
-            RuleResult ruleResult = ruleResults.get(ruleBlock.id());
+            return null;
+        }
+
+        private static int getTagEnd(StringBuilder markup, int start) {
+            char quote = 0;
+            for (int i = start + 1; i < markup.length(); i++) {
+                char c = markup.charAt(i);
+                if (quote != 0) {
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (c == '"' || c == '\'') {
+                    quote = c;
+                } else if (c == '>') {
+                    return i + 1;
+                }
+            }
+            return -1;
+        }
+
+        private static String renderStatus(RuleResult ruleResult) {
+            StringBuilder classes = new StringBuilder("jqassistant-rule-status");
+            String hover;
             if (ruleResult != null) {
                 ExecutableRule<?> rule = ruleResult.getRule();
-                status.addClass(StatusHelper.getStatusClass(ruleResult.getStatus()));
+                classes.append(' ').append(StatusHelper.getStatusClass(ruleResult.getStatus()));
                 switch (ruleResult.getStatus()) {
                 case SUCCESS:
-                    status.addClass("fa").addClass("fa-check");
+                    classes.append(" fa fa-check");
                     break;
                 case WARNING:
-                    status.addClass("fa").addClass("fa-exclamation");
+                    classes.append(" fa fa-exclamation");
                     break;
                 case FAILURE:
-                    status.addClass("fa").addClass("fa-ban");
+                    classes.append(" fa fa-ban");
                     break;
                 }
-                String hover = "Id: " + ruleResult.getRule()
+                hover = "Id: " + ruleResult.getRule()
                     .getId() + ", Status: " + ruleResult.getStatus() + ", Severity: " + ruleResult.getEffectiveSeverity()
                     .getInfo(rule.getSeverity());
-                status.attr("title", hover);
             } else {
-                status.addClass("fa").addClass("fa-question");
-                status.attr("title", "Rule has not been executed.");
+                classes.append(" fa fa-question");
+                hover = "Rule has not been executed.";
             }
+            return "<div class=\"" + classes + "\" title=\"" + StringEscapeUtils.escapeHtml4(hover) + "\"></div>";
         }
 
-        private static void hideListing(Element ruleBlock, List<String> contentIds) {
-            String contentId = "jqassistant-rule-listing" + contentIds.size();
-            contentIds.add(contentId);
-            Elements contents = ruleBlock.getElementsByClass("content");
-            Element content = contents.first();
-            content.before("<input type=\"checkbox\" class=\"jqassistant-rule-toggle\" title=\"Rule details\"/>");
-            contents.attr("id", contentId);
-        }
-
-        private static void addStyles(org.jsoup.nodes.Document doc, List<String> contentIds) {
+        private static String getStyles() {
             StringBuilder styles = new StringBuilder();
             styles.append("<style>\n");
-            for (String contentId : contentIds) {
-                styles.append("#").append(contentId).append("{\n");
-                styles.append("  display:none;\n"); // disable source content blocks by default
-                styles.append("}\n");
-                styles.append("input.jqassistant-rule-toggle:checked + #").append(contentId).append("{\n");
-                styles.append("  display:block;\n"); // activate them if the checkbox element is checked
-                styles.append("}\n");
-            }
+            styles.append(".").append(LISTING_CLASS).append("{\n");
+            styles.append("  display:none;\n"); // disable source content blocks by default
+            styles.append("}\n");
+            styles.append("input.jqassistant-rule-toggle:checked + .").append(LISTING_CLASS).append("{\n");
+            styles.append("  display:block;\n"); // activate them if the checkbox element is checked
+            styles.append("}\n");
             styles.append("." + StatusHelper.getStatusClass(SUCCESS) + "{color: green}");
             styles.append("." + StatusHelper.getStatusClass(WARNING) + "{color: orange}");
             styles.append("." + StatusHelper.getStatusClass(FAILURE) + "{color: crimson}");
             styles.append("." + StatusHelper.getStatusClass(SKIPPED) + "{color: gray}");
             styles.append("</style>\n");
-            doc.head().append(styles.toString());
+            return styles.toString();
+        }
+
+        private static boolean isMarkupStart(int c) {
+            return c == '/' || c == '!' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+        }
+
+        /**
+         * Reads a tag, comment or doctype declaration, the leading '&lt;' has already
+         * been read.
+         *
+         * @return The markup.
+         * @throws IOException
+         *             If reading fails.
+         */
+        private String readMarkup() throws IOException {
+            StringBuilder markup = new StringBuilder("<");
+            if (peek() == '!') {
+                int c;
+                while ((c = read()) != -1) {
+                    markup.append((char) c);
+                    if (c == '>' && (markup.length() < 4 || !"<!--".equals(markup.substring(0, 4)) || markup.toString().endsWith("-->"))) {
+                        break;
+                    }
+                }
+                return markup.toString();
+            }
+            char quote = 0;
+            int c;
+            while ((c = read()) != -1) {
+                markup.append((char) c);
+                if (quote != 0) {
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (c == '"' || c == '\'') {
+                    quote = (char) c;
+                } else if (c == '>') {
+                    break;
+                }
+            }
+            return markup.toString();
+        }
+
+        /**
+         * Copies the content of a raw text element (i.e. script or style) up to its
+         * end tag.
+         *
+         * @param name
+         *            The name of the element.
+         * @throws IOException
+         *             If reading or writing fails.
+         */
+        private void copyRawText(String name) throws IOException {
+            String endTag = "</" + name;
+            int matched = 0;
+            int c;
+            while (matched < endTag.length() && (c = read()) != -1) {
+                append((char) c);
+                matched = Character.toLowerCase((char) c) == endTag.charAt(matched) ? matched + 1 : (c == '<' ? 1 : 0);
+            }
+            // copy the remainder of the end tag up to '>', it is not processed as markup
+            StringBuilder remainder = new StringBuilder();
+            while ((c = read()) != -1) {
+                remainder.append((char) c);
+                if (c == '>') {
+                    break;
+                }
+            }
+            append(remainder);
+        }
+
+        private void append(char c) throws IOException {
+            RuleBlock ruleBlock = ruleBlocks.peek();
+            if (ruleBlock != null) {
+                ruleBlock.markup.append(c);
+            } else {
+                writer.write(c);
+            }
+        }
+
+        private void append(CharSequence markup) throws IOException {
+            RuleBlock ruleBlock = ruleBlocks.peek();
+            if (ruleBlock != null) {
+                ruleBlock.markup.append(markup);
+            } else {
+                writer.append(markup);
+            }
+        }
+
+        private int read() throws IOException {
+            if (position == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position++];
+        }
+
+        private int peek() throws IOException {
+            int c = read();
+            if (c != -1) {
+                position--;
+            }
+            return c;
+        }
+
+        /**
+         * A concept or constraint block which has been started but not yet
+         * completed.
+         */
+        private static class RuleBlock {
+
+            private final StringBuilder markup;
+
+            private final String tag;
+
+            private final Map<String, RuleResult> results;
+
+            /**
+             * The index of the first nested rule block in the markup or -1.
+             */
+            private int nestedRuleBlockStart = -1;
+
+            /**
+             * The nesting depth of elements with the same name as the start tag.
+             */
+            private int depth = 1;
+
+            private RuleBlock(String startTag, String tag, Map<String, RuleResult> results) {
+                this.markup = new StringBuilder(startTag);
+                this.tag = tag;
+                this.results = results;
+            }
         }
     }
 }
@@ -11,9 +11,9 @@ import com.buschmais.jqassistant.core.rule.api.model.Severity;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
-import lombok.Singular;
 import lombok.ToString;
 
+import static java.util.Collections.emptyList;
 import static lombok.AccessLevel.PRIVATE;
 
 @Builder
@@ -30,8 +30,12 @@ public class RuleResult {
 
     private List<String> columnNames;
 
-    @Singular
-    private List<Map<String, List<String>>> rows;
+    /**
+     * The rows, possibly backed by a {@link ResultRowStore}.
+     */
+    @Builder.Default
+    @ToString.Exclude
+    private List<Map<String, List<String>>> rows = emptyList();
 
     private SubGraph subGraph;
 
@@ -2,6 +2,7 @@ package com.buschmais.jqassistant.plugin.asciidocreport;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
@@ -23,15 +24,44 @@ public class RuleSourceMatcher {
 
     private final FilePatternMatcher filePatternMatcher;
 
+    private final RuleDirectoryScanner ruleDirectoryScanner;
+
+    private final DirectoryListingCache directoryListingCache;
+
     RuleSourceMatcher(File ruleDirectory, String fileInclude, String fileExclude) {
+        this(ruleDirectory, fileInclude, fileExclude, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param ruleDirectory
+     *     The rule directory to scan, may be <code>null</code>.
+     * @param fileInclude
+     *     The include patterns, may be <code>null</code>.
+     * @param fileExclude
+     *     The exclude patterns, may be <code>null</code>.
+     * @param cacheDirectory
+     *     The directory for caching the listing of the rule directory, may be <code>null</code>.
+     */
+    RuleSourceMatcher(File ruleDirectory, String fileInclude, String fileExclude, File cacheDirectory) {
         this.ruleDirectory = ruleDirectory;
         FilePatternMatcher.Builder builder = FilePatternMatcher.builder();
         if (fileInclude == null && fileExclude == null) {
-            builder.include(DEFAULT_INCLUDE);
+            fileInclude = DEFAULT_INCLUDE;
+            builder.include(fileInclude);
         } else {
             builder.include(fileInclude).exclude(fileExclude);
         }
         this.filePatternMatcher = builder.build();
+        if (ruleDirectory != null) {
+            this.directoryListingCache = cacheDirectory != null ? new DirectoryListingCache(cacheDirectory, ruleDirectory) : null;
+            this.ruleDirectoryScanner = new RuleDirectoryScanner(ruleDirectory.toPath(), fileInclude, fileExclude, filePatternMatcher::accepts,
+                directoryListingCache);
+        } else {
+            this.directoryListingCache = null;
+            this.ruleDirectoryScanner = null;
+        }
     }
 
     /**
@@ -45,15 +75,32 @@ public class RuleSourceMatcher {
      */
     public List<RuleSource> match(Set<RuleSource> ruleSources) throws ReportException {
         if (ruleDirectory != null) {
+            List<RuleSource> result = new ArrayList<>();
             try {
-                return FileRuleSource.getRuleSources(ruleDirectory).stream().filter(ruleSource -> filePatternMatcher.accepts(ruleSource.getRelativePath()))
-                    .collect(toList());
+                if (directoryListingCache != null) {
+                    directoryListingCache.load();
+                }
+                for (String relativePath : ruleDirectoryScanner.scan()) {
+                    result.add(new FileRuleSource(ruleDirectory, relativePath));
+                }
             } catch (IOException e) {
                 throw new ReportException("Cannot read rules from directory " + ruleDirectory, e);
             }
+            storeDirectoryListingCache();
+            return result;
         } else {
             return ruleSources.stream().filter(ruleSource -> filePatternMatcher.accepts(ruleSource.getRelativePath())).collect(toList());
         }
     }
 
+    private void storeDirectoryListingCache() {
+        if (directoryListingCache != null) {
+            try {
+                directoryListingCache.store();
+            } catch (IOException e) {
+                log.warn("Cannot store directory listing cache.", e);
+            }
+        }
+    }
+
 }
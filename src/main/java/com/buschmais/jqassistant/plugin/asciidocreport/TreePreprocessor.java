@@ -1,61 +1,192 @@
 package com.buschmais.jqassistant.plugin.asciidocreport;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.zip.CRC32;
 
 import com.buschmais.jqassistant.core.report.api.ReportContext;
 import com.buschmais.jqassistant.core.rule.api.model.ExecutableRule;
 import com.buschmais.jqassistant.core.shared.asciidoc.DocumentParser;
 
 import org.apache.commons.lang3.StringEscapeUtils;
+import org.asciidoctor.ast.Cell;
 import org.asciidoctor.ast.ContentNode;
+import org.asciidoctor.ast.DescriptionList;
+import org.asciidoctor.ast.DescriptionListEntry;
 import org.asciidoctor.ast.Document;
+import org.asciidoctor.ast.ListItem;
+import org.asciidoctor.ast.Row;
 import org.asciidoctor.ast.StructuralNode;
+import org.asciidoctor.ast.Table;
 import org.asciidoctor.extension.Treeprocessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static com.buschmais.jqassistant.core.report.api.ReportContext.Report;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.Arrays.asList;
 
 public class TreePreprocessor extends Treeprocessor {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(TreePreprocessor.class);
 
-    private final DocumentParser documentParser;
-    private final Map<String, RuleResult> conceptResults;
-    private final Map<String, RuleResult> constraintResults;
-    private final File outputFileDirectory;
-    private final ReportContext reportContext;
+    /**
+     * The block attribute of a rule limiting the number of rows in the result
+     * table.
+     */
+    public static final String ATTRIBUTE_MAX_ROWS = "maxRows";
+
+    static final String RESULTS_DIRECTORY = "results";
+
+    private final IncludeProcessor includeProcessor;
 
-    public TreePreprocessor(DocumentParser documentParser, Map<String, RuleResult> conceptResults, Map<String, RuleResult> constraintResults,
-            File outputFileDirectory, ReportContext reportContext) {
-        this.documentParser = documentParser;
-        this.conceptResults = conceptResults;
-        this.constraintResults = constraintResults;
-        this.outputFileDirectory = outputFileDirectory;
-        this.reportContext = reportContext;
+    /**
+     * Constructor.
+     *
+     * @param includeProcessor
+     *            The {@link IncludeProcessor} providing the content of deferred
+     *            jQA includes.
+     */
+    public TreePreprocessor(IncludeProcessor includeProcessor) {
+        this.includeProcessor = includeProcessor;
     }
 
     public Document process(Document document) {
-        DocumentParser.Result result = documentParser.parse(document);
-        enrichResults(result.getConcepts(), conceptResults);
-        enrichResults(result.getConstraints(), constraintResults);
+        Optional<DocumentContext> optionalDocumentContext = DocumentContext.current();
+        if (!optionalDocumentContext.isPresent()) {
+            return document;
+        }
+        DocumentContext documentContext = optionalDocumentContext.get();
+        try (ReportProfile.Measurement measurement = documentContext.measure("tree")) {
+            DocumentParserCache documentParserCache = documentContext.getDocumentParserCache();
+            DocumentParser.Result result = documentParserCache.parse(document);
+            if (resolveIncludes(document, result)) {
+                // the resolved includes may provide additional rule blocks
+                documentParserCache.release(document);
+                result = documentParserCache.parse(document);
+            }
+            enrichResults(documentContext, result.getConcepts(), documentContext.getConceptResults());
+            enrichResults(documentContext, result.getConstraints(), documentContext.getConstraintResults());
+        }
         return document;
     }
 
-    private void enrichResults(Map<String, StructuralNode> blocks, Map<String, RuleResult> results) {
+    /**
+     * Resolves the placeholder blocks of jQA includes deferred by the
+     * {@link IncludeProcessor}.
+     * <p>
+     * The placeholders are resolved in the order of their declaration, this
+     * ensures that a rule is only embedded by the first include matching it.
+     *
+     * @param document
+     *            The {@link Document}.
+     * @param result
+     *            The {@link DocumentParser.Result} providing the rule blocks
+     *            declared in the document.
+     * @return <code>true</code> if at least one placeholder has been resolved.
+     */
+    private boolean resolveIncludes(Document document, DocumentParser.Result result) {
+        SortedMap<Integer, StructuralNode> placeholders = new TreeMap<>();
+        findIncludePlaceholders(document, placeholders);
+        if (placeholders.isEmpty()) {
+            return false;
+        }
+        Map<String, StructuralNode> ruleBlocks = new HashMap<>();
+        ruleBlocks.putAll(result.getConcepts());
+        ruleBlocks.putAll(result.getConstraints());
+        for (Map.Entry<Integer, StructuralNode> entry : placeholders.entrySet()) {
+            String content = includeProcessor.getContent(entry.getKey(), ruleBlocks);
+            replacePlaceholder(entry.getValue(), asList(content.split("\n")));
+        }
+        return true;
+    }
+
+    /**
+     * Finds the placeholder blocks of a node including the ones declared in the
+     * descriptions of description lists and in the inner documents of AsciiDoc
+     * table cells.
+     */
+    private void findIncludePlaceholders(StructuralNode node, Map<Integer, StructuralNode> placeholders) {
+        if (node instanceof DescriptionList) {
+            // the blocks of a description list are its entries which are not structural nodes
+            for (DescriptionListEntry entry : ((DescriptionList) node).getItems()) {
+                ListItem description = entry.getDescription();
+                if (description != null) {
+                    findIncludePlaceholders(description, placeholders);
+                }
+            }
+            return;
+        }
+        for (Object child : node.getBlocks()) {
+            if (child instanceof StructuralNode) {
+                StructuralNode block = (StructuralNode) child;
+                if (block.hasRole(IncludeProcessor.PLACEHOLDER_ROLE)) {
+                    placeholders.put(Integer.valueOf(String.valueOf(block.getAttribute(IncludeProcessor.PLACEHOLDER_INDEX))), block);
+                } else if (block instanceof Table) {
+                    findIncludePlaceholders((Table) block, placeholders);
+                } else {
+                    findIncludePlaceholders(block, placeholders);
+                }
+            }
+        }
+    }
+
+    private void findIncludePlaceholders(Table table, Map<Integer, StructuralNode> placeholders) {
+        for (List<Row> rows : asList(table.getHeader(), table.getBody(), table.getFooter())) {
+            for (Row row : rows) {
+                for (Cell cell : row.getCells()) {
+                    Document innerDocument = cell.getInnerDocument();
+                    if (innerDocument != null) {
+                        findIncludePlaceholders(innerDocument, placeholders);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces a placeholder block by the blocks parsed from the content of the
+     * include.
+     * <p>
+     * The content is parsed into the parent of the placeholder, i.e. the parsed
+     * blocks reference the parent, and then moved to the position of the
+     * placeholder.
+     *
+     * @param placeholder
+     *            The placeholder block.
+     * @param content
+     *            The AsciiDoc content.
+     */
+    private void replacePlaceholder(StructuralNode placeholder, List<String> content) {
+        StructuralNode parent = (StructuralNode) placeholder.getParent();
+        List<StructuralNode> siblings = parent.getBlocks();
+        int size = siblings.size();
+        parseContent(parent, content);
+        List<StructuralNode> blocks = new ArrayList<>();
+        while (siblings.size() > size) {
+            blocks.add(siblings.remove(size));
+        }
+        int index = siblings.indexOf(placeholder);
+        siblings.remove(index);
+        siblings.addAll(index, blocks);
+    }
+
+    private void enrichResults(DocumentContext documentContext, Map<String, StructuralNode> blocks, Map<String, RuleResult> results) {
         for (Map.Entry<String, StructuralNode> blockEntry : blocks.entrySet()) {
             String id = blockEntry.getKey();
             StructuralNode block = blockEntry.getValue();
             RuleResult result = results.get(id);
-            List<String> content = renderRuleResult(result);
+            documentContext.getEmbeddedRuleIds().add(id);
+            List<String> content = renderRuleResult(documentContext, result, getMaxRows(block, documentContext.getMaxRows()));
             ContentNode parent = block.getParent();
             List<StructuralNode> siblings = ((StructuralNode) parent).getBlocks();
             int i = siblings.indexOf(block);
@@ -63,38 +194,98 @@ public class TreePreprocessor extends Treeprocessor {
         }
     }
 
+    /**
+     * Determines the maximum number of rows to render for a rule block, the block
+     * attribute {@link #ATTRIBUTE_MAX_ROWS} overrides the configured value.
+     *
+     * @param block
+     *            The rule block.
+     * @param maxRows
+     *            The configured maximum number of rows.
+     * @return The maximum number of rows.
+     */
+    private int getMaxRows(StructuralNode block, int maxRows) {
+        Object value = block.getAttribute(ATTRIBUTE_MAX_ROWS);
+        if (value != null) {
+            try {
+                int blockMaxRows = Integer.parseInt(value.toString().trim());
+                if (blockMaxRows > 0) {
+                    return blockMaxRows;
+                }
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+            LOGGER.warn("Ignoring invalid value '{}' of attribute {} for rule block '{}'.", value, ATTRIBUTE_MAX_ROWS, block.getId());
+        }
+        return maxRows;
+    }
+
     /**
      * Renders a {@link RuleResult} to HTML.
      *
+     * @param documentContext
+     *            The {@link DocumentContext}.
      * @param result
      *            The {@link RuleResult}.
+     * @param maxRows
+     *            The maximum number of rows to render as table.
      * @return The HTML to be embedded into the document.
      */
-    private List<String> renderRuleResult(RuleResult result) {
+    private List<String> renderRuleResult(DocumentContext documentContext, RuleResult result, int maxRows) {
         List<String> content = new ArrayList<>();
         if (result != null) {
             ExecutableRule<?> rule = result.getRule();
-            List<ReportContext.Report<?>> reports = reportContext.getReports(rule);
+            List<ReportContext.Report<?>> reports = documentContext.getReportContext().getReports(rule);
             content.add("<div id=\"result(" + rule.getId() + ")\">");
+            documentContext.count("results", 1);
             if (!reports.isEmpty()) {
                 for (ReportContext.Report<?> report : reports) {
                     switch (report.getReportType()) {
                     case IMAGE:
-                        content.add(renderImage(getReportUrl(report)));
+                        content.add(renderImage(getReportUrl(report, documentContext.getOutputFileDirectory())));
                         break;
                     case LINK:
-                        content.add(renderDownloadLink(getReportUrl(report), report.getLabel()));
+                        content.add(renderDownloadLink(getReportUrl(report, documentContext.getOutputFileDirectory()), report.getLabel()));
                         break;
                     }
                 }
+            } else if (!result.getRows().isEmpty() && documentContext.getLazyResultFiles() != null) {
+                content.addAll(renderLazyResultTable(documentContext, result, maxRows));
             } else if (!result.getRows().isEmpty()) {
-                content.add(renderResultTable(result));
+                content.add(getResultTable(documentContext, result, maxRows));
+                documentContext.count("rows", Math.min(result.getRows().size(), maxRows));
             }
             content.add("</div>");
         }
         return content;
     }
 
+    /**
+     * Renders the placeholder of a result table which is loaded on demand, the
+     * result is embedded as table if the sidecar file cannot be written.
+     *
+     * @param documentContext
+     *            The {@link DocumentContext}.
+     * @param result
+     *            The {@link RuleResult}.
+     * @param maxRows
+     *            The maximum number of rows to render as table.
+     * @return The HTML to be embedded into the document.
+     */
+    private List<String> renderLazyResultTable(DocumentContext documentContext, RuleResult result, int maxRows) {
+        List<String> content = new ArrayList<>();
+        String placeholder = LazyResultTable.render(result, documentContext.getOutputFileDirectory(), documentContext.getLazyResultFiles());
+        if (placeholder != null) {
+            documentContext.setLazyResultLoaderRequired(true);
+            content.add(placeholder);
+            documentContext.count("lazyResults", 1);
+        } else {
+            content.add(renderResultTable(result, maxRows, documentContext.getOutputFileDirectory()));
+            documentContext.count("rows", Math.min(result.getRows().size(), maxRows));
+        }
+        return content;
+    }
+
     /**
      * Returns a String representation of the URL of a {@link Report}.
      * <p>
@@ -102,25 +293,29 @@ public class TreePreprocessor extends Treeprocessor {
      *
      * @param report
      *            the {@link Report}.
+     * @param outputFileDirectory
+     *            The directory of the output file.
      * @return The URL as {@link String} representation.
      */
-    private String getReportUrl(ReportContext.Report<?> report) {
+    private String getReportUrl(ReportContext.Report<?> report, File outputFileDirectory) {
         URL url = report.getUrl();
         String protocol = url.getProtocol();
         if ("file".equals(protocol)) {
-            return getRelativeReportUrl(url);
+            return getRelativeReportUrl(url, outputFileDirectory);
         }
         return url.toExternalForm();
     }
 
     /**
-     * Determines a URL relative to the {@link #outputFileDirectory}.
+     * Determines a URL relative to the directory of the output file.
      *
      * @param url
      *            The {@link URL}.
+     * @param outputFileDirectory
+     *            The directory of the output file.
      * @return The relative URL as {@link String} representation.
      */
-    private String getRelativeReportUrl(URL url) {
+    private String getRelativeReportUrl(URL url, File outputFileDirectory) {
         Path path;
         try {
             path = Paths.get(url.toURI());
@@ -143,15 +338,76 @@ public class TreePreprocessor extends Treeprocessor {
         return a.toString();
     }
 
+    /**
+     * Returns a {@link RuleResult} rendered as table.
+     * <p>
+     * The table is taken from the {@link ResultFragmentStore} of the report run,
+     * i.e. it is rendered only once for all documents embedding the rule. The CSV
+     * file of a truncated table is written once per output directory.
+     *
+     * @param documentContext
+     *            The {@link DocumentContext}.
+     * @param result
+     *            The {@link RuleResult}.
+     * @param maxRows
+     *            The maximum number of rows.
+     * @return The rendered table.
+     */
+    private String getResultTable(DocumentContext documentContext, RuleResult result, int maxRows) {
+        ResultFragmentStore resultFragmentStore = documentContext.getResultFragmentStore();
+        File outputFileDirectory = documentContext.getOutputFileDirectory();
+        if (resultFragmentStore == null) {
+            return renderResultTable(result, maxRows, outputFileDirectory);
+        }
+        String csvFileName = null;
+        if (result.getRows().size() > maxRows) {
+            csvFileName = getCsvFileName(result);
+            Path csvFile = new File(outputFileDirectory, RESULTS_DIRECTORY).toPath().resolve(csvFileName);
+            if (!resultFragmentStore.write(csvFile, () -> writeCsv(result, outputFileDirectory) != null)) {
+                csvFileName = null;
+            }
+        }
+        ExecutableRule<?> rule = result.getRule();
+        String key = rule.getClass().getSimpleName() + ":" + rule.getId() + ":" + maxRows + ":" + (csvFileName != null);
+        String linkedCsvFileName = csvFileName;
+        return resultFragmentStore.get(key, () -> renderTable(result, maxRows, linkedCsvFileName));
+    }
+
     /**
      * Renders a {@link RuleResult} as table.
+     * <p>
+     * If the result contains more than the given maximum number of rows the
+     * table is truncated and a link to a CSV file containing all rows is added.
+     *
+     * @param result
+     *            The {@link RuleResult}.
+     * @param maxRows
+     *            The maximum number of rows.
+     * @param outputFileDirectory
+     *            The directory of the output file.
+     * @return The rendered table.
+     */
+    String renderResultTable(RuleResult result, int maxRows, File outputFileDirectory) {
+        String csvFileName = result.getRows().size() > maxRows ? writeCsv(result, outputFileDirectory) : null;
+        return renderTable(result, maxRows, csvFileName);
+    }
+
+    /**
+     * Renders a {@link RuleResult} as table which is truncated to the given
+     * maximum number of rows.
      *
      * @param result
      *            The {@link RuleResult}.
+     * @param maxRows
+     *            The maximum number of rows.
+     * @param csvFileName
+     *            The name of the CSV file containing all rows of a truncated
+     *            table, <code>null</code> if it is not available.
      * @return The rendered table.
      */
-    private String renderResultTable(RuleResult result) {
+    private String renderTable(RuleResult result, int maxRows, String csvFileName) {
         List<String> columnNames = result.getColumnNames();
+        List<Map<String, List<String>>> rows = result.getRows();
         StringBuilder tableBuilder = new StringBuilder();
         tableBuilder.append("<table>").append('\n');
         tableBuilder.append("<thead>").append('\n');
@@ -162,22 +418,120 @@ public class TreePreprocessor extends Treeprocessor {
         tableBuilder.append("</tr>").append('\n');
         tableBuilder.append("</thead>").append('\n');
         tableBuilder.append("<tbody>").append('\n');
-        for (Map<String, List<String>> row : result.getRows()) {
-            tableBuilder.append("<tr>").append('\n');
-            for (String columnName : columnNames) {
-                tableBuilder.append("<td>").append('\n');
-                for (String value : row.get(columnName)) {
-                    tableBuilder.append(StringEscapeUtils.escapeHtml4(value)).append('\n');
+        int renderedRows = 0;
+        // the iterator is not exhausted if the table is truncated
+        try (ResultRows.RowIterator iterator = ResultRows.iterate(rows)) {
+            while (iterator.hasNext() && renderedRows < maxRows) {
+                Map<String, List<String>> row = iterator.next();
+                tableBuilder.append("<tr>").append('\n');
+                for (String columnName : columnNames) {
+                    tableBuilder.append("<td>").append('\n');
+                    for (String value : row.get(columnName)) {
+                        tableBuilder.append(StringEscapeUtils.escapeHtml4(value)).append('\n');
+                    }
+                    tableBuilder.append("</td>").append('\n');
                 }
-                tableBuilder.append("</td>").append('\n');
+                tableBuilder.append("</tr>").append('\n');
+                renderedRows++;
             }
-            tableBuilder.append("</tr>").append('\n');
         }
         tableBuilder.append("</tbody>").append('\n');
         tableBuilder.append("</table>").append('\n');
+        if (rows.size() > renderedRows) {
+            tableBuilder.append("<div class=\"jqassistant-result-truncated\">").append('\n');
+            tableBuilder.append("Showing ").append(renderedRows).append(" of ").append(rows.size()).append(" rows");
+            if (csvFileName != null) {
+                tableBuilder.append(", ");
+                tableBuilder.append(renderDownloadLink(RESULTS_DIRECTORY + "/" + csvFileName, "all rows (CSV)"));
+            }
+            tableBuilder.append('\n').append("</div>").append('\n');
+        }
         return tableBuilder.toString();
     }
 
+    /**
+     * Writes all rows of a {@link RuleResult} as CSV file to the directory
+     * {@link #RESULTS_DIRECTORY} relative to the directory of the output file.
+     * <p>
+     * The file is written to a temporary file first and moved afterwards as
+     * documents rendered in parallel may embed the same result.
+     *
+     * @param result
+     *            The {@link RuleResult}.
+     * @param outputFileDirectory
+     *            The directory of the output file.
+     * @return The name of the CSV file or <code>null</code> if it could not be
+     *         written.
+     */
+    private String writeCsv(RuleResult result, File outputFileDirectory) {
+        String fileName = getCsvFileName(result);
+        Path resultsDirectory = new File(outputFileDirectory, RESULTS_DIRECTORY).toPath();
+        try {
+            Files.createDirectories(resultsDirectory);
+            Path tempFile = Files.createTempFile(resultsDirectory, fileName, ".tmp");
+            try (Writer writer = Files.newBufferedWriter(tempFile, UTF_8)) {
+                List<String> columnNames = result.getColumnNames();
+                writeCsvRecord(writer, columnNames);
+                List<String> values = new ArrayList<>(columnNames.size());
+                try (ResultRows.RowIterator iterator = ResultRows.iterate(result.getRows())) {
+                    while (iterator.hasNext()) {
+                        Map<String, List<String>> row = iterator.next();
+                        values.clear();
+                        for (String columnName : columnNames) {
+                            values.add(String.join("\n", row.get(columnName)));
+                        }
+                        writeCsvRecord(writer, values);
+                    }
+                }
+            }
+            Files.move(tempFile, resultsDirectory.resolve(fileName), REPLACE_EXISTING, ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn("Cannot write result of rule '" + result.getRule().getId() + "' to " + resultsDirectory, e);
+            return null;
+        }
+        return fileName;
+    }
+
+    private String getCsvFileName(RuleResult result) {
+        return getResultFileName(result.getRule().getId(), ".csv");
+    }
+
+    /**
+     * Return the name of a file in {@link #RESULTS_DIRECTORY} for the result of
+     * a rule.
+     * <p>
+     * The name contains the rule id (with ':' replaced by '_') and its CRC-32,
+     * i.e. ids like "a:b" and "a_b" are written to different files.
+     *
+     * @param ruleId
+     *            The id of the rule.
+     * @param extension
+     *            The extension of the file, e.g. ".csv".
+     * @return The file name.
+     */
+    static String getResultFileName(String ruleId, String extension) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(ruleId.getBytes(UTF_8));
+        return String.format("%s-%08x%s", ruleId.replace(':', '_'), crc32.getValue(), extension);
+    }
+
+    private void writeCsvRecord(Writer writer, List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String value = values.get(i);
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write("\r\n");
+    }
+
     /**
      * Embed an image with the given file name.
      *
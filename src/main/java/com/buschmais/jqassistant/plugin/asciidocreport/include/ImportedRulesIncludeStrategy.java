@@ -1,9 +1,7 @@
 package com.buschmais.jqassistant.plugin.asciidocreport.include;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
 
 import com.buschmais.jqassistant.core.rule.api.model.ExecutableRule;
 import com.buschmais.jqassistant.plugin.asciidocreport.RuleResult;
@@ -16,9 +14,12 @@ public class ImportedRulesIncludeStrategy extends AbstractIncludeRulesStrategy {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ImportedRulesIncludeStrategy.class);
 
+    private final RuleIndex ruleIndex;
+
     public ImportedRulesIncludeStrategy(Map<String, RuleResult> conceptResults, Map<String, RuleResult> constraintResults,
-                                        Map<String, StructuralNode> ruleBlocks, Set<ExecutableRule<?>> includedRules) {
+                                        Map<String, StructuralNode> ruleBlocks, Set<ExecutableRule<?>> includedRules, RuleIndex ruleIndex) {
         super(conceptResults, constraintResults, ruleBlocks, includedRules);
+        this.ruleIndex = ruleIndex;
     }
 
     @Override
@@ -29,12 +30,7 @@ public class ImportedRulesIncludeStrategy extends AbstractIncludeRulesStrategy {
     @Override
     public void process(Map<String, Object> attributes, StringBuilder builder) {
         LOGGER.warn("jQA:ImportedRules has been deprecated, please migrate to jQA:Rules.");
-        Map<String, RuleResult> results = new HashMap<>();
-        results.putAll(conceptResults);
-        results.putAll(constraintResults);
-        TreeMap<String, RuleResult> importedRules = new TreeMap(results);
-        importedRules.keySet().removeAll(ruleBlocks.keySet());
-        for (RuleResult ruleResult : importedRules.values()) {
+        for (RuleResult ruleResult : ruleIndex.getImportedRules()) {
             includeRuleResult(ruleResult, builder);
         }
     }
@@ -0,0 +1,132 @@
+package com.buschmais.jqassistant.plugin.asciidocreport.include;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.buschmais.jqassistant.core.rule.api.filter.RuleFilter;
+
+/**
+ * Cache of the rule filters used by the jQA includes of a report run.
+ * <p>
+ * Each distinct filter expression (e.g. "java:*, !java:Test*") is parsed once
+ * into a {@link Matcher}. A matcher determines the literal prefixes of its
+ * including terms and evaluates the filter only against the ids within these
+ * prefix ranges of a sorted id index, i.e. the effort depends on the number of
+ * candidates instead of the total number of rules. The ids are finally matched
+ * using {@link RuleFilter}, so the semantics of the filter are unchanged.
+ * <p>
+ * The cache is thread-safe and shared by all documents of a report run.
+ */
+public final class RuleFilterCache {
+
+    private static final Matcher NULL_MATCHER = new Matcher(null);
+
+    private final ConcurrentMap<String, Matcher> matchers = new ConcurrentHashMap<>();
+
+    /**
+     * Return the {@link Matcher} for a filter expression.
+     *
+     * @param filter
+     *            The filter expression, may be <code>null</code>.
+     * @return The {@link Matcher}.
+     */
+    public Matcher getMatcher(String filter) {
+        if (filter == null) {
+            return NULL_MATCHER;
+        }
+        return matchers.computeIfAbsent(filter, Matcher::new);
+    }
+
+    /**
+     * Return the number of compiled filter expressions.
+     *
+     * @return The number of {@link Matcher}s.
+     */
+    public int size() {
+        return matchers.size();
+    }
+
+    /**
+     * A compiled filter expression.
+     */
+    public static final class Matcher {
+
+        private final String filter;
+
+        /**
+         * The literal prefixes of all including terms, <code>null</code> if at
+         * least one term may match any id.
+         */
+        private final List<String> prefixes;
+
+        private Matcher(String filter) {
+            this.filter = filter;
+            this.prefixes = filter != null ? getPrefixes(filter) : null;
+        }
+
+        /**
+         * Match the ids of an index.
+         *
+         * @param ids
+         *            The ids in natural order.
+         * @return The matching ids in natural order.
+         */
+        public SortedSet<String> match(NavigableSet<String> ids) {
+            return RuleFilter.match(getCandidates(ids), filter);
+        }
+
+        Collection<String> getCandidates(NavigableSet<String> ids) {
+            if (prefixes == null) {
+                return ids;
+            }
+            if (prefixes.size() == 1) {
+                return range(ids, prefixes.get(0));
+            }
+            NavigableSet<String> candidates = new TreeSet<>();
+            for (String prefix : prefixes) {
+                candidates.addAll(range(ids, prefix));
+            }
+            return candidates;
+        }
+
+        private static NavigableSet<String> range(NavigableSet<String> ids, String prefix) {
+            return ids.subSet(prefix, true, prefix + Character.MAX_VALUE, false);
+        }
+
+        /**
+         * Determines the literal prefixes of the including terms of a filter.
+         * Excluding terms (starting with "!") only remove ids, they are ignored.
+         *
+         * @param filter
+         *            The filter expression.
+         * @return The prefixes or <code>null</code> if any id may match.
+         */
+        private static List<String> getPrefixes(String filter) {
+            List<String> prefixes = new ArrayList<>();
+            for (String term : filter.split(",")) {
+                String trimmedTerm = term.trim();
+                if (!trimmedTerm.startsWith("!")) {
+                    String prefix = getLiteralPrefix(trimmedTerm);
+                    if (prefix.isEmpty()) {
+                        return null;
+                    }
+                    prefixes.add(prefix);
+                }
+            }
+            return prefixes.isEmpty() ? null : prefixes;
+        }
+
+        private static String getLiteralPrefix(String term) {
+            int length = 0;
+            while (length < term.length() && isLiteral(term.charAt(length))) {
+                length++;
+            }
+            return term.substring(0, length);
+        }
+
+        private static boolean isLiteral(char c) {
+            return Character.isLetterOrDigit(c) || c == ':' || c == '_' || c == '-';
+        }
+    }
+}
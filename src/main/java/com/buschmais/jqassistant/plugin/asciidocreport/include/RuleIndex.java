@@ -0,0 +1,204 @@
+package com.buschmais.jqassistant.plugin.asciidocreport.include;
+
+import java.util.*;
+
+import com.buschmais.jqassistant.plugin.asciidocreport.RuleResult;
+import com.buschmais.jqassistant.plugin.asciidocreport.StatusHelper;
+
+import org.asciidoctor.ast.StructuralNode;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * Index of the rule results queried by the jQA includes of a document.
+ * <p>
+ * The index is created once per document. Concept and constraint results are
+ * partitioned into rules declared by the document (i.e. having a rule block)
+ * and imported rules. Each partition is sorted once using
+ * {@link StatusHelper#getRuleResultComparator()} and the matches of rule
+ * filters are cached, i.e. repeated includes with the same filters (e.g. a
+ * summary per chapter) do not scan and sort all results again. The filters are
+ * compiled by the {@link RuleFilterCache} of the report run.
+ */
+public final class RuleIndex {
+
+    private final Partition concepts;
+
+    private final Partition constraints;
+
+    private List<RuleResult> importedRules;
+
+    /**
+     * Constructor.
+     *
+     * @param conceptResults
+     *            The concept results.
+     * @param constraintResults
+     *            The constraint results.
+     * @param ruleBlocks
+     *            The rule blocks declared in the document.
+     */
+    public RuleIndex(Map<String, RuleResult> conceptResults, Map<String, RuleResult> constraintResults, Map<String, StructuralNode> ruleBlocks) {
+        this(conceptResults, constraintResults, ruleBlocks, new RuleFilterCache());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param conceptResults
+     *            The concept results.
+     * @param constraintResults
+     *            The constraint results.
+     * @param ruleBlocks
+     *            The rule blocks declared in the document.
+     * @param ruleFilterCache
+     *            The {@link RuleFilterCache} of the report run.
+     */
+    public RuleIndex(Map<String, RuleResult> conceptResults, Map<String, RuleResult> constraintResults, Map<String, StructuralNode> ruleBlocks,
+            RuleFilterCache ruleFilterCache) {
+        this.concepts = new Partition(conceptResults, ruleBlocks.keySet(), ruleFilterCache);
+        this.constraints = new Partition(constraintResults, ruleBlocks.keySet(), ruleFilterCache);
+    }
+
+    public Partition getConcepts() {
+        return concepts;
+    }
+
+    public Partition getConstraints() {
+        return constraints;
+    }
+
+    /**
+     * Return the results of all concepts and constraints which are not declared
+     * in the document, ordered by their ids.
+     *
+     * @return The imported {@link RuleResult}s.
+     */
+    public List<RuleResult> getImportedRules() {
+        if (importedRules == null) {
+            SortedMap<String, RuleResult> results = new TreeMap<>();
+            concepts.putImported(results);
+            constraints.putImported(results);
+            importedRules = unmodifiableList(new ArrayList<>(results.values()));
+        }
+        return importedRules;
+    }
+
+    /**
+     * The results of either concepts or constraints.
+     */
+    public static final class Partition {
+
+        private final Map<String, RuleResult> results;
+
+        private final RuleFilterCache ruleFilterCache;
+
+        private final NavigableSet<String> ids = new TreeSet<>();
+
+        private final NavigableSet<String> declaredIds = new TreeSet<>();
+
+        private final NavigableSet<String> importedIds = new TreeSet<>();
+
+        private final Map<String, SortedSet<String>> matches = new HashMap<>();
+
+        private final Map<String, SortedSet<String>> declaredMatches = new HashMap<>();
+
+        private final Map<String, SortedSet<String>> importedMatches = new HashMap<>();
+
+        private List<RuleResult> sortedResults;
+
+        private Map<String, Integer> ranks;
+
+        private Partition(Map<String, RuleResult> results, Set<String> ruleBlockIds, RuleFilterCache ruleFilterCache) {
+            this.results = results;
+            this.ruleFilterCache = ruleFilterCache;
+            for (String id : results.keySet()) {
+                ids.add(id);
+                (ruleBlockIds.contains(id) ? declaredIds : importedIds).add(id);
+            }
+        }
+
+        /**
+         * Return all results ordered by status, severity and id.
+         *
+         * @return The sorted {@link RuleResult}s.
+         */
+        public List<RuleResult> getAll() {
+            if (sortedResults == null) {
+                List<RuleResult> sorted = new ArrayList<>(results.values());
+                sorted.sort(StatusHelper.getRuleResultComparator());
+                Map<String, Integer> sortedRanks = new HashMap<>();
+                for (int i = 0; i < sorted.size(); i++) {
+                    sortedRanks.put(sorted.get(i).getRule().getId(), i);
+                }
+                sortedResults = unmodifiableList(sorted);
+                ranks = sortedRanks;
+            }
+            return sortedResults;
+        }
+
+        /**
+         * Find the results of declared and imported rules matching the given
+         * filters.
+         *
+         * @param declaredRulesFilter
+         *            The filter for rules declared in the document, may be
+         *            <code>null</code>.
+         * @param importedRulesFilter
+         *            The filter for imported rules, may be <code>null</code>.
+         * @return The matching {@link RuleResult}s ordered by status, severity and
+         *         id.
+         */
+        public List<RuleResult> find(String declaredRulesFilter, String importedRulesFilter) {
+            SortedSet<String> declared = match(declaredMatches, declaredIds, declaredRulesFilter);
+            SortedSet<String> imported = match(importedMatches, importedIds, importedRulesFilter);
+            if (declared.isEmpty() && imported.isEmpty()) {
+                return emptyList();
+            }
+            getAll();
+            Integer[] matchingRanks = new Integer[declared.size() + imported.size()];
+            int i = 0;
+            for (String id : declared) {
+                matchingRanks[i++] = ranks.get(id);
+            }
+            for (String id : imported) {
+                matchingRanks[i++] = ranks.get(id);
+            }
+            Arrays.sort(matchingRanks);
+            List<RuleResult> found = new ArrayList<>(matchingRanks.length);
+            for (Integer rank : matchingRanks) {
+                found.add(sortedResults.get(rank));
+            }
+            return found;
+        }
+
+        /**
+         * Match the ids of all results against a filter.
+         *
+         * @param filter
+         *            The filter, may be <code>null</code>.
+         * @return The matching ids in natural order.
+         */
+        public SortedSet<String> match(String filter) {
+            return match(matches, ids, filter);
+        }
+
+        public RuleResult get(String id) {
+            return results.get(id);
+        }
+
+        private void putImported(Map<String, RuleResult> target) {
+            for (String id : importedIds) {
+                target.put(id, results.get(id));
+            }
+        }
+
+        private SortedSet<String> match(Map<String, SortedSet<String>> cache, NavigableSet<String> ids, String filter) {
+            if (ids.isEmpty()) {
+                return Collections.emptySortedSet();
+            }
+            return cache.computeIfAbsent(filter, key -> Collections.unmodifiableSortedSet(ruleFilterCache.getMatcher(key).match(ids)));
+        }
+    }
+}
@@ -4,7 +4,6 @@ import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 
-import com.buschmais.jqassistant.core.rule.api.filter.RuleFilter;
 import com.buschmais.jqassistant.core.rule.api.model.ExecutableRule;
 import com.buschmais.jqassistant.plugin.asciidocreport.RuleResult;
 
@@ -12,9 +11,12 @@ import org.asciidoctor.ast.StructuralNode;
 
 public class RulesIncludeStrategy extends AbstractIncludeRulesStrategy {
 
+    private final RuleIndex ruleIndex;
+
     public RulesIncludeStrategy(Map<String, RuleResult> conceptResults, Map<String, RuleResult> constraintResults, Map<String, StructuralNode> ruleBlocks,
-        Set<ExecutableRule<?>> includedRules) {
+        Set<ExecutableRule<?>> includedRules, RuleIndex ruleIndex) {
         super(conceptResults, constraintResults, ruleBlocks, includedRules);
+        this.ruleIndex = ruleIndex;
     }
 
     @Override
@@ -24,8 +26,8 @@ public class RulesIncludeStrategy extends AbstractIncludeRulesStrategy {
 
     @Override
     public void process(Map<String, Object> attributes, StringBuilder builder) {
-        includeRules(attributes, "concepts", conceptResults, builder);
-        includeRules(attributes, "constraints", constraintResults, builder);
+        includeRules(attributes, "concepts", ruleIndex.getConcepts(), builder);
+        includeRules(attributes, "constraints", ruleIndex.getConstraints(), builder);
 
     }
 
@@ -37,13 +39,13 @@ public class RulesIncludeStrategy extends AbstractIncludeRulesStrategy {
      * @param filterAttribute
      *     The name of the filter attribute.
      * @param results
-     *     The {@link RuleResult}s.
+     *     The {@link RuleIndex.Partition} containing the {@link RuleResult}s.
      * @param builder
      *     The builder to use.s
      */
-    private void includeRules(Map<String, Object> attributes, String filterAttribute, Map<String, RuleResult> results, StringBuilder builder) {
+    private void includeRules(Map<String, Object> attributes, String filterAttribute, RuleIndex.Partition results, StringBuilder builder) {
         String filterValue = (String) attributes.get(filterAttribute);
-        SortedSet<String> matches = RuleFilter.match(results.keySet(), filterValue);
+        SortedSet<String> matches = results.match(filterValue);
         for (String match : matches) {
             includeRuleResult(results.get(match), builder);
         }
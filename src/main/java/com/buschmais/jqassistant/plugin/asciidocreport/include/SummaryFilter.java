@@ -1,9 +1,7 @@
 package com.buschmais.jqassistant.plugin.asciidocreport.include;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
-import com.buschmais.jqassistant.core.rule.api.filter.RuleFilter;
 import com.buschmais.jqassistant.plugin.asciidocreport.RuleResult;
 
 import lombok.Builder;
@@ -12,8 +10,6 @@ import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import org.asciidoctor.ast.StructuralNode;
 
-import static java.util.stream.Collectors.toList;
-
 @Slf4j
 public class SummaryFilter {
 
@@ -28,27 +24,35 @@ public class SummaryFilter {
 
     }
 
-    private final Map<String, RuleResult> conceptResults;
-    private final Map<String, RuleResult> constraintResults;
-    private final Map<String, StructuralNode> ruleBlocks;
+    private final RuleIndex ruleIndex;
 
     public SummaryFilter(Map<String, RuleResult> conceptResults, Map<String, RuleResult> constraintResults, Map<String, StructuralNode> ruleBlocks) {
-        this.conceptResults = conceptResults;
-        this.constraintResults = constraintResults;
-        this.ruleBlocks = ruleBlocks;
+        this(new RuleIndex(conceptResults, constraintResults, ruleBlocks));
+    }
+
+    public SummaryFilter(RuleIndex ruleIndex) {
+        this.ruleIndex = ruleIndex;
     }
 
+    /**
+     * Applies the filters given by the attributes of a summary include.
+     *
+     * @param attributes
+     *            The attributes.
+     * @return The {@link Result} containing the matching concept and constraint
+     *         results, each ordered by status, severity and id.
+     */
     public Result apply(Map<String, Object> attributes) {
         if (attributes.isEmpty()) {
             // No filters provided, render everything
             return Result.builder()
-                .constraints(constraintResults.values())
-                .concepts(conceptResults.values())
+                .constraints(ruleIndex.getConstraints().getAll())
+                .concepts(ruleIndex.getConcepts().getAll())
                 .build();
         } else {
             // Apply filters, render only selected rules
-            List<RuleResult> constraints = include(attributes, "constraints", "importedConstraints", constraintResults);
-            List<RuleResult> concepts = include(attributes, "concepts", "importedConcepts", conceptResults);
+            List<RuleResult> constraints = include(attributes, "constraints", "importedConstraints", ruleIndex.getConstraints());
+            List<RuleResult> concepts = include(attributes, "concepts", "importedConcepts", ruleIndex.getConcepts());
             if (concepts.isEmpty() && constraints.isEmpty()) {
                 log.warn("No constraints/concepts found matching the given filters {}.", attributes);
             }
@@ -59,33 +63,10 @@ public class SummaryFilter {
         }
     }
 
-    private List<RuleResult> include(Map<String, Object> attributes, String rulesAttribute, String importedRulesAttribute, Map<String, RuleResult> results) {
+    private List<RuleResult> include(Map<String, Object> attributes, String rulesAttribute, String importedRulesAttribute, RuleIndex.Partition partition) {
         String rulesFilter = (String) attributes.get(rulesAttribute);
         String importedRulesFilter = (String) attributes.get(importedRulesAttribute);
-        return filterRuleResults(results, rulesFilter, importedRulesFilter);
-    }
-
-    private List<RuleResult> filterRuleResults(Map<String, RuleResult> results, String rulesFilter, String importedRulesFilter) {
-        Set<String> ruleResults = new HashSet<>();
-        // collect rules from documents
-        Set<String> rules = results.keySet()
-            .stream()
-            .filter(rule -> ruleBlocks.keySet()
-                .contains(rule))
-            .collect(Collectors.toSet());
-        ruleResults.addAll(RuleFilter.match(rules, rulesFilter));
-        // collect imported rules
-        Set<String> importedRules = results.keySet()
-            .stream()
-            .filter(rule -> !ruleBlocks.keySet()
-                .contains(rule))
-            .collect(Collectors.toSet());
-        ruleResults.addAll(RuleFilter.match(importedRules, importedRulesFilter));
-        return results.entrySet()
-            .stream()
-            .filter(entry -> ruleResults.contains(entry.getKey()))
-            .map(entry -> entry.getValue())
-            .collect(toList());
+        return partition.find(rulesFilter, importedRulesFilter);
     }
 
 }
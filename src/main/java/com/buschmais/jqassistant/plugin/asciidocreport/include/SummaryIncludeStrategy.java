@@ -2,8 +2,6 @@ package com.buschmais.jqassistant.plugin.asciidocreport.include;
 
 import java.util.Collection;
 import java.util.Map;
-import java.util.Set;
-import java.util.TreeSet;
 
 import com.buschmais.jqassistant.core.report.api.model.Result;
 import com.buschmais.jqassistant.core.rule.api.model.ExecutableRule;
@@ -43,9 +41,8 @@ public class SummaryIncludeStrategy extends AbstractIncludeStrategy {
             builder.append("[options=header,role=summary]").append('\n');
             builder.append("|===").append('\n');
             builder.append("| Id | Description | Severity | Status").append('\n');
-            Set<RuleResult> ruleResults = new TreeSet<>(StatusHelper.getRuleResultComparator());
-            ruleResults.addAll(results);
-            for (RuleResult result : ruleResults) {
+            // the results are already ordered by the RuleIndex
+            for (RuleResult result : results) {
                 ExecutableRule rule = result.getRule();
                 builder.append("| ").append("jQA:").append(referenceMacro).append('[').append(rule.getId()).append(']');
                 builder.append("| ").append(escape(rule.getDescription()));
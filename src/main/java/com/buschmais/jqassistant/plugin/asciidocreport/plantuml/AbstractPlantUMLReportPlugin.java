@@ -3,14 +3,20 @@ package com.buschmais.jqassistant.plugin.asciidocreport.plantuml;
 import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.buschmais.jqassistant.core.report.api.ReportContext;
 import com.buschmais.jqassistant.core.report.api.ReportException;
 import com.buschmais.jqassistant.core.report.api.ReportPlugin;
 import com.buschmais.jqassistant.core.report.api.model.Result;
 import com.buschmais.jqassistant.core.rule.api.model.ExecutableRule;
+import com.buschmais.jqassistant.plugin.asciidocreport.ReportProfile;
 
+import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -18,6 +24,16 @@ public abstract class AbstractPlantUMLReportPlugin implements ReportPlugin {
 
     private static final String PROPERTY_FILE_FORMAT = "plantuml.report.format";
     private static final String PROPERTY_RENDER_MODE = "plantuml.report.rendermode";
+    private static final String PROPERTY_CACHE = "plantuml.report.cache";
+    private static final String PROPERTY_CACHE_MAX_AGE = "plantuml.report.cache.maxAge";
+    private static final String PROPERTY_COMPRESS = "plantuml.report.compress";
+    private static final String PROPERTY_GRAPHVIZ_PROBE_CACHE = "plantuml.report.graphviz.probe.cache";
+    private static final String PROPERTY_RENDERING_THREADS = "plantuml.report.rendering.threads";
+    private static final String PROPERTY_RENDERING_TIMEOUT = "plantuml.report.rendering.timeout";
+
+    private static final int DEFAULT_RENDERING_TIMEOUT = 300;
+
+    private static final String GRAPHVIZ_PROBE_CACHE_FILE = ".graphviz-probe";
 
     private ReportContext reportContext;
 
@@ -27,24 +43,75 @@ public abstract class AbstractPlantUMLReportPlugin implements ReportPlugin {
 
     private String renderMode;
 
+    private GraphvizProbe graphvizProbe;
+
+    private ImageRenderer imageRenderer;
+
+    private RenderMode resolvedRenderMode;
+
+    private int cacheMaxAge;
+
+    private int renderingThreads;
+
+    private int renderingTimeout;
+
+    private ExecutorService renderingExecutorService;
+
+    private final List<RenderingJob> renderingJobs = new ArrayList<>();
+
     @Override
     public void initialize() {
     }
 
     @Override
-    public void configure(ReportContext reportContext, Map<String, Object> properties) {
+    public void configure(ReportContext reportContext, Map<String, Object> properties) throws ReportException {
         this.reportContext = reportContext;
         directory = reportContext.getReportDirectory("plantuml");
         // avoiding PlantUML types (e.g. net.sourceforge.plantuml.FileFormat) here to avoid warnings on startup if e.g. dot.exe is not present
         this.fileFormat = (String) properties.getOrDefault(PROPERTY_FILE_FORMAT, "svg");
         this.renderMode = (String) properties.get(PROPERTY_RENDER_MODE);
+        boolean graphvizProbeCache = Boolean.parseBoolean((String) properties.get(PROPERTY_GRAPHVIZ_PROBE_CACHE));
+        this.graphvizProbe = new GraphvizProbe(graphvizProbeCache ? new File(directory, GRAPHVIZ_PROBE_CACHE_FILE) : null);
+        this.resolvedRenderMode = null;
+        // the render mode has been resolved before a diagram is rendered
+        this.imageRenderer = new ImageRenderer(Boolean.parseBoolean((String) properties.get(PROPERTY_CACHE)),
+                Boolean.parseBoolean((String) properties.get(PROPERTY_COMPRESS)),
+                () -> resolvedRenderMode == RenderMode.GRAPHVIZ ? graphvizProbe.getVersion() : "");
+        this.cacheMaxAge = getNumber(properties, PROPERTY_CACHE_MAX_AGE, 0, 0);
+        this.renderingThreads = getNumber(properties, PROPERTY_RENDERING_THREADS, 0, 0);
+        this.renderingTimeout = getNumber(properties, PROPERTY_RENDERING_TIMEOUT, DEFAULT_RENDERING_TIMEOUT, 1);
+    }
+
+    private int getNumber(Map<String, Object> properties, String property, int defaultValue, int minimum) throws ReportException {
+        String value = (String) properties.get(property);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int number = Integer.parseInt(value.trim());
+            if (number >= minimum) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new ReportException("Invalid value '" + value + "' for property " + property + ", a number >= " + minimum + " is expected.");
     }
 
     @Override
     public void setResult(Result<? extends ExecutableRule> result) throws ReportException {
-        String diagram = getRenderer(RenderMode.getRenderMode(renderMode)).renderDiagram(result);
-        ImageRenderer imageRenderer = new ImageRenderer();
-        File file = imageRenderer.renderDiagram(diagram, result.getRule(), directory, fileFormat);
+        String diagram = getRenderer(getRenderMode()).renderDiagram(result);
+        ExecutableRule<?> rule = result.getRule();
+        ReportProfile profile = ReportProfile.active(reportContext).orElse(null);
+        File file;
+        if (renderingThreads > 0) {
+            // render in background, the URL of the image is known in advance
+            file = imageRenderer.getDiagramFile(rule, directory, fileFormat);
+            Future<File> future = getRenderingExecutorService().submit(() -> imageRenderer.renderDiagram(diagram, rule, directory, fileFormat, profile));
+            renderingJobs.add(new RenderingJob(rule, future));
+        } else {
+            file = imageRenderer.renderDiagram(diagram, rule, directory, fileFormat, profile);
+        }
         URL url;
         try {
             url = file.toURI().toURL();
@@ -54,8 +121,113 @@ public abstract class AbstractPlantUMLReportPlugin implements ReportPlugin {
         reportContext.addReport(getReportLabel(), result.getRule(), ReportContext.ReportType.IMAGE, url);
     }
 
+    /**
+     * Waits for all diagrams which are rendered in background and removes
+     * diagrams from the cache which have not been used for the configured
+     * number of days.
+     * <p>
+     * The configured timeout applies to all diagrams which are still rendered,
+     * i.e. it is the maximum time to wait. Diagrams which are not finished in
+     * time are cancelled, a GraphViz process which has already been started for
+     * such a diagram is not killed and may continue in background.
+     *
+     * @throws ReportException
+     *             If at least one diagram could not be rendered within the
+     *             configured timeout.
+     */
+    @Override
+    public void end() throws ReportException {
+        waitForRenderingJobs();
+        if (cacheMaxAge > 0) {
+            imageRenderer.pruneCache(directory, TimeUnit.DAYS.toMillis(cacheMaxAge));
+        }
+    }
+
+    private void waitForRenderingJobs() throws ReportException {
+        if (renderingExecutorService == null) {
+            return;
+        }
+        List<String> failedRules = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(renderingTimeout);
+        try {
+            for (RenderingJob renderingJob : renderingJobs) {
+                String ruleId = renderingJob.rule.getId();
+                try {
+                    // jobs which are done are returned without waiting after the deadline
+                    renderingJob.future.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+                } catch (ExecutionException e) {
+                    log.error("Cannot render diagram for rule '" + ruleId + "'.", e.getCause());
+                    failedRules.add(ruleId);
+                } catch (TimeoutException e) {
+                    renderingJob.future.cancel(true);
+                    log.error("Rendering diagram for rule '{}' did not finish within {}s.", ruleId, renderingTimeout);
+                    failedRules.add(ruleId);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ReportException("Interrupted while waiting for diagrams.", e);
+        } finally {
+            shutdownRenderingExecutorService();
+        }
+        if (!failedRules.isEmpty()) {
+            throw new ReportException("Cannot render diagrams for rules " + failedRules);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        shutdownRenderingExecutorService();
+    }
+
+    private ExecutorService getRenderingExecutorService() {
+        if (renderingExecutorService == null) {
+            AtomicInteger count = new AtomicInteger();
+            renderingExecutorService = Executors.newFixedThreadPool(renderingThreads, runnable -> {
+                Thread thread = new Thread(runnable, getClass().getSimpleName() + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return renderingExecutorService;
+    }
+
+    private void shutdownRenderingExecutorService() {
+        if (renderingExecutorService != null) {
+            renderingExecutorService.shutdownNow();
+            renderingExecutorService = null;
+        }
+        renderingJobs.clear();
+    }
+
+    /**
+     * Determines the {@link RenderMode}, the detection of GraphViz is executed
+     * only once and delayed until the first diagram is rendered.
+     *
+     * @return The {@link RenderMode}.
+     * @throws ReportException
+     *             If the configured {@link RenderMode} is not valid.
+     */
+    private RenderMode getRenderMode() throws ReportException {
+        if (resolvedRenderMode == null) {
+            resolvedRenderMode = RenderMode.getRenderMode(renderMode, graphvizProbe);
+        }
+        return resolvedRenderMode;
+    }
+
     protected abstract AbstractDiagramRenderer getRenderer(RenderMode renderMode);
 
     protected abstract String getReportLabel();
 
+    /**
+     * A diagram which is rendered in background.
+     */
+    @AllArgsConstructor
+    private static class RenderingJob {
+
+        private final ExecutableRule<?> rule;
+
+        private final Future<File> future;
+
+    }
 }
@@ -0,0 +1,114 @@
+package com.buschmais.jqassistant.plugin.asciidocreport.plantuml;
+
+import java.io.*;
+import java.util.Properties;
+import java.util.function.BooleanSupplier;
+
+import lombok.extern.slf4j.Slf4j;
+import net.sourceforge.plantuml.cucadiagram.dot.GraphvizUtils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Determines if GraphViz is available and its version, the check is executed
+ * only once.
+ * <p>
+ * Optionally the result is stored in a file and reused as long as path and
+ * modification time of the dot executable are unchanged.
+ */
+@Slf4j
+class GraphvizProbe implements BooleanSupplier {
+
+    private static final String KEY_DOT = "dot";
+    private static final String KEY_AVAILABLE = "available";
+    private static final String KEY_VERSION = "version";
+
+    private final File cacheFile;
+
+    private Boolean available;
+
+    private String version;
+
+    /**
+     * Constructor.
+     *
+     * @param cacheFile
+     *            The file for storing the result of the check (optional).
+     */
+    GraphvizProbe(File cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    @Override
+    public synchronized boolean getAsBoolean() {
+        if (available == null) {
+            long start = System.currentTimeMillis();
+            available = probe();
+            log.debug("GraphViz probe took {}ms (available: {}).", System.currentTimeMillis() - start, available);
+        }
+        return available;
+    }
+
+    /**
+     * Return the version of GraphViz as reported by the dot executable.
+     *
+     * @return The version or <code>null</code> if GraphViz is not available.
+     */
+    synchronized String getVersion() {
+        return getAsBoolean() ? version : null;
+    }
+
+    private boolean probe() {
+        if (cacheFile == null) {
+            return verifyGraphviz();
+        }
+        File dotExe = GraphvizUtils.getDotExe();
+        if (dotExe == null || !dotExe.exists()) {
+            return verifyGraphviz();
+        }
+        String dot = dotExe.getAbsolutePath() + ":" + dotExe.lastModified();
+        Properties properties = new Properties();
+        if (cacheFile.exists()) {
+            try (Reader reader = new InputStreamReader(new FileInputStream(cacheFile), UTF_8)) {
+                properties.load(reader);
+            } catch (IOException e) {
+                log.warn("Cannot read GraphViz probe cache file '{}'.", cacheFile.getAbsolutePath(), e);
+            }
+            if (dot.equals(properties.getProperty(KEY_DOT))) {
+                log.debug("Using cached GraphViz probe result for '{}'.", dotExe.getAbsolutePath());
+                version = properties.getProperty(KEY_VERSION);
+                return Boolean.parseBoolean(properties.getProperty(KEY_AVAILABLE));
+            }
+        }
+        boolean graphvizAvailable = verifyGraphviz();
+        properties.setProperty(KEY_DOT, dot);
+        properties.setProperty(KEY_AVAILABLE, Boolean.toString(graphvizAvailable));
+        if (version != null) {
+            properties.setProperty(KEY_VERSION, version);
+        } else {
+            properties.remove(KEY_VERSION);
+        }
+        cacheFile.getParentFile().mkdirs();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(cacheFile), UTF_8)) {
+            properties.store(writer, "GraphViz probe result");
+        } catch (IOException e) {
+            log.warn("Cannot write GraphViz probe cache file '{}'.", cacheFile.getAbsolutePath(), e);
+        }
+        return graphvizAvailable;
+    }
+
+    private boolean verifyGraphviz() {
+        if (!RenderMode.verifyGraphviz()) {
+            return false;
+        }
+        try {
+            version = GraphvizUtils.dotVersion();
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.warn("Cannot determine the version of GraphViz.", e);
+        }
+        return true;
+    }
+}
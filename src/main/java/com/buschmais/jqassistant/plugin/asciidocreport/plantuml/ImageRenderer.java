@@ -3,18 +3,31 @@ package com.buschmais.jqassistant.plugin.asciidocreport.plantuml;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.math.BigInteger;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.function.Supplier;
 
 import com.buschmais.jqassistant.core.report.api.ReportException;
 import com.buschmais.jqassistant.core.rule.api.model.ExecutableRule;
+import com.buschmais.jqassistant.plugin.asciidocreport.ArtifactCompressor;
+import com.buschmais.jqassistant.plugin.asciidocreport.ReportProfile;
 
 import net.sourceforge.plantuml.FileFormat;
 import net.sourceforge.plantuml.FileFormatOption;
 import net.sourceforge.plantuml.SourceStringReader;
+import net.sourceforge.plantuml.version.Version;
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
 /**
  * A renderer for PlantUML diagrams.
  */
@@ -22,20 +35,267 @@ public class ImageRenderer {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ImageRenderer.class);
 
+    private static final String CACHE_DIRECTORY = ".cache";
+
+    private final boolean cache;
+
+    private final boolean compress;
+
+    private final Supplier<String> layoutEngineVersion;
+
+    /**
+     * Constructor for a renderer without cache.
+     */
+    public ImageRenderer() {
+        this(false);
+    }
+
+    /**
+     * Constructor for a renderer which does not compress images.
+     *
+     * @param cache
+     *            If <code>true</code> rendered images are cached, see
+     *            {@link #ImageRenderer(boolean, boolean)}.
+     */
+    public ImageRenderer(boolean cache) {
+        this(cache, false);
+    }
+
+    /**
+     * Constructor for a renderer which does not use an external layout engine.
+     *
+     * @param cache
+     *            If <code>true</code> rendered images are cached, see
+     *            {@link #ImageRenderer(boolean, boolean, Supplier)}.
+     * @param compress
+     *            If <code>true</code> a gzip variant is written next to each
+     *            image, see {@link ArtifactCompressor}.
+     */
+    public ImageRenderer(boolean cache, boolean compress) {
+        this(cache, compress, () -> "");
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param cache
+     *            If <code>true</code> rendered images are cached using a hash of the
+     *            diagram, the file format, the PlantUML version and the version of
+     *            the layout engine, unchanged diagrams are copied from the cache
+     *            instead of being rendered. Cached images which have not been
+     *            used for a given time are removed by
+     *            {@link #pruneCache(File, long)}.
+     * @param compress
+     *            If <code>true</code> a gzip variant is written next to each
+     *            image, see {@link ArtifactCompressor}.
+     * @param layoutEngineVersion
+     *            Provides the version of the external layout engine (e.g.
+     *            GraphViz) used for rendering, an empty string if no external
+     *            layout engine is used or <code>null</code> if the version is
+     *            unknown. Diagrams are not cached if the version is unknown.
+     */
+    public ImageRenderer(boolean cache, boolean compress, Supplier<String> layoutEngineVersion) {
+        this.cache = cache;
+        this.compress = compress;
+        this.layoutEngineVersion = layoutEngineVersion;
+    }
+
+    /**
+     * Determines the {@link File} a diagram for the given rule is rendered to.
+     *
+     * @param rule
+     *            The rule.
+     * @param directory
+     *            The directory.
+     * @param format
+     *            The target format.
+     * @return The {@link File}.
+     * @throws ReportException
+     *             If the format is not valid.
+     */
+    public File getDiagramFile(ExecutableRule rule, File directory, String format) throws ReportException {
+        return new File(directory, getDiagramFileNamePrefix(rule) + toFileFormat(format).getFileSuffix());
+    }
+
+    /**
+     * Renders a diagram for the given rule without recording a profile.
+     *
+     * @see #renderDiagram(String, ExecutableRule, File, String, ReportProfile)
+     */
     public File renderDiagram(String plantUML, ExecutableRule rule, File directory, String format) throws ReportException {
-        String diagramFileNamePrefix = rule.getId().replaceAll("\\:", "_");
+        return renderDiagram(plantUML, rule, directory, format, null);
+    }
+
+    /**
+     * Renders a diagram for the given rule.
+     *
+     * @param plantUML
+     *            The diagram.
+     * @param rule
+     *            The rule.
+     * @param directory
+     *            The directory.
+     * @param format
+     *            The target format.
+     * @param profile
+     *            The {@link ReportProfile} of the report run recording the
+     *            rendering, may be <code>null</code>.
+     * @return The {@link File} containing the rendered diagram.
+     * @throws ReportException
+     *             If the diagram cannot be rendered.
+     */
+    public File renderDiagram(String plantUML, ExecutableRule rule, File directory, String format, ReportProfile profile) throws ReportException {
+        String diagramFileNamePrefix = getDiagramFileNamePrefix(rule);
         File plantUMLFile = new File(directory, diagramFileNamePrefix + ".plantuml");
+        writePlantUML(plantUML, plantUMLFile);
+
+        FileFormat fileFormat = toFileFormat(format);
+        File file = getDiagramFile(rule, directory, format);
+        try (ReportProfile.Measurement measurement = ReportProfile.measure(profile, "diagram")) {
+            String version = cache ? layoutEngineVersion.get() : null;
+            if (version != null) {
+                renderCachedDiagram(plantUML, version, file, fileFormat, profile);
+            } else {
+                renderDiagram(plantUML, file, fileFormat, profile);
+            }
+        }
+        if (compress) {
+            try (ReportProfile.Measurement measurement = ReportProfile.measure(profile, "compress")) {
+                ReportProfile.count(profile, ArtifactCompressor.compress(file) ? "compressedArtifacts" : "unchangedCompressedArtifacts", 1);
+            } catch (IOException e) {
+                // the diagram itself is available, only the precompressed variant is missing
+                LOGGER.warn("Cannot compress diagram " + file.getPath(), e);
+            }
+        }
+        return file;
+    }
+
+    private String getDiagramFileNamePrefix(ExecutableRule rule) {
+        return rule.getId().replaceAll("\\:", "_");
+    }
+
+    /**
+     * Writes the PlantUML diagram to a file if it does not yet exist with the same
+     * content.
+     *
+     * @param plantUML
+     *            The diagram.
+     * @param plantUMLFile
+     *            The {@link File}.
+     */
+    private void writePlantUML(String plantUML, File plantUMLFile) throws ReportException {
         try {
-            FileUtils.writeStringToFile(plantUMLFile, plantUML, Charset.defaultCharset());
+            if (!plantUMLFile.exists() || !plantUML.equals(FileUtils.readFileToString(plantUMLFile, Charset.defaultCharset()))) {
+                FileUtils.writeStringToFile(plantUMLFile, plantUML, Charset.defaultCharset());
+            }
         } catch (IOException e) {
             throw new ReportException("Cannot write PlantUML diagram to " + plantUMLFile.getPath(), e);
         }
+    }
 
-        FileFormat fileFormat = toFileFormat(format);
-        String diagramFileName = diagramFileNamePrefix + fileFormat.getFileSuffix();
-        File file = new File(directory, diagramFileName);
-        renderDiagram(plantUML, file, fileFormat);
-        return file;
+    /**
+     * Render a diagram using the cache located in the directory of the given
+     * {@link File}.
+     *
+     * <p>
+     * Note that the {@link RenderMode} is covered by the hash as its pragma is part
+     * of the diagram.
+     * </p>
+     *
+     * @param plantUML
+     *            The diagram.
+     * @param file
+     *            The {@link File}.
+     * @param format
+     *            The target format.
+     * @param profile
+     *            The optional {@link ReportProfile}.
+     */
+    private void renderCachedDiagram(String plantUML, String layoutEngineVersion, File file, FileFormat format, ReportProfile profile)
+            throws ReportException {
+        File cacheDirectory = new File(file.getParentFile(), CACHE_DIRECTORY);
+        File cachedFile = new File(cacheDirectory, getCacheKey(plantUML, layoutEngineVersion, format) + format.getFileSuffix());
+        try {
+            if (cachedFile.exists()) {
+                LOGGER.info("Using cached diagram for '{}' ", file.getPath());
+                ReportProfile.count(profile, "cachedDiagrams", 1);
+                // mark as used, see pruneCache
+                Files.setLastModifiedTime(cachedFile.toPath(), FileTime.fromMillis(System.currentTimeMillis()));
+            } else {
+                cacheDirectory.mkdirs();
+                File tempFile = File.createTempFile("diagram", format.getFileSuffix(), cacheDirectory);
+                try {
+                    renderDiagram(plantUML, tempFile, format, profile);
+                    Files.move(tempFile.toPath(), cachedFile.toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+                } finally {
+                    Files.deleteIfExists(tempFile.toPath());
+                }
+            }
+            Files.copy(cachedFile.toPath(), file.toPath(), REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new ReportException("Cannot use cached diagram " + cachedFile.getPath() + " for file " + file.getPath(), e);
+        }
+    }
+
+    /**
+     * Removes all diagrams from the cache in the given directory which have not
+     * been used for the given time. Diagrams are marked as used by their
+     * modification time, i.e. diagrams which are not part of a partial analysis
+     * (e.g. of a single group) are kept.
+     *
+     * @param directory
+     *            The directory containing the cache.
+     * @param maxAge
+     *            The time in milliseconds after which an unused diagram is
+     *            removed.
+     */
+    public void pruneCache(File directory, long maxAge) {
+        if (!cache) {
+            return;
+        }
+        File cacheDirectory = new File(directory, CACHE_DIRECTORY);
+        File[] cachedFiles = cacheDirectory.listFiles(File::isFile);
+        if (cachedFiles == null) {
+            return;
+        }
+        long usedSince = System.currentTimeMillis() - maxAge;
+        int prunedFiles = 0;
+        for (File cachedFile : cachedFiles) {
+            if (cachedFile.lastModified() < usedSince) {
+                try {
+                    Files.deleteIfExists(cachedFile.toPath());
+                    prunedFiles++;
+                } catch (IOException e) {
+                    LOGGER.warn("Cannot remove unused cached diagram " + cachedFile.getPath(), e);
+                }
+            }
+        }
+        if (prunedFiles > 0) {
+            LOGGER.info("Removed {} unused diagram(s) from cache '{}'.", prunedFiles, cacheDirectory.getPath());
+        }
+    }
+
+    /**
+     * Determines the key of a diagram in the cache.
+     *
+     * @param plantUML
+     *            The diagram.
+     * @param layoutEngineVersion
+     *            The version of the layout engine.
+     * @param format
+     *            The target format.
+     * @return The key.
+     */
+    private String getCacheKey(String plantUML, String layoutEngineVersion, FileFormat format) throws ReportException {
+        MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new ReportException("Cannot create digest for diagram cache", e);
+        }
+        messageDigest.update(plantUML.getBytes(UTF_8));
+        messageDigest.update((format.name() + "\n" + Version.versionString() + "\n" + layoutEngineVersion).getBytes(UTF_8));
+        return String.format("%064x", new BigInteger(1, messageDigest.digest()));
     }
 
     /**
@@ -47,9 +307,12 @@ public class ImageRenderer {
      *     The target format.
      * @param file
      *     The {@link File}.
+     * @param profile
+     *     The optional {@link ReportProfile}.
      */
-    private void renderDiagram(String plantUML, File file, FileFormat format) throws ReportException {
+    private void renderDiagram(String plantUML, File file, FileFormat format, ReportProfile profile) throws ReportException {
         LOGGER.info("Rendering diagram '{}' ", file.getPath());
+        ReportProfile.count(profile, "diagrams", 1);
         SourceStringReader reader = new SourceStringReader(plantUML);
         try (FileOutputStream os = new FileOutputStream(file)) {
             reader.outputImage(os, new FileFormatOption(format));
@@ -2,6 +2,7 @@ package com.buschmais.jqassistant.plugin.asciidocreport.plantuml;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BooleanSupplier;
 
 import com.buschmais.jqassistant.core.report.api.ReportException;
 
@@ -28,15 +29,32 @@ public enum RenderMode {
     }
 
     public static RenderMode getRenderMode(String value) throws ReportException {
-        boolean graphvizAvailable = verifyGraphviz();
+        return getRenderMode(value, RenderMode::verifyGraphviz);
+    }
+
+    /**
+     * Returns the {@link RenderMode} for the given string, detecting it if no
+     * value is given.
+     *
+     * @param value
+     *            The {@link RenderMode} as string (optional).
+     * @param graphvizAvailable
+     *            The {@link BooleanSupplier} determining if GraphViz is available,
+     *            only invoked if required.
+     * @return The {@link RenderMode}.
+     * @throws ReportException
+     *             If value is not valid or GraphViz is requested but not
+     *             available.
+     */
+    public static RenderMode getRenderMode(String value, BooleanSupplier graphvizAvailable) throws ReportException {
         if (value != null) {
             RenderMode renderMode = RenderMode.fromString(value);
-            if (GRAPHVIZ == renderMode && !graphvizAvailable) {
+            if (GRAPHVIZ == renderMode && !graphvizAvailable.getAsBoolean()) {
                 throw new ReportException("GraphViz is requested but installation could not be validated.");
             }
             return renderMode;
         }
-        return graphvizAvailable ? GRAPHVIZ : SMETANA;
+        return graphvizAvailable.getAsBoolean() ? GRAPHVIZ : SMETANA;
     }
 
     /**
@@ -57,7 +75,7 @@ public enum RenderMode {
         throw new ReportException(renderMode + " is not a valid, supported modes are " + asList(RenderMode.values()));
     }
 
-    private static boolean verifyGraphviz() {
+    static boolean verifyGraphviz() {
         List<String> results = new ArrayList<>();
         if (GraphvizUtils.addDotStatus(results, false) != 0) {
             for (String result : results) {
@@ -0,0 +1,66 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArtifactCompressorTest {
+
+    private final File directory = new File("target/artifact-compressor");
+
+    private final File file = new File(directory, "index.html");
+
+    @BeforeEach
+    void setUp() throws IOException {
+        FileUtils.deleteDirectory(directory);
+        directory.mkdirs();
+    }
+
+    @Test
+    void compress() throws IOException {
+        FileUtils.writeStringToFile(file, "<html>Report</html>", UTF_8);
+
+        assertThat(ArtifactCompressor.compress(file)).isTrue();
+
+        File gzipFile = ArtifactCompressor.getGzipFile(file);
+        assertThat(gzipFile).hasName("index.html.gz");
+        assertThat(decompress(gzipFile)).isEqualTo("<html>Report</html>");
+        assertThat(gzipFile.lastModified()).isEqualTo(file.lastModified());
+    }
+
+    @Test
+    void unchangedArtifactIsNotCompressedAgain() throws IOException {
+        FileUtils.writeStringToFile(file, "<html>Report</html>", UTF_8);
+        assertThat(ArtifactCompressor.compress(file)).isTrue();
+
+        // rewritten with the same content
+        FileUtils.writeStringToFile(file, "<html>Report</html>", UTF_8);
+        assertThat(ArtifactCompressor.compress(file)).isFalse();
+
+        FileUtils.writeStringToFile(file, "<html>Changed</html>", UTF_8);
+        assertThat(ArtifactCompressor.compress(file)).isTrue();
+        assertThat(decompress(ArtifactCompressor.getGzipFile(file))).isEqualTo("<html>Changed</html>");
+    }
+
+    @Test
+    void missingArtifact() throws IOException {
+        assertThat(ArtifactCompressor.compress(file)).isFalse();
+        assertThat(ArtifactCompressor.getGzipFile(file)).doesNotExist();
+    }
+
+    private String decompress(File gzipFile) throws IOException {
+        try (InputStream inputStream = new GZIPInputStream(new FileInputStream(gzipFile))) {
+            return IOUtils.toString(inputStream, UTF_8);
+        }
+    }
+}
@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.Map;
 
 import com.buschmais.jqassistant.core.report.api.ReportContext;
+import com.buschmais.jqassistant.core.report.api.ReportException;
 import com.buschmais.jqassistant.core.report.api.ReportPlugin;
 import com.buschmais.jqassistant.core.report.api.model.Result;
 import com.buschmais.jqassistant.core.report.impl.CompositeReportPlugin;
@@ -35,6 +36,7 @@ import static java.lang.System.lineSeparator;
 import static java.util.Arrays.asList;
 import static java.util.Collections.*;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -68,6 +70,186 @@ class AsciidocReportPluginTest extends AbstractAsciidocReportPluginTest {
         verify(properties, customReportDirectory);
     }
 
+    @Test
+    void parallelRendering() throws RuleException, IOException {
+        HashMap<String, Object> properties = new HashMap<>();
+        properties.put("asciidoc.report.rule.directory", ruleDirectory.getAbsolutePath());
+        properties.put("asciidoc.report.file.include", "index.adoc,includeRules.adoc");
+        properties.put("asciidoc.report.parallelism", "2");
+        File reportDirectory = new File(outputDirectory, "report/asciidoc");
+        verify(properties, reportDirectory);
+        assertThat(new File(reportDirectory, "includeRules.html").exists()).isTrue();
+    }
+
+    @Test
+    void invalidParallelism() {
+        HashMap<String, Object> properties = new HashMap<>();
+        properties.put("asciidoc.report.parallelism", "0");
+        assertThrows(ReportException.class, () -> configureReportContext(properties));
+    }
+
+    @Test
+    void spilledResultRows() throws RuleException, IOException {
+        HashMap<String, Object> properties = new HashMap<>();
+        properties.put("asciidoc.report.rule.directory", ruleDirectory.getAbsolutePath());
+        properties.put("asciidoc.report.file.include", "index.adoc");
+        properties.put("asciidoc.report.result.inMemoryRows", "0");
+        verify(properties, new File(outputDirectory, "report/asciidoc"));
+    }
+
+    @Test
+    void truncatedResultTable() throws RuleException, IOException {
+        HashMap<String, Object> properties = new HashMap<>();
+        properties.put("asciidoc.report.rule.directory", ruleDirectory.getAbsolutePath());
+        properties.put("asciidoc.report.file.include", "index.adoc");
+        properties.put("asciidoc.report.result.maxRows", "1");
+        configureReportContext(properties);
+        Map<String, Object> additionalRow = new HashMap<>();
+        additionalRow.put("Value", "Foo, \"Baz\"");
+
+        execute(singletonList(additionalRow));
+
+        File reportDirectory = new File(outputDirectory, "report/asciidoc");
+        Document document = Jsoup.parse(new File(reportDirectory, "index.html"), "UTF-8");
+        Element constraintResult = document.getElementById("result(test:Constraint)");
+        assertThat(constraintResult.getElementsByTag("tr")).hasSize(2); // header + 1 row
+        Element truncated = constraintResult.getElementsByClass("jqassistant-result-truncated").first();
+        assertThat(truncated).isNotNull();
+        assertThat(truncated.text()).contains("Showing 1 of 2 rows");
+        assertThat(truncated.getElementsByTag("a").attr("href")).isEqualTo("results/test_Constraint-2ca70161.csv");
+        String csv = FileUtils.readFileToString(new File(reportDirectory, "results/test_Constraint-2ca70161.csv"), "UTF-8");
+        assertThat(csv).isEqualTo("Value\r\n\"Foo\nBar\"\r\n\"Foo, \"\"Baz\"\"\"\r\n");
+    }
+
+    @Test
+    void lazyResultTable() throws RuleException, IOException {
+        HashMap<String, Object> properties = new HashMap<>();
+        properties.put("asciidoc.report.rule.directory", ruleDirectory.getAbsolutePath());
+        properties.put("asciidoc.report.file.include", "index.adoc");
+        properties.put("asciidoc.report.result.lazy", "true");
+        configureReportContext(properties);
+        Map<String, Object> additionalRow = new HashMap<>();
+        additionalRow.put("Value", "Foo, \"Baz\"");
+
+        execute(singletonList(additionalRow));
+
+        File reportDirectory = new File(outputDirectory, "report/asciidoc");
+        Document document = Jsoup.parse(new File(reportDirectory, "index.html"), "UTF-8");
+        Element constraintResult = document.getElementById("result(test:Constraint)");
+        assertThat(constraintResult.getElementsByTag("table")).isEmpty();
+        Element placeholder = constraintResult.getElementsByClass("jqassistant-lazy-result").first();
+        assertThat(placeholder).isNotNull();
+        assertThat(placeholder.attr("data-rule")).isEqualTo("test:Constraint");
+        assertThat(placeholder.attr("data-src")).isEqualTo("results/test_Constraint-2ca70161.js");
+        assertThat(placeholder.getElementsByTag("summary").text()).isEqualTo("2 rows");
+        String script = FileUtils.readFileToString(new File(reportDirectory, "results/test_Constraint-2ca70161.js"), "UTF-8");
+        assertThat(script).isEqualTo(
+                "jqassistantResults.register(\"test:Constraint\", {\"columns\":[\"Value\"],\"rows\":[\n[[\"Foo\",\"Bar\"]],\n[[\"Foo, \\\"Baz\\\"\"]]]});\n");
+    }
+
+    @Test
+    void splitBySection() throws RuleException, IOException {
+        HashMap<String, Object> properties = new HashMap<>();
+        properties.put("asciidoc.report.rule.directory", ruleDirectory.getAbsolutePath());
+        properties.put("asciidoc.report.file.include", "index.adoc");
+        properties.put("asciidoc.report.split", "section");
+        configureReportContext(properties);
+
+        execute();
+
+        File reportDirectory = new File(outputDirectory, "report/asciidoc");
+        Document index = Jsoup.parse(new File(reportDirectory, "index.html"), "UTF-8");
+        Element pageIndex = index.getElementsByClass("jqassistant-page-index").first();
+        assertThat(pageIndex).isNotNull();
+        assertThat(pageIndex.getElementsByTag("a").eachAttr("href")).hasSize(6).allMatch(href -> href.matches("index\\.[1-6]\\.html#.+"));
+        assertThat(index.getElementById("result(test:Concept)")).isNull();
+        assertThat(new File(reportDirectory, "index.7.html")).doesNotExist();
+        Document embeddedRules = Jsoup.parse(new File(reportDirectory, "index.2.html"), "UTF-8");
+        assertThat(embeddedRules.getElementById("result(test:Concept)")).isNotNull();
+        assertThat(embeddedRules.getElementsByClass("jqassistant-page-navigation").first().text()).contains("Page 2 of 6");
+    }
+
+    @Test
+    void splitLazyResultTables() throws RuleException, IOException {
+        HashMap<String, Object> properties = new HashMap<>();
+        properties.put("asciidoc.report.rule.directory", ruleDirectory.getAbsolutePath());
+        properties.put("asciidoc.report.file.include", "index.adoc");
+        properties.put("asciidoc.report.split", "section");
+        properties.put("asciidoc.report.result.lazy", "true");
+        configureReportContext(properties);
+
+        execute();
+
+        File reportDirectory = new File(outputDirectory, "report/asciidoc");
+        List<File> pages = DocumentSplitter.getPageFiles(new File(reportDirectory, "index.html"));
+        assertThat(pages).hasSize(6);
+        for (File page : pages) {
+            Document document = Jsoup.parse(page, "UTF-8");
+            assertThat(document.head().getElementsByTag("script").html()).contains("window.jqassistantResults");
+        }
+        Document embeddedRules = Jsoup.parse(new File(reportDirectory, "index.2.html"), "UTF-8");
+        assertThat(embeddedRules.getElementById("result(test:Concept)").getElementsByClass("jqassistant-lazy-result")).hasSize(1);
+        assertThat(new File(reportDirectory, "index.html.split.tmp")).doesNotExist();
+    }
+
+    @Test
+    void invalidSplit() {
+        HashMap<String, Object> properties = new HashMap<>();
+        properties.put("asciidoc.report.split", "chapter");
+        assertThrows(ReportException.class, () -> configureReportContext(properties));
+    }
+
+    @Test
+    void invalidMaxRows() {
+        HashMap<String, Object> properties = new HashMap<>();
+        properties.put("asciidoc.report.result.maxRows", "0");
+        assertThrows(ReportException.class, () -> configureReportContext(properties));
+    }
+
+    @Test
+    void incrementalRendering() throws RuleException, IOException {
+        HashMap<String, Object> properties = new HashMap<>();
+        properties.put("asciidoc.report.rule.directory", ruleDirectory.getAbsolutePath());
+        properties.put("asciidoc.report.file.include", "index.adoc");
+        properties.put("asciidoc.report.incremental", "true");
+        // documents are only skipped if the version of the plugin is known
+        assertThat(AsciidocReportPlugin.getPluginVersion()).isPresent();
+        File reportDirectory = new File(outputDirectory, "report/asciidoc");
+        verify(properties, reportDirectory);
+        assertThat(new File(reportDirectory, ReportManifest.FILE_NAME).exists()).isTrue();
+        File indexHtml = new File(reportDirectory, "index.html");
+        assertThat(indexHtml.setLastModified(0)).isTrue();
+
+        // unchanged results
+        configureReportContext(properties);
+        execute();
+        assertThat(indexHtml.lastModified()).isZero();
+
+        // changed result
+        configureReportContext(properties);
+        Map<String, Object> additionalRow = new HashMap<>();
+        additionalRow.put("Value", "Baz");
+        execute(singletonList(additionalRow));
+        assertThat(indexHtml.lastModified()).isNotZero();
+    }
+
+    @Test
+    void reportProfile() throws RuleException, IOException {
+        HashMap<String, Object> properties = new HashMap<>();
+        properties.put("asciidoc.report.rule.directory", ruleDirectory.getAbsolutePath());
+        properties.put("asciidoc.report.file.include", "index.adoc");
+        properties.put("asciidoc.report.profile", "true");
+        File reportDirectory = new File(outputDirectory, "report/asciidoc");
+        ReportContext reportContext = configureReportContext(properties);
+        verify(reportContext, reportDirectory);
+        File profileFile = new File(reportDirectory, AsciidocReportPlugin.PROFILE_FILE_NAME);
+        assertThat(profileFile.exists()).isTrue();
+        String profile = FileUtils.readFileToString(profileFile, "UTF-8");
+        assertThat(profile).contains("\"path\" : \"index.adoc\"", "\"read\"", "\"convert\"", "\"tree\"", "\"include\"", "\"postprocess\"",
+                "\"render\"", "\"diagram\"", "\"results\"", "\"rows\"");
+        assertThat(ReportProfile.active(reportContext)).isEmpty();
+    }
+
     @Test
     void smetanaPlantUmlRenderer() throws RuleException, IOException {
         HashMap<String, Object> properties = new HashMap<>();
@@ -92,9 +274,36 @@ class AsciidocReportPluginTest extends AbstractAsciidocReportPluginTest {
         assertThat(plantuml).contains(RenderMode.ELK.getPragma());
     }
 
+    @Test
+    void backgroundPlantUmlRendering() throws RuleException, IOException {
+        HashMap<String, Object> properties = new HashMap<>();
+        properties.put("asciidoc.report.rule.directory", ruleDirectory.getAbsolutePath());
+        properties.put("asciidoc.report.file.include", "index.adoc");
+        properties.put("plantuml.report.rendering.threads", "2");
+        properties.put("plantuml.report.rendering.timeout", "60");
+        verify(properties, new File(outputDirectory, "report/asciidoc"));
+    }
+
+    @Test
+    void invalidRenderingThreads() {
+        HashMap<String, Object> properties = new HashMap<>();
+        properties.put("plantuml.report.rendering.threads", "-1");
+        assertThrows(ReportException.class, () -> configureReportContext(properties));
+    }
+
+    @Test
+    void invalidRenderingTimeout() {
+        HashMap<String, Object> properties = new HashMap<>();
+        properties.put("plantuml.report.rendering.threads", "2");
+        properties.put("plantuml.report.rendering.timeout", "0");
+        assertThrows(ReportException.class, () -> configureReportContext(properties));
+    }
+
     private String verify(Map<String, Object> properties, File expectedDirectory) throws RuleException, IOException {
-        ReportContext reportContext = configureReportContext(properties);
+        return verify(configureReportContext(properties), expectedDirectory);
+    }
 
+    private String verify(ReportContext reportContext, File expectedDirectory) throws RuleException, IOException {
         Concept componentDiagram = execute();
 
         String file = "index.html";
@@ -123,6 +332,10 @@ class AsciidocReportPluginTest extends AbstractAsciidocReportPluginTest {
     }
 
     private Concept execute() throws RuleException {
+        return execute(emptyList());
+    }
+
+    private Concept execute(List<Map<String, Object>> additionalConstraintRows) throws RuleException {
         ReportPlugin plugin = new CompositeReportPlugin(reportPlugins);
         plugin.initialize();
         plugin.begin();
@@ -135,8 +348,10 @@ class AsciidocReportPluginTest extends AbstractAsciidocReportPluginTest {
         processConcept(plugin, concept, new Result<>(concept, SUCCESS, Severity.MAJOR, singletonList("Value"), rows));
 
         Constraint constraint = ruleSet.getConstraintBucket().getById("test:Constraint");
+        List<Map<String, Object>> constraintRows = new ArrayList<>(rows);
+        constraintRows.addAll(additionalConstraintRows);
         processConstraint(plugin, constraint, Result.<Constraint> builder().rule(constraint).status(FAILURE)
-            .severity(Severity.MAJOR).columnNames(singletonList("Value")).rows(rows).build());
+            .severity(Severity.MAJOR).columnNames(singletonList("Value")).rows(constraintRows).build());
 
         Concept componentDiagram = ruleSet.getConceptBucket().getById("test:ComponentDiagram");
         List<Map<String, Object>> diagramRows = new ArrayList<>();
@@ -176,14 +391,18 @@ class AsciidocReportPluginTest extends AbstractAsciidocReportPluginTest {
     private void verifyToggle(String html) {
         // Toggle for rule content (i.e. Cypher source)
         assertThat(html).contains("<input type=\"checkbox\" class=\"jqassistant-rule-toggle\" title=\"Rule details\">");
-        assertThat(html).contains("<div class=\"content\" id=\"jqassistant-rule-listing0\">");
-        assertThat(html).contains("<style>" + lineSeparator() + //
-                "#jqassistant-rule-listing0{" + lineSeparator() + //
+        assertThat(html).contains("<div class=\"content jqassistant-rule-listing\">");
+        assertThat(html).doesNotContain("id=\"jqassistant-rule-listing0\"");
+        String styles = "<style>" + lineSeparator() + //
+                ".jqassistant-rule-listing{" + lineSeparator() + //
                 "  display:none;" + lineSeparator() + //
                 "}" + lineSeparator() + //
-                "input.jqassistant-rule-toggle:checked + #jqassistant-rule-listing0{" + lineSeparator() + //
+                "input.jqassistant-rule-toggle:checked + .jqassistant-rule-listing{" + lineSeparator() + //
                 "  display:block;" + lineSeparator() + //
-                "}");
+                "}";
+        assertThat(html).contains(styles);
+        // emitted once in the head of the document
+        assertThat(html.indexOf(styles)).isLessThan(html.indexOf("</head>")).isEqualTo(html.lastIndexOf(styles));
     }
 
     private void verifyDiagram(Concept concept, ReportContext reportContext, String html) {
@@ -0,0 +1,50 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+
+import com.buschmais.jqassistant.core.rule.api.model.RuleException;
+
+import org.apache.commons.io.FileUtils;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Renders rule sets created by the {@link SyntheticRuleSetGenerator}.
+ * <p>
+ * The scaling of the rendering time is measured by the
+ * <code>ReportScalingBenchmark</code> (profile "jmh").
+ */
+class AsciidocReportScalingTest {
+
+    private final File outputDirectory = new File("target/scaling");
+
+    @Test
+    void generatedReport() throws IOException, RuleException {
+        SyntheticRuleSetGenerator generator = SyntheticRuleSetGenerator.builder().documents(3).rulesPerDocument(6).diagramsPerDocument(1)
+                .includeDepth(2).rows(20).build();
+        File directory = new File(outputDirectory, "generatedReport");
+        FileUtils.deleteDirectory(directory);
+        SyntheticRuleSetGenerator.GeneratedRuleSet generatedRuleSet = generator.generate(new File(directory, "jqassistant"));
+
+        generator.render(generatedRuleSet, directory, new HashMap<>());
+
+        File reportDirectory = new File(directory, "report/asciidoc");
+        assertThat(new File(reportDirectory, "index.html").exists()).isTrue();
+        for (int document = 0; document < 3; document++) {
+            File chapterHtml = new File(reportDirectory, "chapter" + document + ".html");
+            assertThat(chapterHtml.exists()).isTrue();
+            Document html = Jsoup.parse(chapterHtml, "UTF-8");
+            for (int ruleBlock = 0; ruleBlock < 6; ruleBlock++) {
+                assertThat(html.getElementById("result(" + SyntheticRuleSetGenerator.getRuleId(document, ruleBlock) + ")")).isNotNull();
+            }
+            assertThat(html.getElementById("result(" + SyntheticRuleSetGenerator.getDiagramId(document, 0) + ")").getElementsByTag("img")).isNotEmpty();
+            assertThat(html.getElementsByClass("summary")).hasSize(2);
+            assertThat(html.text()).contains("Part 2 of chapter " + document);
+        }
+    }
+}
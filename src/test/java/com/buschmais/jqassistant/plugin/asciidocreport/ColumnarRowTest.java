@@ -0,0 +1,53 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ColumnarRowTest {
+
+    private static final List<String> COLUMN_NAMES = asList("Type", "Members", "Empty", "Absent");
+
+    @Test
+    void columnarRow() {
+        Map<String, List<String>> row = new LinkedHashMap<>();
+        row.put("Type", singletonList("com.acme.Type"));
+        row.put("Members", asList("a", null, "b"));
+        row.put("Empty", emptyList());
+
+        Map<String, List<String>> columnarRow = ColumnarRow.of(COLUMN_NAMES, row, value -> value);
+
+        assertThat(columnarRow).isInstanceOf(ColumnarRow.class).isEqualTo(row);
+        assertThat(columnarRow).containsOnlyKeys("Type", "Members", "Empty");
+        assertThat(columnarRow.get("Type")).containsExactly("com.acme.Type");
+        assertThat(columnarRow.get("Members")).containsExactly("a", null, "b");
+        assertThat(columnarRow.get("Empty")).isEmpty();
+        assertThat(columnarRow.get("Absent")).isNull();
+        assertThat(columnarRow.containsKey("Absent")).isFalse();
+    }
+
+    @Test
+    void undeclaredColumn() {
+        Map<String, List<String>> row = new LinkedHashMap<>();
+        row.put("Undeclared", singletonList("value"));
+
+        assertThat(ColumnarRow.of(COLUMN_NAMES, row, value -> value)).isSameAs(row);
+    }
+
+    @Test
+    void internedValues() throws Exception {
+        try (ResultRowStore store = new ResultRowStore(10)) {
+            String type1 = new String("com.acme.Type");
+            String type2 = new String("com.acme.Type");
+            Map<String, List<String>> row1 = ColumnarRow.of(COLUMN_NAMES, Collections.singletonMap("Type", singletonList(type1)), store::intern);
+            Map<String, List<String>> row2 = ColumnarRow.of(COLUMN_NAMES, Collections.singletonMap("Type", singletonList(type2)), store::intern);
+
+            assertThat(row2.get("Type").get(0)).isSameAs(row1.get("Type").get(0));
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.util.Optional;
+import java.util.concurrent.*;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DocumentContextTest {
+
+    @Test
+    void activateAndClose() {
+        DocumentContext documentContext = DocumentContext.builder().relativePath("index.adoc").build();
+        assertThat(DocumentContext.current()).isEmpty();
+
+        try (DocumentContext activeDocumentContext = documentContext.activate()) {
+            assertThat(DocumentContext.current()).containsSame(documentContext);
+            assertThrows(IllegalStateException.class, () -> DocumentContext.builder().build().activate());
+        }
+
+        assertThat(DocumentContext.current()).isEmpty();
+    }
+
+    @Test
+    void threadScope() throws ExecutionException, InterruptedException {
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try (DocumentContext activeDocumentContext = DocumentContext.builder().build().activate()) {
+            Future<Optional<DocumentContext>> otherThreadContext = executorService.submit(() -> DocumentContext.current());
+            assertThat(otherThreadContext.get()).isEmpty();
+        } finally {
+            executorService.shutdown();
+        }
+    }
+}
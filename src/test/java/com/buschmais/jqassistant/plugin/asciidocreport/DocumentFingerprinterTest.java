@@ -0,0 +1,64 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Optional;
+
+import com.buschmais.jqassistant.core.report.api.ReportContext;
+import com.buschmais.jqassistant.core.rule.api.source.RuleSource;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.emptySet;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+class DocumentFingerprinterTest {
+
+    private static final String CONTENT = "= Document\n\ninclude::plugin/include.adoc[]\n";
+
+    private final File classpathDirectory = new File("target/document-fingerprinter");
+
+    private final File resource = new File(classpathDirectory, "META-INF/jqassistant-rules/plugin/include.adoc");
+
+    private final RuleSource ruleSource = mock(RuleSource.class);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        FileUtils.deleteDirectory(classpathDirectory);
+        doReturn("index.adoc").when(ruleSource).getRelativePath();
+        doReturn(Optional.empty()).when(ruleSource).getDirectory();
+    }
+
+    @Test
+    void includedPluginResource() throws IOException {
+        FileUtils.writeStringToFile(resource, "Included", UTF_8);
+        String fingerprint = getFingerprint();
+        assertThat(getFingerprint()).isEqualTo(fingerprint);
+
+        FileUtils.writeStringToFile(resource, "Changed", UTF_8);
+        assertThat(getFingerprint()).isNotEqualTo(fingerprint);
+
+        FileUtils.forceDelete(resource);
+        assertThat(getFingerprint()).isNotEqualTo(fingerprint);
+    }
+
+    /**
+     * Computes the fingerprint using a new {@link PluginResourceResolver} as
+     * resources are resolved only once per report run.
+     */
+    private String getFingerprint() throws IOException {
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] { classpathDirectory.toURI().toURL() }, null)) {
+            DocumentFingerprinter documentFingerprinter = new DocumentFingerprinter("", emptyMap(), emptyMap(), mock(ReportContext.class),
+                    new PluginResourceResolver(classLoader, false));
+            return documentFingerprinter.getFingerprint(ruleSource, CONTENT, emptySet(), false);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.buschmais.jqassistant.core.shared.asciidoc.DocumentParser;
+
+import org.asciidoctor.ast.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DocumentParserCacheTest {
+
+    @Mock
+    private DocumentParser documentParser;
+
+    @Mock
+    private Document document;
+
+    private final AtomicLong avoidedParses = new AtomicLong();
+
+    private DocumentParserCache documentParserCache;
+
+    @BeforeEach
+    void setUp() {
+        documentParserCache = new DocumentParserCache(documentParser, avoidedParses);
+    }
+
+    @Test
+    void cachedResult() {
+        DocumentParser.Result result = mock(DocumentParser.Result.class);
+        when(documentParser.parse(document)).thenReturn(result);
+
+        assertThat(documentParserCache.parse(document)).isSameAs(result);
+        assertThat(documentParserCache.parse(document)).isSameAs(result);
+
+        verify(documentParser, times(1)).parse(document);
+        assertThat(avoidedParses.get()).isEqualTo(1);
+    }
+
+    @Test
+    void release() {
+        DocumentParser.Result result = mock(DocumentParser.Result.class);
+        DocumentParser.Result updatedResult = mock(DocumentParser.Result.class);
+        when(documentParser.parse(document)).thenReturn(result, updatedResult);
+
+        assertThat(documentParserCache.parse(document)).isSameAs(result);
+        documentParserCache.release(document);
+        assertThat(documentParserCache.parse(document)).isSameAs(updatedResult);
+
+        verify(documentParser, times(2)).parse(document);
+        assertThat(avoidedParses.get()).isZero();
+    }
+}
@@ -13,6 +13,8 @@ import com.buschmais.jqassistant.core.rule.api.model.Severity;
 import org.apache.commons.io.FileUtils;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
 import org.junit.jupiter.api.Test;
 
 import static com.buschmais.jqassistant.core.report.api.model.Result.Status.SUCCESS;
@@ -56,6 +58,74 @@ class IncludeRulesTest extends AbstractAsciidocReportPluginTest {
         verifyRule(document, "test:IncludedConstraint", "Included Constraint", SUCCESS, "Status: SUCCESS, Severity: MAJOR");
         assertThat(document.getElementById("test:NonIncludedConstraint")).isNull();
 
+        // the placeholder of the include is replaced by the included blocks
+        assertThat(document.getElementsByClass(IncludeProcessor.PLACEHOLDER_ROLE)).isEmpty();
+    }
+
+    @Test
+    void includeInTableCell() throws RuleException, IOException {
+        HashMap<String, Object> properties = new HashMap<>();
+        properties.put("asciidoc.report.rule.directory", ruleDirectory.getAbsolutePath());
+        properties.put("asciidoc.report.file.include", "includeRulesTable.adoc");
+        configureReportContext(properties);
+
+        ReportPlugin plugin = new CompositeReportPlugin(reportPlugins);
+        plugin.begin();
+
+        processConcept(plugin, "test:IncludedConcept", SUCCESS, Severity.MINOR, singletonList("Value"), emptyList());
+        processConstraint(plugin, "test:IncludedConstraint", SUCCESS, Severity.MAJOR, singletonList("Value"), emptyList());
+
+        plugin.end();
+
+        File indexHtml = new File(outputDirectory, "report/asciidoc/includeRulesTable.html");
+        assertThat(indexHtml.exists()).isTrue();
+        Document document = Jsoup.parse(indexHtml, "UTF-8");
+        Element cell = document.getElementsByTag("td").first();
+        assertThat(cell).isNotNull();
+        assertThat(cell.getElementById("test:IncludedConcept")).isNotNull();
+        assertThat(cell.getElementById("test:IncludedConstraint")).isNotNull();
+        assertThat(document.getElementsByClass(IncludeProcessor.PLACEHOLDER_ROLE)).isEmpty();
+        verifyRule(document, "test:IncludedConcept", "Included Concept", SUCCESS, "Status: SUCCESS, Severity: MINOR");
+    }
+
+    @Test
+    void includeInNestedBlocks() throws RuleException, IOException {
+        HashMap<String, Object> properties = new HashMap<>();
+        properties.put("asciidoc.report.rule.directory", ruleDirectory.getAbsolutePath());
+        properties.put("asciidoc.report.file.include", "includeRulesNested.adoc");
+        configureReportContext(properties);
+
+        ReportPlugin plugin = new CompositeReportPlugin(reportPlugins);
+        plugin.begin();
+
+        processConcept(plugin, "test:IncludedConcept", SUCCESS, Severity.MINOR, singletonList("Value"), emptyList());
+        processConcept(plugin, "test:NonIncludedConcept", SUCCESS, Severity.MINOR, singletonList("Value"), emptyList());
+        processConstraint(plugin, "test:IncludedConstraint", SUCCESS, Severity.MAJOR, singletonList("Value"), emptyList());
+        processConstraint(plugin, "test:NonIncludedConstraint", SUCCESS, Severity.MAJOR, singletonList("Value"), emptyList());
+
+        plugin.end();
+
+        File indexHtml = new File(outputDirectory, "report/asciidoc/includeRulesNested.html");
+        assertThat(indexHtml.exists()).isTrue();
+        Document document = Jsoup.parse(indexHtml, "UTF-8");
+        // include within an open block
+        Element openBlock = document.getElementsByClass("openblock").first();
+        assertThat(openBlock).isNotNull();
+        assertThat(openBlock.getElementById("test:IncludedConcept")).isNotNull();
+        assertThat(openBlock.text()).contains("Before the include.", "After the include.");
+        // include within an open block of a list continuation
+        Elements listItems = document.select("div.ulist > ul > li");
+        assertThat(listItems).hasSize(2);
+        assertThat(listItems.get(0).getElementById("test:IncludedConstraint")).isNotNull();
+        assertThat(listItems.get(1).text()).isEqualTo("Second item");
+        // includes within descriptions of a description list
+        Elements descriptions = document.select("div.dlist dd");
+        assertThat(descriptions).hasSize(2);
+        assertThat(descriptions.get(0).getElementById("test:NonIncludedConcept")).isNotNull();
+        assertThat(descriptions.get(1).getElementById("test:NonIncludedConstraint")).isNotNull();
+        assertThat(document.select("h2").eachText()).containsExactly("Open Block", "List Continuation", "Description List", "Other Stuff");
+        assertThat(document.getElementsByClass(IncludeProcessor.PLACEHOLDER_ROLE)).isEmpty();
+        assertThat(document.getElementsByTag("hr")).isEmpty();
     }
 
 }
@@ -0,0 +1,35 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.buschmais.jqassistant.core.rule.api.model.Concept;
+
+import org.junit.jupiter.api.Test;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LazyResultTableTest {
+
+    @Test
+    void nullValues() throws IOException {
+        Map<String, List<String>> row = new LinkedHashMap<>();
+        row.put("Members", asList("a", null, "b\u2028"));
+        RuleResult result = RuleResult.builder()
+                .rule(Concept.builder().id("test:Concept").build())
+                .columnNames(asList("Members", "Absent"))
+                .rows(singletonList(row))
+                .build();
+        StringWriter writer = new StringWriter();
+
+        LazyResultTable.writeScript(result, writer);
+
+        assertThat(writer.toString()).isEqualTo(
+                "jqassistantResults.register(\"test:Concept\", {\"columns\":[\"Members\",\"Absent\"],\"rows\":[\n[[\"a\",null,\"b\\u2028\"],[]]]});\n");
+    }
+}
@@ -26,8 +26,10 @@ class PluginIncludeProcessorTest {
     @Mock
     private PreprocessorReader preprocessorReader;
 
-    private final PluginIncludeProcessor classpathIncludeProcessor = new PluginIncludeProcessor(PluginIncludeProcessorTest.class.getClassLoader(),
-        "test/index.adoc");
+    private final PluginIncludeProcessor classpathIncludeProcessor = new PluginIncludeProcessor();
+
+    private final DocumentContext documentContext = DocumentContext.builder().relativePath("test/index.adoc")
+        .pluginResourceResolver(new PluginResourceResolver(PluginIncludeProcessorTest.class.getClassLoader(), false)).build();
 
     @Test
     void relativeInclude() {
@@ -41,13 +43,24 @@ class PluginIncludeProcessorTest {
 
     @Test
     void nonMatchingInclude() {
-        classpathIncludeProcessor.process(document, preprocessorReader, "non-matching.adoc", emptyMap());
+        try (DocumentContext activeDocumentContext = documentContext.activate()) {
+            assertThat(classpathIncludeProcessor.handles("non-matching.adoc")).isFalse();
+            classpathIncludeProcessor.process(document, preprocessorReader, "non-matching.adoc", emptyMap());
+        }
 
         verify(preprocessorReader, never()).pushInclude(anyString(), anyString(), anyString(), anyInt(), anyMap());
     }
 
+    @Test
+    void noActiveDocumentContext() {
+        assertThat(classpathIncludeProcessor.handles("include/include.adoc")).isFalse();
+    }
+
     private void verifyInclude(String target) {
-        classpathIncludeProcessor.process(document, preprocessorReader, target, emptyMap());
+        try (DocumentContext activeDocumentContext = documentContext.activate()) {
+            assertThat(classpathIncludeProcessor.handles(target)).isTrue();
+            classpathIncludeProcessor.process(document, preprocessorReader, target, emptyMap());
+        }
 
         ArgumentCaptor<String> dataCaptor = ArgumentCaptor.forClass(String.class);
         verify(preprocessorReader).pushInclude(dataCaptor.capture(), eq(target), anyString(), eq(1), anyMap());
@@ -0,0 +1,66 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PluginResourceResolverTest {
+
+    private static final String INCLUDE = "META-INF/jqassistant-rules/test/include/include.adoc";
+
+    private static final String MISSING = "META-INF/jqassistant-rules/test/include/missing.adoc";
+
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    private final ClassLoader classLoader = new ClassLoader(PluginResourceResolverTest.class.getClassLoader()) {
+        @Override
+        public URL getResource(String name) {
+            lookups.incrementAndGet();
+            return super.getResource(name);
+        }
+    };
+
+    @Test
+    void resourcesAreResolvedOnce() throws IOException {
+        PluginResourceResolver resolver = new PluginResourceResolver(classLoader, false);
+
+        Optional<URL> include = resolver.resolve(INCLUDE);
+        assertThat(resolver.resolve(INCLUDE)).isEqualTo(include);
+        assertThat(resolver.resolve(MISSING)).isEmpty();
+        assertThat(resolver.resolve(MISSING)).isEmpty();
+
+        assertThat(include).isPresent();
+        assertThat(IOUtils.toString(include.get(), UTF_8)).startsWith("= Test");
+        assertThat(lookups.get()).isEqualTo(2);
+    }
+
+    @Test
+    void indexedResources() throws IOException {
+        PluginResourceResolver resolver = new PluginResourceResolver(classLoader, true);
+
+        Optional<URL> include = resolver.resolve(INCLUDE);
+        Optional<URL> missing = resolver.resolve(MISSING);
+
+        assertThat(include).isPresent();
+        assertThat(IOUtils.toString(include.get(), UTF_8)).isEqualTo(IOUtils.toString(classLoader.getResource(INCLUDE), UTF_8));
+        assertThat(missing).isEmpty();
+        // the verification above uses the class loader once
+        assertThat(lookups.get()).isEqualTo(1);
+    }
+
+    @Test
+    void notNormalizedResourcesAreResolvedByClassLoader() {
+        PluginResourceResolver resolver = new PluginResourceResolver(classLoader, true);
+
+        resolver.resolve("META-INF/jqassistant-rules/test/../test/include/missing.adoc");
+
+        assertThat(lookups.get()).isEqualTo(1);
+    }
+}
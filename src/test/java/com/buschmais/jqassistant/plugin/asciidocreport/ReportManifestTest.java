@@ -0,0 +1,57 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReportManifestTest {
+
+    private final File reportDirectory = new File("target/report-manifest");
+
+    @Test
+    void storeAndLoad() throws IOException {
+        reportDirectory.mkdirs();
+        ReportManifest reportManifest = new ReportManifest(reportDirectory);
+        reportManifest.put("index.adoc", new ReportManifest.Entry("abc", new TreeSet<>(asList("test:Concept", "test:Constraint")), true));
+        reportManifest.put("sub/other.adoc", new ReportManifest.Entry("def", new TreeSet<>(), false));
+        reportManifest.put("removed.adoc", new ReportManifest.Entry("ghi", new TreeSet<>(), false));
+        reportManifest.remove("removed.adoc");
+        reportManifest.store();
+
+        ReportManifest loadedManifest = new ReportManifest(reportDirectory);
+        loadedManifest.load();
+
+        Optional<ReportManifest.Entry> index = loadedManifest.get("index.adoc");
+        assertThat(index).isPresent();
+        assertThat(index.get().getFingerprint()).isEqualTo("abc");
+        assertThat(index.get().getRuleIds()).containsExactly("test:Concept", "test:Constraint");
+        assertThat(index.get().isAllResults()).isTrue();
+        Optional<ReportManifest.Entry> other = loadedManifest.get("sub/other.adoc");
+        assertThat(other).isPresent();
+        assertThat(other.get().getRuleIds()).isEmpty();
+        assertThat(other.get().isAllResults()).isFalse();
+        assertThat(loadedManifest.get("removed.adoc")).isEmpty();
+    }
+
+    @Test
+    void retainExistingDocuments() throws IOException {
+        reportDirectory.mkdirs();
+        ReportManifest reportManifest = new ReportManifest(reportDirectory);
+        reportManifest.put("index.adoc", new ReportManifest.Entry("abc", new TreeSet<>(), false));
+        reportManifest.put("deleted.adoc", new ReportManifest.Entry("def", new TreeSet<>(), false));
+
+        assertThat(reportManifest.retain(asList("index.adoc", "new.adoc"))).isEqualTo(1);
+        reportManifest.store();
+
+        ReportManifest loadedManifest = new ReportManifest(reportDirectory);
+        loadedManifest.load();
+        assertThat(loadedManifest.get("index.adoc")).isPresent();
+        assertThat(loadedManifest.get("deleted.adoc")).isEmpty();
+    }
+}
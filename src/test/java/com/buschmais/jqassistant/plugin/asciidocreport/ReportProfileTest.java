@@ -0,0 +1,71 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import com.buschmais.jqassistant.core.report.api.ReportContext;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ReportProfileTest {
+
+    @Test
+    void documentStagesAndCounters() throws IOException {
+        ReportProfile reportProfile = new ReportProfile();
+        ReportProfile.DocumentProfile documentProfile = reportProfile.document("index.adoc");
+        try (ReportProfile.Measurement measurement = documentProfile.measure("convert")) {
+            documentProfile.count("rows", 2);
+        }
+        try (ReportProfile.Measurement measurement = documentProfile.measure("convert")) {
+            documentProfile.count("rows", 3);
+        }
+        reportProfile.deactivate();
+
+        String json = toJson(reportProfile);
+
+        assertThat(json).contains("\"path\" : \"index.adoc\"", "\"convert\" : { \"count\" : 2, \"nanos\" : ", "\"counters\" : { \"rows\" : 5 }");
+    }
+
+    @Test
+    void activeProfilePerReportContext() throws IOException {
+        ReportContext reportContext = mock(ReportContext.class);
+        ReportContext otherReportContext = mock(ReportContext.class);
+        ReportProfile reportProfile = new ReportProfile().activate(reportContext);
+        ReportProfile otherReportProfile = new ReportProfile().activate(otherReportContext);
+        try (ReportProfile.Measurement measurement = ReportProfile.measure(ReportProfile.active(reportContext).orElse(null), "diagram")) {
+            ReportProfile.count(ReportProfile.active(reportContext).orElse(null), "diagrams", 1);
+        }
+        assertThat(ReportProfile.active(reportContext)).containsSame(reportProfile);
+        assertThat(ReportProfile.active(otherReportContext)).containsSame(otherReportProfile);
+        reportProfile.deactivate();
+        assertThat(ReportProfile.active(reportContext)).isEmpty();
+        assertThat(ReportProfile.active(otherReportContext)).containsSame(otherReportProfile);
+        otherReportProfile.deactivate();
+        // not recorded as no profile is active
+        try (ReportProfile.Measurement measurement = ReportProfile.measure(ReportProfile.active(reportContext).orElse(null), "diagram")) {
+            ReportProfile.count(ReportProfile.active(reportContext).orElse(null), "diagrams", 1);
+        }
+
+        String json = toJson(reportProfile);
+
+        assertThat(json).contains("\"diagram\" : { \"count\" : 1, \"nanos\" : ", "\"counters\" : { \"diagrams\" : 1 }", "\"documents\" : []");
+        assertThat(toJson(otherReportProfile)).contains("\"stages\" : {}");
+    }
+
+    @Test
+    void escapeDocumentPath() throws IOException {
+        ReportProfile reportProfile = new ReportProfile();
+        reportProfile.document("a\"b\\c.adoc");
+
+        assertThat(toJson(reportProfile)).contains("\"path\" : \"a\\\"b\\\\c.adoc\"");
+    }
+
+    private static String toJson(ReportProfile reportProfile) throws IOException {
+        StringWriter writer = new StringWriter();
+        reportProfile.writeJson(writer);
+        return writer.toString();
+    }
+}
@@ -0,0 +1,85 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResultFragmentStoreTest {
+
+    private final AtomicInteger renderings = new AtomicInteger();
+
+    @Test
+    void fragmentsAreRenderedOnce() throws IOException {
+        try (ResultFragmentStore store = new ResultFragmentStore(1024)) {
+            assertThat(store.get("test:Concept", () -> render("<table>Concept</table>"))).isEqualTo("<table>Concept</table>");
+            assertThat(store.get("test:Concept", () -> render("<table>Other</table>"))).isEqualTo("<table>Concept</table>");
+
+            assertThat(renderings.get()).isEqualTo(1);
+            assertThat(store.getRenderedFragments()).isEqualTo(1);
+            assertThat(store.getReusedFragments()).isEqualTo(1);
+            assertThat(store.getSpilledBytes()).isZero();
+        }
+    }
+
+    @Test
+    void leastRecentlyUsedFragmentsAreSpilled() throws IOException {
+        try (ResultFragmentStore store = new ResultFragmentStore(10)) {
+            store.get("test:Concept1", () -> render("Concept1 ä"));
+            store.get("test:Concept2", () -> render("Concept2"));
+            store.get("test:Concept3", () -> render("Concept3 is larger than the budget"));
+
+            assertThat(store.get("test:Concept1", () -> render("Other"))).isEqualTo("Concept1 ä");
+            assertThat(store.get("test:Concept2", () -> render("Other"))).isEqualTo("Concept2");
+            assertThat(store.get("test:Concept3", () -> render("Other"))).isEqualTo("Concept3 is larger than the budget");
+
+            assertThat(renderings.get()).isEqualTo(3);
+            assertThat(store.getReusedFragments()).isEqualTo(3);
+            assertThat(store.getSpilledBytes()).isPositive();
+        }
+    }
+
+    @Test
+    void concurrentWriterWaitsForOutcome() throws Exception {
+        Path path = Paths.get("target/result-fragment-store/test_Constraint.csv");
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch failing = new CountDownLatch(1);
+        AtomicInteger writes = new AtomicInteger();
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try (ResultFragmentStore store = new ResultFragmentStore(1024)) {
+            Future<Boolean> first = executorService.submit(() -> store.write(path, () -> {
+                writes.incrementAndGet();
+                writing.countDown();
+                try {
+                    failing.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return false;
+            }));
+            writing.await();
+            CompletableFuture<Boolean> second = CompletableFuture.supplyAsync(() -> store.write(path, () -> {
+                writes.incrementAndGet();
+                return true;
+            }));
+            failing.countDown();
+
+            assertThat(first.get()).isFalse();
+            // the second caller does not link the file which could not be written
+            assertThat(second.get()).isFalse();
+            assertThat(writes.get()).isEqualTo(1);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private String render(String fragment) {
+        renderings.incrementAndGet();
+        return fragment;
+    }
+}
@@ -0,0 +1,97 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.io.IOException;
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResultRowStoreTest {
+
+    @Test
+    void inMemory() throws IOException {
+        try (ResultRowStore store = new ResultRowStore(10)) {
+            ResultRows rows = store.builder(singletonList("Value")).row(row("Value", "a")).row(row("Value", "b")).build();
+
+            assertThat(rows).containsExactly(row("Value", "a"), row("Value", "b"));
+            assertThat(store.getStoredRows()).isEqualTo(2);
+            assertThat(store.getSpilledRows()).isZero();
+            assertThat(store.getSpilledBytes()).isZero();
+        }
+    }
+
+    @Test
+    void spillToDisk() throws IOException {
+        try (ResultRowStore store = new ResultRowStore(2)) {
+            List<String> columnNames = asList("Key", "Value");
+            ResultRows.Builder builder1 = store.builder(columnNames);
+            for (int i = 0; i < 3; i++) {
+                builder1.row(row(i));
+            }
+            ResultRows rows1 = builder1.build();
+            ResultRows.Builder builder2 = store.builder(columnNames);
+            for (int i = 3; i < 5; i++) {
+                builder2.row(row(i));
+            }
+            ResultRows rows2 = builder2.build();
+
+            assertThat(rows1).hasSize(3).containsExactly(row(0), row(1), row(2));
+            assertThat(rows2).hasSize(2).containsExactly(row(3), row(4));
+            assertThat(rows1.get(2)).isEqualTo(row(2));
+            assertThat(rows2.get(1)).isEqualTo(row(4));
+            assertThat(store.getStoredRows()).isEqualTo(5);
+            assertThat(store.getSpilledRows()).isEqualTo(3);
+            assertThat(store.getSpilledBytes()).isPositive();
+        }
+    }
+
+    @Test
+    void closeIteratorOfSpilledRows() throws IOException {
+        try (ResultRowStore store = new ResultRowStore(1)) {
+            ResultRows.Builder builder = store.builder(asList("Key", "Value"));
+            for (int i = 0; i < 4; i++) {
+                builder.row(row(i));
+            }
+            ResultRows rows = builder.build();
+
+            try (ResultRows.RowIterator iterator = ResultRows.iterate(rows)) {
+                assertThat(iterator.next()).isEqualTo(row(0));
+                assertThat(iterator.next()).isEqualTo(row(1));
+                iterator.close();
+                assertThat(iterator.hasNext()).isFalse();
+            }
+            try (ResultRows.RowIterator iterator = ResultRows.iterate(singletonList(row(0)))) {
+                assertThat(iterator.next()).isEqualTo(row(0));
+                assertThat(iterator.hasNext()).isFalse();
+            }
+        }
+    }
+
+    @Test
+    void spillUnknownColumnsAndNullValues() throws IOException {
+        try (ResultRowStore store = new ResultRowStore(0)) {
+            Map<String, List<String>> row = new LinkedHashMap<>();
+            row.put("Unknown", asList("ä", null));
+            row.put("Value", Collections.emptyList());
+            ResultRows rows = store.builder(singletonList("Value")).row(row).build();
+
+            assertThat(rows).containsExactly(row);
+        }
+    }
+
+    private static Map<String, List<String>> row(int i) {
+        Map<String, List<String>> row = new LinkedHashMap<>();
+        row.put("Key", singletonList("key" + i));
+        row.put("Value", asList("value" + i, "other" + i));
+        return row;
+    }
+
+    private static Map<String, List<String>> row(String column, String value) {
+        Map<String, List<String>> row = new LinkedHashMap<>();
+        row.put(column, singletonList(value));
+        return row;
+    }
+}
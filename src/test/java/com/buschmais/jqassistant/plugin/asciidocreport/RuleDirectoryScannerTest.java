@@ -0,0 +1,124 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Stream;
+
+import com.buschmais.jqassistant.plugin.common.api.scanner.filesystem.FilePatternMatcher;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static java.util.concurrent.TimeUnit.HOURS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RuleDirectoryScannerTest {
+
+    private final File directory = new File("target/rule-directory-scanner");
+
+    private final File ruleDirectory = new File(directory, "jqassistant");
+
+    private final Queue<String> filteredFiles = new ConcurrentLinkedQueue<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        FileUtils.deleteDirectory(directory);
+        createFile("index.adoc");
+        createFile("docs/index.adoc");
+        createFile("docs/chapter.adoc");
+        createFile("docs/images/diagram.png");
+        createFile("docs/archive/index.adoc");
+        createFile("other/index.adoc");
+        createFile("other/nested/index.adoc");
+    }
+
+    @Test
+    void scanAllDirectories() throws IOException {
+        RuleDirectoryScanner scanner = createScanner("index.adoc,**/index.adoc", null, null);
+
+        assertThat(scanner.scan()).containsExactly("docs/archive/index.adoc", "docs/index.adoc", "index.adoc", "other/index.adoc",
+                "other/nested/index.adoc");
+    }
+
+    @Test
+    void pruneDirectoriesNotMatchingIncludes() throws IOException {
+        RuleDirectoryScanner scanner = createScanner("docs/*.adoc", null, null);
+
+        assertThat(scanner.scan()).contains("docs/chapter.adoc", "docs/index.adoc");
+        assertThat(filteredFiles).noneMatch(file -> file.startsWith("other/"));
+    }
+
+    @Test
+    void pruneExcludedDirectories() throws IOException {
+        RuleDirectoryScanner scanner = createScanner("*.adoc,**/*.adoc", "docs/archive/**", null);
+
+        assertThat(scanner.scan()).contains("docs/chapter.adoc", "docs/index.adoc", "other/index.adoc", "other/nested/index.adoc")
+                .doesNotContain("docs/archive/index.adoc");
+        assertThat(filteredFiles).noneMatch(file -> file.startsWith("docs/archive/"));
+    }
+
+    @Test
+    void candidates() {
+        RuleDirectoryScanner scanner = createScanner("docs/*.adoc, reports/chapter?/index.adoc, index.adoc", "docs/archive/**", null);
+
+        assertThat(scanner.isCandidate("docs")).isTrue();
+        assertThat(scanner.isCandidate("docs/images")).isTrue();
+        assertThat(scanner.isCandidate("docs/archive")).isFalse();
+        assertThat(scanner.isCandidate("reports")).isTrue();
+        assertThat(scanner.isCandidate("reports/chapter1")).isTrue();
+        assertThat(scanner.isCandidate("other")).isFalse();
+        assertThat(createScanner("/docs/*.adoc", null, null).isCandidate("other")).isTrue();
+    }
+
+    @Test
+    void cachedListing() throws IOException {
+        FileTime lastModified = FileTime.fromMillis(System.currentTimeMillis() - HOURS.toMillis(1));
+        setLastModified(lastModified);
+        DirectoryListingCache directoryListingCache = new DirectoryListingCache(directory, ruleDirectory);
+        RuleDirectoryScanner scanner = createScanner("**/*.adoc", null, directoryListingCache);
+        directoryListingCache.load();
+        assertThat(scanner.scan()).contains("docs/index.adoc").doesNotContain("docs/new.adoc");
+        directoryListingCache.store();
+        assertThat(new File(directory, DirectoryListingCache.FILE_NAME)).exists();
+
+        // a new file in a directory with an unchanged modification time is not detected
+        createFile("docs/new.adoc");
+        setLastModified(lastModified);
+        directoryListingCache = new DirectoryListingCache(directory, ruleDirectory);
+        scanner = createScanner("**/*.adoc", null, directoryListingCache);
+        directoryListingCache.load();
+        assertThat(scanner.scan()).contains("docs/index.adoc").doesNotContain("docs/new.adoc");
+
+        Files.setLastModifiedTime(new File(ruleDirectory, "docs").toPath(), FileTime.fromMillis(System.currentTimeMillis()));
+        directoryListingCache.load();
+        assertThat(scanner.scan()).contains("docs/index.adoc", "docs/new.adoc");
+    }
+
+    private RuleDirectoryScanner createScanner(String include, String exclude, DirectoryListingCache directoryListingCache) {
+        FilePatternMatcher filePatternMatcher = FilePatternMatcher.builder().include(include).exclude(exclude).build();
+        return new RuleDirectoryScanner(ruleDirectory.toPath(), include, exclude, file -> {
+            filteredFiles.add(file);
+            return filePatternMatcher.accepts(file);
+        }, directoryListingCache);
+    }
+
+    private void createFile(String relativePath) throws IOException {
+        File file = new File(ruleDirectory, relativePath);
+        file.getParentFile().mkdirs();
+        FileUtils.writeStringToFile(file, "= " + relativePath, "UTF-8");
+    }
+
+    private void setLastModified(FileTime lastModified) throws IOException {
+        try (Stream<Path> paths = Files.walk(ruleDirectory.toPath())) {
+            for (Path path : (Iterable<Path>) paths.filter(Files::isDirectory)::iterator) {
+                Files.setLastModifiedTime(path, lastModified);
+            }
+        }
+    }
+}
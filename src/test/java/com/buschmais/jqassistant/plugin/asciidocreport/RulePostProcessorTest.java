@@ -1,5 +1,6 @@
 package com.buschmais.jqassistant.plugin.asciidocreport;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
@@ -11,7 +12,9 @@ import com.buschmais.jqassistant.core.rule.api.model.Constraint;
 import com.buschmais.jqassistant.core.rule.api.model.ExecutableRule;
 import com.buschmais.jqassistant.core.rule.api.model.Severity;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
+import org.asciidoctor.ast.Document;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
@@ -23,6 +26,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Collections.emptyMap;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 
 @ExtendWith(MockitoExtension.class)
 class RulePostProcessorTest {
@@ -71,6 +76,99 @@ class RulePostProcessorTest {
         verify(constraint, emptyMap(), createRuleResults(constraint), ruleToggle -> assertThat(ruleToggle).isNotNull());
     }
 
+    @Test
+    void streamedOutput() throws IOException {
+        Concept concept = Concept.builder()
+            .id("listingConceptWithTitle")
+            .severity(Severity.MINOR)
+            .build();
+        Map<String, RuleResult> conceptResults = createRuleResults(concept);
+        File outputFile = new File("target/rule-post-processor/index.html");
+        Document document = mock(Document.class);
+        doReturn(true).when(document).basebackend("html");
+        DocumentContext documentContext = DocumentContext.builder()
+            .conceptResults(conceptResults)
+            .constraintResults(emptyMap())
+            .outputFile(outputFile)
+            .build();
+
+        String output;
+        try (DocumentContext activeDocumentContext = documentContext.activate()) {
+            output = new RulePostProcessor().process(document, html);
+        }
+
+        assertThat(output).isEmpty();
+        File streamedOutputFile = documentContext.getStreamedOutputFile();
+        assertThat(streamedOutputFile).isNotNull();
+        assertThat(streamedOutputFile.getParentFile()).isEqualTo(outputFile.getAbsoluteFile().getParentFile());
+        assertThat(FileUtils.readFileToString(streamedOutputFile, UTF_8))
+            .isEqualTo(RulePostProcessor.HtmlRulePostProcessor.process(conceptResults, emptyMap(), html));
+        FileUtils.forceDelete(streamedOutputFile);
+    }
+
+    @Test
+    void markupOutsideOfRuleBlocksIsUnchanged() {
+        String result = RulePostProcessor.HtmlRulePostProcessor.process(emptyMap(), emptyMap(), html);
+
+        // the styles are inserted into the head
+        assertThat(result).startsWith("<html>\n<head><style>\n");
+        String styles = result.substring(result.indexOf("<style>"), result.indexOf("</style>\n") + "</style>\n".length());
+        String resultWithoutStyles = result.replace(styles, "");
+        assertThat(resultWithoutStyles).startsWith(html.substring(0, html.indexOf("<div id=\"listingConceptWithTitle\"")));
+        assertThat(resultWithoutStyles).endsWith("</body>\n</html>\n");
+    }
+
+    @Test
+    void constantSizeStyles() {
+        Concept concept = Concept.builder()
+            .id("listingConceptWithTitle")
+            .severity(Severity.MINOR)
+            .build();
+        String result = RulePostProcessor.HtmlRulePostProcessor.process(createRuleResults(concept), emptyMap(), html);
+
+        org.jsoup.nodes.Document doc = Jsoup.parse(result, "UTF-8");
+        Elements listings = doc.getElementsByClass("jqassistant-rule-listing");
+        assertThat(listings).isNotEmpty();
+        assertThat(listings.stream().map(Element::id)).allMatch(String::isEmpty);
+        assertThat(doc.getElementsByTag("style")).hasSize(1);
+        assertThat(doc.head().getElementsByTag("style")).hasSize(1);
+        assertThat(doc.head().getElementsByTag("style").first().data()).contains(".jqassistant-rule-listing{",
+            "input.jqassistant-rule-toggle:checked + .jqassistant-rule-listing{");
+    }
+
+    @Test
+    void nestedRuleBlocks() {
+        Concept outerConcept = Concept.builder()
+            .id("outerConcept")
+            .severity(Severity.MINOR)
+            .build();
+        Constraint nestedConstraint = Constraint.builder()
+            .id("nestedConstraint")
+            .severity(Severity.MINOR)
+            .build();
+        String nestedHtml = "<html>\n<head></head>\n<body>\n" //
+            + "<div id=\"outerConcept\" class=\"openblock concept\">\n<div class=\"content\">\n" //
+            + "<div id=\"nestedConstraint\" class=\"listingblock constraint\">\n<div class=\"title\">Nested</div>\n" //
+            + "<div class=\"content\">\n<pre>MATCH (n) RETURN n</pre>\n</div>\n</div>\n" //
+            + "</div>\n</div>\n" //
+            + "<div id=\"trailingConcept\" class=\"paragraph\"><p>Text</p></div>\n" //
+            + "</body>\n</html>\n";
+
+        String result = RulePostProcessor.HtmlRulePostProcessor.process(createRuleResults(outerConcept), createRuleResults(nestedConstraint),
+            nestedHtml);
+
+        org.jsoup.nodes.Document doc = Jsoup.parse(result, "UTF-8");
+        Element outerBlock = doc.getElementById("outerConcept");
+        Element nestedBlock = doc.getElementById("nestedConstraint");
+        assertThat(outerBlock.child(0).hasClass("jqassistant-rule-status")).isTrue();
+        verifyStatus(outerBlock, "outerConcept");
+        verifyStatus(nestedBlock, "nestedConstraint");
+        assertThat(outerBlock.getElementsByClass("jqassistant-rule-status")).hasSize(2);
+        assertThat(nestedBlock.getElementsByClass("jqassistant-rule-toggle")).hasSize(1);
+        assertThat(nestedBlock.getElementsByClass("jqassistant-rule-listing")).hasSize(1);
+        assertThat(doc.getElementById("trailingConcept").getElementsByClass("jqassistant-rule-status")).isEmpty();
+    }
+
     private void verify(ExecutableRule<?> rule, Map<String, RuleResult> conceptResults, Map<String, RuleResult> constraintResults,
         Consumer<Elements> ruleToggleConsumer) {
 
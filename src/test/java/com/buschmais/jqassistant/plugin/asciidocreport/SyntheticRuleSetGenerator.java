@@ -0,0 +1,612 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+import com.buschmais.jqassistant.core.report.api.ReportContext;
+import com.buschmais.jqassistant.core.report.api.ReportPlugin;
+import com.buschmais.jqassistant.core.report.api.graph.model.Node;
+import com.buschmais.jqassistant.core.report.api.graph.model.Relationship;
+import com.buschmais.jqassistant.core.report.api.graph.model.SubGraph;
+import com.buschmais.jqassistant.core.report.api.model.Result;
+import com.buschmais.jqassistant.core.report.impl.CompositeReportPlugin;
+import com.buschmais.jqassistant.core.report.impl.ReportContextImpl;
+import com.buschmais.jqassistant.core.rule.api.configuration.Rule;
+import com.buschmais.jqassistant.core.rule.api.model.*;
+import com.buschmais.jqassistant.core.rule.api.source.FileRuleSource;
+import com.buschmais.jqassistant.core.rule.api.source.RuleSource;
+import com.buschmais.jqassistant.core.rule.impl.reader.AsciidocRuleParserPlugin;
+import com.buschmais.jqassistant.core.rule.impl.reader.RuleParser;
+import com.buschmais.jqassistant.plugin.asciidocreport.plantuml.component.ComponentDiagramReportPlugin;
+import com.buschmais.jqassistant.plugin.common.api.model.ArtifactFileDescriptor;
+import com.buschmais.jqassistant.plugin.common.api.model.DependsOnDescriptor;
+import com.buschmais.xo.neo4j.api.model.Neo4jLabel;
+import com.buschmais.xo.neo4j.api.model.Neo4jNode;
+import com.buschmais.xo.neo4j.api.model.Neo4jRelationship;
+import com.buschmais.xo.neo4j.api.model.Neo4jRelationshipType;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.io.FileUtils;
+
+import static com.buschmais.jqassistant.core.report.api.model.Result.Status.FAILURE;
+import static com.buschmais.jqassistant.core.report.api.model.Result.Status.SUCCESS;
+import static com.buschmais.jqassistant.plugin.asciidocreport.SubGraphTestHelper.getNode;
+import static com.buschmais.jqassistant.plugin.asciidocreport.SubGraphTestHelper.getRelationship;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Generates synthetic rule sources and matching results for load and scaling
+ * tests of the AsciiDoc report without a Neo4j store.
+ * <p>
+ * The generated tree consists of an "index.adoc" containing summaries and of
+ * chapter documents declaring concepts, constraints and component diagram
+ * concepts. Each chapter includes a chain of non-rule documents (see
+ * {@link #includeDepth}). Results are created with the configured number of
+ * rows, diagram results consist of mocked artifact and dependency descriptors.
+ * <p>
+ * The generator can be executed from the command line, see
+ * {@link #main(String[])}.
+ */
+@Builder
+public final class SyntheticRuleSetGenerator {
+
+    public static final String INDEX = "index.adoc";
+
+    private static final String ID_PREFIX = "gen:";
+
+    /**
+     * The number of chapter documents.
+     */
+    @Builder.Default
+    private final int documents = 10;
+
+    /**
+     * The number of concepts and constraints per chapter document.
+     */
+    @Builder.Default
+    private final int rulesPerDocument = 10;
+
+    /**
+     * The number of component diagram concepts per chapter document.
+     */
+    @Builder.Default
+    private final int diagramsPerDocument = 1;
+
+    /**
+     * The depth of the chain of documents included by each chapter.
+     */
+    @Builder.Default
+    private final int includeDepth = 2;
+
+    /**
+     * The number of rows per result.
+     */
+    @Builder.Default
+    private final int rows = 10;
+
+    /**
+     * The number of columns per result.
+     */
+    @Builder.Default
+    private final int columns = 3;
+
+    /**
+     * The number of nodes of diagram results.
+     */
+    @Builder.Default
+    private final int diagramNodes = 20;
+
+    /**
+     * The number of dependencies of each node of diagram results.
+     */
+    @Builder.Default
+    private final int edgesPerNode = 2;
+
+    /**
+     * Every n-th constraint fails.
+     */
+    @Builder.Default
+    private final int failingConstraintInterval = 3;
+
+    @Builder.Default
+    private final long seed = 42;
+
+    /**
+     * Returns the id of a rule block declared by a chapter document, even rule
+     * blocks are concepts, odd ones are constraints.
+     *
+     * @param document
+     *            The index of the chapter document.
+     * @param ruleBlock
+     *            The index of the rule block.
+     * @return The rule id.
+     */
+    public static String getRuleId(int document, int ruleBlock) {
+        return ID_PREFIX + (ruleBlock % 2 == 0 ? "Concept" : "Constraint") + document + "_" + ruleBlock;
+    }
+
+    /**
+     * Returns the id of a component diagram concept declared by a chapter
+     * document.
+     *
+     * @param document
+     *            The index of the chapter document.
+     * @param diagram
+     *            The index of the diagram.
+     * @return The rule id.
+     */
+    public static String getDiagramId(int document, int diagram) {
+        return ID_PREFIX + "Diagram" + document + "_" + diagram;
+    }
+
+    /**
+     * Writes the rule sources to a directory and parses the contained rules.
+     *
+     * @param ruleDirectory
+     *            The directory, existing files are overwritten.
+     * @return The {@link GeneratedRuleSet}.
+     * @throws IOException
+     *             If a file cannot be written.
+     * @throws RuleException
+     *             If the rules cannot be parsed.
+     */
+    public GeneratedRuleSet generate(File ruleDirectory) throws IOException, RuleException {
+        List<String> files = new ArrayList<>();
+        List<String> conceptIds = new ArrayList<>();
+        List<String> constraintIds = new ArrayList<>();
+        FileUtils.writeStringToFile(new File(ruleDirectory, INDEX), createIndex(), UTF_8);
+        files.add(INDEX);
+        conceptIds.add(ID_PREFIX + "Overview");
+        for (int document = 0; document < documents; document++) {
+            String file = getChapterFile(document);
+            FileUtils.writeStringToFile(new File(ruleDirectory, file), createDocument(document), UTF_8);
+            files.add(file);
+            for (int ruleBlock = 0; ruleBlock < rulesPerDocument; ruleBlock++) {
+                (ruleBlock % 2 == 0 ? conceptIds : constraintIds).add(getRuleId(document, ruleBlock));
+            }
+            for (int diagram = 0; diagram < diagramsPerDocument; diagram++) {
+                conceptIds.add(getDiagramId(document, diagram));
+            }
+            for (int level = 1; level <= includeDepth; level++) {
+                FileUtils.writeStringToFile(new File(ruleDirectory, getPartFile(document, level)), createPart(document, level), UTF_8);
+            }
+        }
+        return new GeneratedRuleSet(ruleDirectory, files, parse(ruleDirectory, files), conceptIds, constraintIds);
+    }
+
+    private RuleSet parse(File ruleDirectory, List<String> files) throws RuleException {
+        AsciidocRuleParserPlugin ruleParserPlugin = new AsciidocRuleParserPlugin();
+        ruleParserPlugin.initialize();
+        ruleParserPlugin.configure(mock(Rule.class));
+        RuleParser ruleParser = new RuleParser(asList(ruleParserPlugin));
+        List<RuleSource> ruleSources = new ArrayList<>();
+        for (String file : files) {
+            ruleSources.add(new FileRuleSource(ruleDirectory, file));
+        }
+        return ruleParser.parse(ruleSources);
+    }
+
+    private String createIndex() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(":toc: left\n= Synthetic Rules\n\n");
+        builder.append("== Summary\n\n");
+        builder.append("include::jQA:Summary[]\n\n");
+        builder.append("== Overview\n\n");
+        builder.append("[[").append(ID_PREFIX).append("Overview]]\n");
+        builder.append("[source,cypher,role=concept]\n");
+        builder.append(".Overview of all types.\n");
+        builder.append("----\nMATCH\n  (t:Type)\nRETURN\n  t\n----\n\n");
+        for (int document = 0; document < documents; document++) {
+            builder.append("* <<").append(getChapterFile(document)).append("#,Chapter ").append(document).append(">>\n");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Creates the content of a chapter document.
+     *
+     * @param document
+     *            The index of the chapter document.
+     * @return The content.
+     */
+    public String createDocument(int document) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("= Chapter ").append(document).append("\n\n");
+        builder.append("== Summary\n\n");
+        builder.append("include::jQA:Summary[concepts=\"").append(ID_PREFIX).append("Concept").append(document).append("_*,").append(ID_PREFIX)
+                .append("Diagram").append(document).append("_*\",constraints=\"").append(ID_PREFIX).append("Constraint").append(document).append("_*\"]\n\n");
+        String previousConcept = null;
+        for (int ruleBlock = 0; ruleBlock < rulesPerDocument; ruleBlock++) {
+            String id = getRuleId(document, ruleBlock);
+            boolean concept = ruleBlock % 2 == 0;
+            builder.append("== Section ").append(ruleBlock).append("\n\n");
+            builder.append("Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor incididunt ut labore.\n\n");
+            builder.append("[[").append(id).append("]]\n");
+            builder.append("[source,cypher,role=").append(concept ? "concept" : "constraint");
+            if (previousConcept != null) {
+                builder.append(",requiresConcepts=\"").append(previousConcept).append('"');
+            }
+            builder.append("]\n");
+            builder.append(".Rule ").append(ruleBlock).append(" of chapter ").append(document).append(".\n");
+            builder.append("----\nMATCH\n  (t:Type)\nWHERE\n  t.name STARTS WITH 'Type").append(ruleBlock).append("'\nRETURN\n  t\n----\n\n");
+            if (concept) {
+                previousConcept = id;
+            }
+        }
+        for (int diagram = 0; diagram < diagramsPerDocument; diagram++) {
+            builder.append("== Diagram ").append(diagram).append("\n\n");
+            builder.append("[[").append(getDiagramId(document, diagram)).append("]]\n");
+            builder.append("[source,cypher,role=concept,reportType=\"plantuml-component-diagram\"]\n");
+            builder.append(".Component diagram ").append(diagram).append(" of chapter ").append(document).append(".\n");
+            builder.append("----\nMATCH\n  (a:Artifact)\nOPTIONAL MATCH\n  (a)-[d:DEPENDS_ON]->()\nRETURN\n  a as Node, d as DependsOn\n----\n\n");
+        }
+        if (includeDepth > 0) {
+            builder.append("include::").append(getPartFile(document, 1)).append("[]\n");
+        }
+        return builder.toString();
+    }
+
+    private String createPart(int document, int level) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("== Part ").append(level).append(" of chapter ").append(document).append("\n\n");
+        builder.append("Ut enim ad minim veniam, quis nostrud exercitation ullamco laboris nisi ut aliquip ex ea commodo consequat.\n\n");
+        builder.append("|===\n| Name | Value\n");
+        for (int row = 0; row < 10; row++) {
+            builder.append("| Name").append(row).append(" | ").append(level * row).append('\n');
+        }
+        builder.append("|===\n\n");
+        if (level < includeDepth) {
+            // resolved relative to the directory of this document
+            builder.append("include::").append(new File(getPartFile(document, level + 1)).getName()).append("[]\n");
+        }
+        return builder.toString();
+    }
+
+    private static String getChapterFile(int document) {
+        return "chapter" + document + ".adoc";
+    }
+
+    private static String getPartFile(int document, int level) {
+        return "parts/chapter" + document + "-part" + level + ".adoc";
+    }
+
+    /**
+     * Creates the results for all rules of a {@link GeneratedRuleSet}.
+     *
+     * @param generatedRuleSet
+     *            The {@link GeneratedRuleSet}.
+     * @return The {@link Result}s, concepts first.
+     * @throws RuleException
+     *             If a rule cannot be resolved.
+     */
+    public List<Result<? extends ExecutableRule>> createResults(GeneratedRuleSet generatedRuleSet) throws RuleException {
+        Random random = new Random(seed);
+        List<Result<? extends ExecutableRule>> results = new ArrayList<>();
+        RuleSet ruleSet = generatedRuleSet.getRuleSet();
+        for (String conceptId : generatedRuleSet.getConceptIds()) {
+            Concept concept = ruleSet.getConceptBucket().getById(conceptId);
+            if (conceptId.startsWith(ID_PREFIX + "Diagram")) {
+                results.add(Result.<Concept> builder().rule(concept).status(SUCCESS).severity(concept.getSeverity()).columnNames(asList("Node", "DependsOn"))
+                        .rows(createDiagramRows(random)).build());
+            } else {
+                results.add(Result.<Concept> builder().rule(concept).status(SUCCESS).severity(concept.getSeverity()).columnNames(getColumnNames())
+                        .rows(createRows(conceptId)).build());
+            }
+        }
+        int constraints = 0;
+        for (String constraintId : generatedRuleSet.getConstraintIds()) {
+            Constraint constraint = ruleSet.getConstraintBucket().getById(constraintId);
+            boolean failed = failingConstraintInterval > 0 && ++constraints % failingConstraintInterval == 0;
+            results.add(Result.<Constraint> builder().rule(constraint).status(failed ? FAILURE : SUCCESS).severity(constraint.getSeverity())
+                    .columnNames(getColumnNames()).rows(failed ? createRows(constraintId) : Collections.emptyList()).build());
+        }
+        return results;
+    }
+
+    /**
+     * Passes the results of all rules of a {@link GeneratedRuleSet} to a
+     * {@link ReportPlugin}, including begin and end of the report.
+     *
+     * @param reportPlugin
+     *            The {@link ReportPlugin}.
+     * @param generatedRuleSet
+     *            The {@link GeneratedRuleSet}.
+     * @throws RuleException
+     *             If reporting fails.
+     */
+    public void report(ReportPlugin reportPlugin, GeneratedRuleSet generatedRuleSet) throws RuleException {
+        List<Result<? extends ExecutableRule>> results = createResults(generatedRuleSet);
+        reportPlugin.begin();
+        for (Result<? extends ExecutableRule> result : results) {
+            ExecutableRule<?> rule = result.getRule();
+            if (rule instanceof Concept) {
+                reportPlugin.beginConcept((Concept) rule);
+                reportPlugin.setResult(result);
+                reportPlugin.endConcept();
+            } else {
+                reportPlugin.beginConstraint((Constraint) rule);
+                reportPlugin.setResult(result);
+                reportPlugin.endConstraint();
+            }
+        }
+        reportPlugin.end();
+    }
+
+    private List<String> getColumnNames() {
+        List<String> columnNames = new ArrayList<>(columns);
+        for (int column = 0; column < columns; column++) {
+            columnNames.add("Column" + column);
+        }
+        return columnNames;
+    }
+
+    private List<Map<String, Object>> createRows(String ruleId) {
+        List<String> columnNames = getColumnNames();
+        List<Map<String, Object>> resultRows = new ArrayList<>(rows);
+        for (int row = 0; row < rows; row++) {
+            Map<String, Object> resultRow = new LinkedHashMap<>();
+            for (int column = 0; column < columnNames.size(); column++) {
+                Object value;
+                switch (column % 3) {
+                case 0:
+                    value = "com.buschmais.generated." + ruleId.substring(ID_PREFIX.length()) + ".Type" + row;
+                    break;
+                case 1:
+                    value = asList("method" + row + "()", "field" + row);
+                    break;
+                default:
+                    value = (long) row * column;
+                }
+                resultRow.put(columnNames.get(column), value);
+            }
+            resultRows.add(resultRow);
+        }
+        return resultRows;
+    }
+
+    private List<Map<String, Object>> createDiagramRows(Random random) {
+        List<ArtifactFileDescriptor> artifacts = new ArrayList<>(diagramNodes);
+        for (int node = 0; node < diagramNodes; node++) {
+            artifacts.add(createArtifact(node, "artifact" + node));
+        }
+        List<Map<String, Object>> diagramRows = new ArrayList<>();
+        long relationshipId = 0;
+        for (ArtifactFileDescriptor artifact : artifacts) {
+            if (edgesPerNode == 0) {
+                Map<String, Object> row = new HashMap<>();
+                row.put("Node", artifact);
+                row.put("DependsOn", null);
+                diagramRows.add(row);
+            }
+            for (int edge = 0; edge < edgesPerNode; edge++) {
+                Map<String, Object> row = new HashMap<>();
+                row.put("Node", artifact);
+                row.put("DependsOn", createDependsOn(relationshipId++, artifact, artifacts.get(random.nextInt(artifacts.size()))));
+                diagramRows.add(row);
+            }
+        }
+        return diagramRows;
+    }
+
+    /**
+     * Creates a {@link SubGraph} for rendering diagrams in isolation.
+     *
+     * @param nodes
+     *            The number of nodes.
+     * @param edgesPerNode
+     *            The number of outgoing relationships of each node.
+     * @param seed
+     *            The seed for choosing the end nodes of relationships.
+     * @return The {@link SubGraph}.
+     */
+    public static SubGraph createSubGraph(int nodes, int edgesPerNode, long seed) {
+        Random random = new Random(seed);
+        SubGraph subGraph = new SubGraph();
+        subGraph.setId(-1);
+        Node[] graphNodes = new Node[nodes];
+        for (int i = 0; i < nodes; i++) {
+            graphNodes[i] = getNode(i, "Artifact" + i, "Artifact", "File");
+            subGraph.getNodes().put(graphNodes[i].getId(), graphNodes[i]);
+        }
+        long relationshipId = 0;
+        for (Node start : graphNodes) {
+            for (int edge = 0; edge < edgesPerNode; edge++) {
+                Relationship relationship = getRelationship(relationshipId++, start, "DEPENDS_ON", graphNodes[random.nextInt(nodes)]);
+                subGraph.getRelationships().put(relationship.getId(), relationship);
+            }
+        }
+        return subGraph;
+    }
+
+    /**
+     * Creates a mocked {@link ArtifactFileDescriptor}.
+     *
+     * @param id
+     *            The id of the node.
+     * @param name
+     *            The full qualified name.
+     * @return The {@link ArtifactFileDescriptor}.
+     */
+    public static ArtifactFileDescriptor createArtifact(long id, String name) {
+        Neo4jNode node = mock(Neo4jNode.class);
+        when(node.getId()).thenReturn(id);
+        Neo4jLabel artifactLabel = mock(Neo4jLabel.class);
+        when(artifactLabel.getName()).thenReturn("Artifact");
+        when(node.getLabels()).thenReturn(asList(artifactLabel));
+        ArtifactFileDescriptor artifactFileDescriptor = mock(ArtifactFileDescriptor.class);
+        when(artifactFileDescriptor.getFullQualifiedName()).thenReturn(name);
+        when(artifactFileDescriptor.getDelegate()).thenReturn(node);
+        return artifactFileDescriptor;
+    }
+
+    /**
+     * Creates a mocked {@link DependsOnDescriptor}.
+     *
+     * @param id
+     *            The id of the relationship.
+     * @param start
+     *            The dependent artifact.
+     * @param end
+     *            The dependency.
+     * @return The {@link DependsOnDescriptor}.
+     */
+    public static DependsOnDescriptor createDependsOn(long id, ArtifactFileDescriptor start, ArtifactFileDescriptor end) {
+        Neo4jRelationshipType relationshipType = mock(Neo4jRelationshipType.class);
+        when(relationshipType.getName()).thenReturn("DEPENDS_ON");
+        Neo4jRelationship relationship = mock(Neo4jRelationship.class);
+        when(relationship.getId()).thenReturn(id);
+        when(relationship.getType()).thenReturn(relationshipType);
+        Neo4jNode startNode = start.getDelegate();
+        Neo4jNode endNode = end.getDelegate();
+        when(relationship.getStartNode()).thenReturn(startNode);
+        when(relationship.getEndNode()).thenReturn(endNode);
+        DependsOnDescriptor dependsOnDescriptor = mock(DependsOnDescriptor.class);
+        when(dependsOnDescriptor.getDependent()).thenReturn(start);
+        when(dependsOnDescriptor.getDependency()).thenReturn(end);
+        when(dependsOnDescriptor.getDelegate()).thenReturn(relationship);
+        return dependsOnDescriptor;
+    }
+
+    /**
+     * Generates rule sources and renders the report.
+     * <p>
+     * Usage: <code>SyntheticRuleSetGenerator &lt;directory&gt; [name=value ...]</code>,
+     * the names are the fields of the builder (e.g. <code>documents=100</code>,
+     * <code>rows=1000</code>), <code>render=false</code> only writes the rule
+     * sources. The rule sources are written to "jqassistant", the report to
+     * "report" below the given directory.
+     *
+     * @param args
+     *            The arguments.
+     * @throws Exception
+     *             If generation or rendering fails.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: SyntheticRuleSetGenerator <directory> [documents=10] [rulesPerDocument=10] [diagramsPerDocument=1] "
+                    + "[includeDepth=2] [rows=10] [columns=3] [diagramNodes=20] [edgesPerNode=2] [seed=42] [render=true] [name=value ...]");
+            System.exit(1);
+        }
+        File directory = new File(args[0]);
+        SyntheticRuleSetGeneratorBuilder builder = builder();
+        boolean render = true;
+        Map<String, Object> properties = new HashMap<>();
+        for (int i = 1; i < args.length; i++) {
+            String[] argument = args[i].split("=", 2);
+            if (argument.length != 2) {
+                throw new IllegalArgumentException("Expecting name=value: " + args[i]);
+            }
+            String name = argument[0];
+            String value = argument[1];
+            switch (name) {
+            case "documents":
+                builder.documents(Integer.parseInt(value));
+                break;
+            case "rulesPerDocument":
+                builder.rulesPerDocument(Integer.parseInt(value));
+                break;
+            case "diagramsPerDocument":
+                builder.diagramsPerDocument(Integer.parseInt(value));
+                break;
+            case "includeDepth":
+                builder.includeDepth(Integer.parseInt(value));
+                break;
+            case "rows":
+                builder.rows(Integer.parseInt(value));
+                break;
+            case "columns":
+                builder.columns(Integer.parseInt(value));
+                break;
+            case "diagramNodes":
+                builder.diagramNodes(Integer.parseInt(value));
+                break;
+            case "edgesPerNode":
+                builder.edgesPerNode(Integer.parseInt(value));
+                break;
+            case "seed":
+                builder.seed(Long.parseLong(value));
+                break;
+            case "render":
+                render = Boolean.parseBoolean(value);
+                break;
+            default:
+                // report plugin properties, e.g. asciidoc.report.parallelism
+                properties.put(name, value);
+            }
+        }
+        SyntheticRuleSetGenerator generator = builder.build();
+        long start = System.currentTimeMillis();
+        GeneratedRuleSet generatedRuleSet = generator.generate(new File(directory, "jqassistant"));
+        System.out.println("Generated " + generatedRuleSet.getFiles().size() + " documents with " + generatedRuleSet.getConceptIds().size()
+                + " concepts and " + generatedRuleSet.getConstraintIds().size() + " constraints in " + (System.currentTimeMillis() - start) + " ms.");
+        if (render) {
+            start = System.currentTimeMillis();
+            generator.render(generatedRuleSet, new File(directory, "report"), properties);
+            System.out.println("Rendered report in " + (System.currentTimeMillis() - start) + " ms.");
+        }
+    }
+
+    /**
+     * Renders the report for a {@link GeneratedRuleSet} using the AsciiDoc and
+     * the component diagram report plugins.
+     *
+     * @param generatedRuleSet
+     *            The {@link GeneratedRuleSet}.
+     * @param outputDirectory
+     *            The output directory, the AsciiDoc report is written to
+     *            "report/asciidoc".
+     * @param properties
+     *            The properties of the report plugins.
+     * @return The {@link ReportContext}.
+     * @throws RuleException
+     *             If rendering fails.
+     */
+    public ReportContext render(GeneratedRuleSet generatedRuleSet, File outputDirectory, Map<String, Object> properties) throws RuleException {
+        Map<String, Object> reportProperties = new HashMap<>(properties);
+        reportProperties.putIfAbsent("asciidoc.report.rule.directory", generatedRuleSet.getRuleDirectory().getAbsolutePath());
+        reportProperties.putIfAbsent("plantuml.report.rendermode", "smetana");
+        ReportContext reportContext = new ReportContextImpl(SyntheticRuleSetGenerator.class.getClassLoader(), null, outputDirectory);
+        Map<String, ReportPlugin> reportPlugins = new HashMap<>();
+        reportPlugins.put("asciidoc", new AsciidocReportPlugin());
+        reportPlugins.put("plantuml-component-diagram", new ComponentDiagramReportPlugin());
+        for (ReportPlugin reportPlugin : reportPlugins.values()) {
+            reportPlugin.initialize();
+            reportPlugin.configure(reportContext, reportProperties);
+        }
+        ReportPlugin reportPlugin = new CompositeReportPlugin(reportPlugins);
+        try {
+            report(reportPlugin, generatedRuleSet);
+        } finally {
+            reportPlugin.destroy();
+        }
+        return reportContext;
+    }
+
+    /**
+     * The generated rule sources and the parsed {@link RuleSet}.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static final class GeneratedRuleSet {
+
+        private final File ruleDirectory;
+
+        /**
+         * The rule source files relative to the rule directory.
+         */
+        private final List<String> files;
+
+        private final RuleSet ruleSet;
+
+        private final List<String> conceptIds;
+
+        private final List<String> constraintIds;
+
+    }
+}
@@ -0,0 +1,14 @@
+package com.buschmais.jqassistant.plugin.asciidocreport;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TreePreprocessorTest {
+
+    @Test
+    void resultFileNames() {
+        assertThat(TreePreprocessor.getResultFileName("test:Constraint", ".csv")).isEqualTo("test_Constraint-2ca70161.csv");
+        assertThat(TreePreprocessor.getResultFileName("test_Constraint", ".csv")).isEqualTo("test_Constraint-0d243b1b.csv");
+    }
+}
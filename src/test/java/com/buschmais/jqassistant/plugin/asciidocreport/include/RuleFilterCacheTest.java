@@ -0,0 +1,42 @@
+package com.buschmais.jqassistant.plugin.asciidocreport.include;
+
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+import com.buschmais.jqassistant.core.rule.api.filter.RuleFilter;
+
+import org.junit.jupiter.api.Test;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RuleFilterCacheTest {
+
+    private final NavigableSet<String> ids = new TreeSet<>(
+            asList("java:Concept", "java:Constraint", "java:TestConcept", "javax:Concept", "jpa:Entity", "test:Concept", "test:TestConcept"));
+
+    private final RuleFilterCache ruleFilterCache = new RuleFilterCache();
+
+    @Test
+    void matcherIsCompiledOnce() {
+        assertThat(ruleFilterCache.getMatcher("java:*")).isSameAs(ruleFilterCache.getMatcher("java:*"));
+        assertThat(ruleFilterCache.getMatcher(null)).isSameAs(ruleFilterCache.getMatcher(null));
+        assertThat(ruleFilterCache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void matchesAsRuleFilter() {
+        for (String filter : asList(null, "*", "java:*", "java:Concept", "java:*, jpa:*", "java*", "*:Concept", "java:?oncept", "*, !java:*",
+                "test:*, !test:Test*", "!java:*", "unknown:*")) {
+            assertThat(ruleFilterCache.getMatcher(filter).match(ids)).describedAs(filter).isEqualTo(RuleFilter.match(ids, filter));
+        }
+    }
+
+    @Test
+    void candidatesRestrictedToLiteralPrefixes() {
+        assertThat(ruleFilterCache.getMatcher("java:*").getCandidates(ids)).containsExactly("java:Concept", "java:Constraint", "java:TestConcept");
+        assertThat(ruleFilterCache.getMatcher("jpa:*, test:Test*, !java:*").getCandidates(ids)).containsExactly("jpa:Entity", "test:TestConcept");
+        assertThat(ruleFilterCache.getMatcher("*:Concept").getCandidates(ids)).isSameAs(ids);
+        assertThat(ruleFilterCache.getMatcher("!java:*").getCandidates(ids)).isSameAs(ids);
+    }
+}
@@ -0,0 +1,95 @@
+package com.buschmais.jqassistant.plugin.asciidocreport.include;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.buschmais.jqassistant.core.report.api.model.Result;
+import com.buschmais.jqassistant.core.rule.api.model.Concept;
+import com.buschmais.jqassistant.core.rule.api.model.Constraint;
+import com.buschmais.jqassistant.core.rule.api.model.ExecutableRule;
+import com.buschmais.jqassistant.core.rule.api.model.Severity;
+import com.buschmais.jqassistant.plugin.asciidocreport.RuleResult;
+
+import org.asciidoctor.ast.StructuralNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static com.buschmais.jqassistant.core.report.api.model.Result.Status.FAILURE;
+import static com.buschmais.jqassistant.core.report.api.model.Result.Status.SUCCESS;
+import static com.buschmais.jqassistant.core.report.api.model.Result.Status.WARNING;
+import static com.buschmais.jqassistant.core.rule.api.model.Severity.CRITICAL;
+import static com.buschmais.jqassistant.core.rule.api.model.Severity.MAJOR;
+import static com.buschmais.jqassistant.core.rule.api.model.Severity.MINOR;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class RuleIndexTest {
+
+    private Map<String, RuleResult> conceptResults = new HashMap<>();
+    private Map<String, RuleResult> constraintResults = new HashMap<>();
+    private Map<String, StructuralNode> ruleBlocks = new HashMap<>();
+
+    private RuleResult successConcept = createResult(Concept.builder().id("test:SuccessConcept").severity(MINOR).build(), SUCCESS);
+    private RuleResult failedConcept = createResult(Concept.builder().id("test:FailedConcept").severity(MINOR).build(), FAILURE);
+    private RuleResult importedConcept = createResult(Concept.builder().id("imported:Concept").severity(MINOR).build(), WARNING);
+    private RuleResult majorConstraint = createResult(Constraint.builder().id("test:MajorConstraint").severity(MAJOR).build(), FAILURE);
+    private RuleResult criticalConstraint = createResult(Constraint.builder().id("test:CriticalConstraint").severity(CRITICAL).build(), FAILURE);
+    private RuleResult importedConstraint = createResult(Constraint.builder().id("imported:Constraint").severity(MINOR).build(), SUCCESS);
+
+    private RuleIndex ruleIndex;
+
+    @BeforeEach
+    void setUp() {
+        add(conceptResults, successConcept, true);
+        add(conceptResults, failedConcept, true);
+        add(conceptResults, importedConcept, false);
+        add(constraintResults, majorConstraint, true);
+        add(constraintResults, criticalConstraint, true);
+        add(constraintResults, importedConstraint, false);
+        ruleIndex = new RuleIndex(conceptResults, constraintResults, ruleBlocks);
+    }
+
+    @Test
+    void allOrderedByStatusAndSeverity() {
+        assertThat(ruleIndex.getConcepts().getAll()).containsExactly(failedConcept, importedConcept, successConcept);
+        assertThat(ruleIndex.getConstraints().getAll()).containsExactly(criticalConstraint, majorConstraint, importedConstraint);
+    }
+
+    @Test
+    void findDeclaredAndImportedRules() {
+        assertThat(ruleIndex.getConcepts().find("test:*", null)).containsExactly(failedConcept, successConcept);
+        assertThat(ruleIndex.getConcepts().find(null, "*")).containsExactly(importedConcept);
+        assertThat(ruleIndex.getConcepts().find("test:Success*", "*")).containsExactly(importedConcept, successConcept);
+        assertThat(ruleIndex.getConstraints().find("*", "*")).containsExactly(criticalConstraint, majorConstraint, importedConstraint);
+        assertThat(ruleIndex.getConstraints().find("unknown:*", null)).isEmpty();
+    }
+
+    @Test
+    void matchIsCached() {
+        assertThat(ruleIndex.getConcepts().match("test:*")).containsExactly("test:FailedConcept", "test:SuccessConcept");
+        assertThat(ruleIndex.getConcepts().match("test:*")).isSameAs(ruleIndex.getConcepts().match("test:*"));
+        assertThat(ruleIndex.getConcepts().get("test:FailedConcept")).isSameAs(failedConcept);
+    }
+
+    @Test
+    void importedRulesOrderedById() {
+        assertThat(ruleIndex.getImportedRules()).containsExactly(importedConcept, importedConstraint);
+    }
+
+    private void add(Map<String, RuleResult> results, RuleResult result, boolean declared) {
+        String id = result.getRule().getId();
+        results.put(id, result);
+        if (declared) {
+            ruleBlocks.put(id, mock(StructuralNode.class));
+        }
+    }
+
+    private static RuleResult createResult(ExecutableRule<?> rule, Result.Status status) {
+        Severity severity = rule.getSeverity();
+        return RuleResult.builder()
+            .rule(rule)
+            .effectiveSeverity(severity)
+            .status(status)
+            .build();
+    }
+}
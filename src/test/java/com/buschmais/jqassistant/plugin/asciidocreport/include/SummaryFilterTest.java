@@ -4,15 +4,20 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
+import com.buschmais.jqassistant.core.rule.api.model.Concept;
+import com.buschmais.jqassistant.core.rule.api.model.Constraint;
+import com.buschmais.jqassistant.core.rule.api.model.ExecutableRule;
 import com.buschmais.jqassistant.plugin.asciidocreport.RuleResult;
 
 import org.asciidoctor.ast.StructuralNode;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import static com.buschmais.jqassistant.core.report.api.model.Result.Status.SUCCESS;
+import static com.buschmais.jqassistant.core.rule.api.model.Severity.MAJOR;
+import static com.buschmais.jqassistant.core.rule.api.model.Severity.MINOR;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 
@@ -23,14 +28,10 @@ class SummaryFilterTest {
     private Map<String, RuleResult> constraintResults = new HashMap<>();
     private Map<String, StructuralNode> ruleBlocks = new HashMap<>();
 
-    @Mock
-    private RuleResult conceptResult;
-    @Mock
-    private RuleResult importedConceptResult;
-    @Mock
-    private RuleResult constraintResult;
-    @Mock
-    private RuleResult importedConstraintResult;
+    private RuleResult conceptResult = createResult(Concept.builder().id("concept").severity(MINOR).build());
+    private RuleResult importedConceptResult = createResult(Concept.builder().id("importedConcept").severity(MINOR).build());
+    private RuleResult constraintResult = createResult(Constraint.builder().id("constraint").severity(MAJOR).build());
+    private RuleResult importedConstraintResult = createResult(Constraint.builder().id("importedConstraint").severity(MAJOR).build());
 
     private SummaryFilter summaryFilter;
 
@@ -146,4 +147,12 @@ class SummaryFilterTest {
         assertThat(result.getConcepts()).containsOnly(importedConceptResult);
         assertThat(result.getConstraints()).containsOnly(importedConstraintResult);
     }
+
+    private static RuleResult createResult(ExecutableRule<?> rule) {
+        return RuleResult.builder()
+            .rule(rule)
+            .effectiveSeverity(rule.getSeverity())
+            .status(SUCCESS)
+            .build();
+    }
 }
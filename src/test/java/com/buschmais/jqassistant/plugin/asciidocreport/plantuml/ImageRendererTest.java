@@ -1,12 +1,20 @@
 package com.buschmais.jqassistant.plugin.asciidocreport.plantuml;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
 
 import com.buschmais.jqassistant.core.report.api.ReportException;
 import com.buschmais.jqassistant.core.rule.api.model.Concept;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.Test;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -50,6 +58,106 @@ class ImageRendererTest {
         assertThrows(ReportException.class, () -> renderDiagram("notExisting", ""));
     }
 
+    @Test
+    void renderCachedDiagram() throws ReportException, IOException {
+        ImageRenderer cachingImageRenderer = new ImageRenderer(true);
+        Concept concept = Concept.builder().id("test:cachedPlantuml").build();
+        File directory = new File("target/image-cache");
+        FileUtils.deleteDirectory(directory);
+        directory.mkdirs();
+        File file = new File(directory, "test_cachedPlantuml.svg");
+        String componentDiagram = "@startuml\n" + "component MyCachedComponent\n" + "@enduml";
+
+        cachingImageRenderer.renderDiagram(componentDiagram, concept, directory, "svg");
+        assertThat(file.delete(), equalTo(true));
+        File[] cachedFiles = new File(directory, ".cache").listFiles((dir, name) -> name.endsWith(".svg"));
+        assertThat(cachedFiles.length, equalTo(1));
+        // the diagram is not rendered by PlantUML again but copied from the cache
+        FileUtils.writeStringToFile(cachedFiles[0], "<svg>cached</svg>", UTF_8);
+        cachingImageRenderer.renderDiagram(componentDiagram, concept, directory, "svg");
+
+        assertThat(FileUtils.readFileToString(file, UTF_8), equalTo("<svg>cached</svg>"));
+    }
+
+    @Test
+    void layoutEngineVersionIsPartOfCacheKey() throws ReportException, IOException {
+        Concept concept = Concept.builder().id("test:layoutPlantuml").build();
+        File directory = new File("target/image-cache-layout");
+        FileUtils.deleteDirectory(directory);
+        directory.mkdirs();
+        String componentDiagram = "@startuml\n" + "component MyLayoutComponent\n" + "@enduml";
+
+        new ImageRenderer(true, false, () -> "dot 1.0").renderDiagram(componentDiagram, concept, directory, "svg");
+        new ImageRenderer(true, false, () -> "dot 2.0").renderDiagram(componentDiagram, concept, directory, "svg");
+        // an unknown version bypasses the cache
+        new ImageRenderer(true, false, () -> null).renderDiagram(componentDiagram, concept, directory, "svg");
+
+        File[] cachedFiles = new File(directory, ".cache").listFiles((dir, name) -> name.endsWith(".svg"));
+        assertThat(cachedFiles.length, equalTo(2));
+    }
+
+    @Test
+    void pruneCache() throws ReportException, IOException {
+        File directory = new File("target/image-cache-prune");
+        FileUtils.deleteDirectory(directory);
+        File cacheDirectory = new File(directory, ".cache");
+        cacheDirectory.mkdirs();
+        File unusedFile = new File(cacheDirectory, "unused.svg");
+        FileUtils.writeStringToFile(unusedFile, "<svg>unused</svg>", UTF_8);
+        assertThat(unusedFile.setLastModified(0), equalTo(true));
+        ImageRenderer cachingImageRenderer = new ImageRenderer(true);
+        Concept concept = Concept.builder().id("test:prunedPlantuml").build();
+        String componentDiagram = "@startuml\n" + "component MyPrunedComponent\n" + "@enduml";
+        cachingImageRenderer.renderDiagram(componentDiagram, concept, directory, "svg");
+
+        File recentlyUsedFile = new File(cacheDirectory, "recentlyUsed.svg");
+        FileUtils.writeStringToFile(recentlyUsedFile, "<svg>recently used</svg>", UTF_8);
+        assertThat(recentlyUsedFile.setLastModified(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1)), equalTo(true));
+
+        cachingImageRenderer.pruneCache(directory, TimeUnit.DAYS.toMillis(1));
+
+        assertThat(unusedFile.exists(), equalTo(false));
+        // not used by this run but within the maximum age
+        assertThat(recentlyUsedFile.exists(), equalTo(true));
+        File[] cachedFiles = cacheDirectory.listFiles((dir, name) -> name.endsWith(".svg"));
+        assertThat(cachedFiles.length, equalTo(2));
+    }
+
+    @Test
+    void renderCompressedDiagram() throws ReportException, IOException {
+        ImageRenderer compressingImageRenderer = new ImageRenderer(false, true);
+        Concept concept = Concept.builder().id("test:compressedPlantuml").build();
+        File directory = new File("target/image-compress");
+        directory.mkdirs();
+        String componentDiagram = "@startuml\n" + "component MyCompressedComponent\n" + "@enduml";
+
+        File file = compressingImageRenderer.renderDiagram(componentDiagram, concept, directory, "svg");
+
+        File gzipFile = new File(directory, "test_compressedPlantuml.svg.gz");
+        assertThat(gzipFile.exists(), equalTo(true));
+        try (InputStream inputStream = new GZIPInputStream(new FileInputStream(gzipFile))) {
+            assertThat(IOUtils.toByteArray(inputStream), equalTo(FileUtils.readFileToByteArray(file)));
+        }
+    }
+
+    @Test
+    void compressionFailureKeepsDiagram() throws ReportException, IOException {
+        ImageRenderer compressingImageRenderer = new ImageRenderer(false, true);
+        Concept concept = Concept.builder().id("test:uncompressedPlantuml").build();
+        File directory = new File("target/image-compress-failure");
+        FileUtils.deleteDirectory(directory);
+        // a non-empty directory in place of the gzip variant cannot be replaced
+        File gzipFile = new File(directory, "test_uncompressedPlantuml.svg.gz");
+        FileUtils.writeStringToFile(new File(gzipFile, "blocker"), "blocker", UTF_8);
+        String componentDiagram = "@startuml\n" + "component MyUncompressedComponent\n" + "@enduml";
+
+        File file = compressingImageRenderer.renderDiagram(componentDiagram, concept, directory, "svg");
+
+        assertThat(file.isFile(), equalTo(true));
+        assertThat(gzipFile.isDirectory(), equalTo(true));
+        assertThat(new File(directory, "test_uncompressedPlantuml.svg.gz.tmp").exists(), equalTo(false));
+    }
+
     private File renderDiagram(String format, String expectedFormat) throws ReportException {
         Concept concept = Concept.builder().id("test:plantuml").build();
         File directory = new File("target");
@@ -1,5 +1,7 @@
 package com.buschmais.jqassistant.plugin.asciidocreport.plantuml;
 
+import java.util.function.BooleanSupplier;
+
 import com.buschmais.jqassistant.core.report.api.ReportException;
 
 import org.junit.jupiter.api.Test;
@@ -35,6 +37,26 @@ class RenderModeTest {
         assertThat(RenderMode.getRenderMode("GRAPHVIZ")).isSameAs(GRAPHVIZ);
     }
 
+    @Test
+    void detectWithoutGraphviz() throws ReportException {
+        assertThat(RenderMode.getRenderMode(null, () -> false)).isSameAs(SMETANA);
+        assertThat(RenderMode.getRenderMode(null, () -> true)).isSameAs(GRAPHVIZ);
+    }
+
+    @Test
+    void explicitRenderModeWithoutProbe() throws ReportException {
+        BooleanSupplier probe = () -> {
+            throw new IllegalStateException("GraphViz must not be probed");
+        };
+        assertThat(RenderMode.getRenderMode("smetana", probe)).isSameAs(SMETANA);
+        assertThat(RenderMode.getRenderMode("elk", probe)).isSameAs(ELK);
+    }
+
+    @Test
+    void graphvizNotAvailable() {
+        assertThrows(ReportException.class, () -> RenderMode.getRenderMode("graphviz", () -> false));
+    }
+
     @Test
     void unsupportedRenderer() {
         assertThrows(ReportException.class, () -> {